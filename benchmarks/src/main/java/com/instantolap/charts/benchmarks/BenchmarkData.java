@@ -0,0 +1,172 @@
+package com.instantolap.charts.benchmarks;
+
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.impl.data.CubeImpl;
+
+
+/**
+ * Deterministic test data for the benchmarks.
+ */
+public class BenchmarkData {
+
+  private static final long START_TIME = 1500000000000L;
+  private static final long HOUR = 3600000L;
+
+  public static String[] createSamples(String prefix, int count) {
+    final String[] samples = new String[count];
+    for (int n = 0; n < count; n++) {
+      samples[n] = prefix + n;
+    }
+    return samples;
+  }
+
+  public static double getValue(int sample, int series) {
+    return Math.round(Math.sin(sample / (7.0 + series)) * 1000 + series * 200) / 10.0;
+  }
+
+  /**
+   * Creates a cube with samples x series values.
+   */
+  public static CubeImpl createCube(int samples, int series) {
+    final CubeImpl cube = new CubeImpl();
+    cube.setSamples(0, createSamples("s", samples), null);
+    cube.setSamples(1, createSamples("series", series), null);
+    for (int c1 = 0; c1 < series; c1++) {
+      for (int c0 = 0; c0 < samples; c0++) {
+        cube.set(Cube.MEASURE_VALUE, getValue(c0, c1), c0, c1);
+      }
+    }
+    return cube;
+  }
+
+  /**
+   * Creates the JSON data object of a cube with samples x series values.
+   */
+  public static String createData(int samples, int series) {
+    return createData(null, samples, series);
+  }
+
+  /**
+   * Creates the JSON data object of a cube with samples x series cells. If
+   * measures are given, every cell is an object with a value for each of
+   * them, otherwise a plain number.
+   */
+  public static String createData(String[] measures, int samples, int series) {
+    final StringBuilder json = new StringBuilder("{dimensions:[[");
+    appendSamples(json, "s", samples);
+    json.append("],[");
+    appendSamples(json, "series", series);
+    json.append("]],values:[");
+    for (int c1 = 0; c1 < series; c1++) {
+      if (c1 > 0) {
+        json.append(',');
+      }
+      json.append('[');
+      for (int c0 = 0; c0 < samples; c0++) {
+        if (c0 > 0) {
+          json.append(',');
+        }
+        if (measures == null) {
+          json.append(getValue(c0, c1));
+        } else {
+          appendCell(json, measures, c0, c1);
+        }
+      }
+      json.append(']');
+    }
+    return json.append("]}").toString();
+  }
+
+  /**
+   * Creates a complete chart spec of the given type, with the measures this
+   * type reads.
+   */
+  public static String createChart(String type, int samples, int series) {
+    return "{type:" + type + ",width:800,height:600,title:Benchmark,legend:{position:east},"
+      + "data:" + createData(getMeasures(type), samples, series) + "}";
+  }
+
+  /**
+   * Returns the measures a chart of the given type needs, or null if it
+   * only reads the value.
+   */
+  public static String[] getMeasures(String type) {
+    if ("scatter".equals(type)) {
+      return new String[]{Cube.MEASURE_X, Cube.MEASURE_Y};
+    } else if ("bubble".equals(type)) {
+      return new String[]{Cube.MEASURE_X, Cube.MEASURE_Y, Cube.MEASURE_VALUE};
+    } else if ("timeline".equals(type) || "timebar".equals(type)) {
+      return new String[]{Cube.MEASURE_TIME, Cube.MEASURE_VALUE};
+    } else if ("candle".equals(type)) {
+      return new String[]{
+        Cube.MEASURE_TIME, Cube.MEASURE_ENTRY, Cube.MEASURE_EXIT, Cube.MEASURE_MIN, Cube.MEASURE_MAX
+      };
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value of a measure, so that x/y pairs form curves, values
+   * are positive for bubble sizes, times are hourly and candles span their
+   * entry and exit.
+   */
+  public static double getValue(String measure, int sample, int series) {
+    final double entry = getValue(sample, series);
+    final double exit = getValue(sample + 1, series);
+    if (Cube.MEASURE_X.equals(measure)) {
+      return sample;
+    } else if (Cube.MEASURE_TIME.equals(measure)) {
+      return START_TIME + sample * HOUR;
+    } else if (Cube.MEASURE_ENTRY.equals(measure)) {
+      return entry;
+    } else if (Cube.MEASURE_EXIT.equals(measure)) {
+      return exit;
+    } else if (Cube.MEASURE_MIN.equals(measure)) {
+      return Math.min(entry, exit) - 5;
+    } else if (Cube.MEASURE_MAX.equals(measure)) {
+      return Math.max(entry, exit) + 5;
+    } else if (Cube.MEASURE_VALUE.equals(measure)) {
+      return Math.abs(entry) + 1;
+    }
+    return entry;
+  }
+
+  private static void appendCell(StringBuilder json, String[] measures, int sample, int series) {
+    json.append('{');
+    for (int m = 0; m < measures.length; m++) {
+      if (m > 0) {
+        json.append(',');
+      }
+      json.append(measures[m]).append(':').append(getValue(measures[m], sample, series));
+    }
+    json.append('}');
+  }
+
+  private static void appendSamples(StringBuilder json, String prefix, int count) {
+    for (int n = 0; n < count; n++) {
+      if (n > 0) {
+        json.append(',');
+      }
+      json.append(prefix).append(n);
+    }
+  }
+
+  /**
+   * Reads all values of the cube, so lazy cubes do their work.
+   */
+  public static double sum(Cube cube) {
+    final int measure = cube.getMeasureId(Cube.MEASURE_VALUE);
+    final int size0 = cube.getSampleCount(0);
+    final int size1 = (cube.getDimensionCount() > 1) ? cube.getSampleCount(1) : 1;
+    double sum = 0;
+    for (int c0 = 0; c0 < size0; c0++) {
+      for (int c1 = 0; c1 < size1; c1++) {
+        final double value = cube.getDouble(measure, c0, c1);
+        if (!Double.isNaN(value)) {
+          sum += value;
+        }
+      }
+    }
+    return sum;
+  }
+}
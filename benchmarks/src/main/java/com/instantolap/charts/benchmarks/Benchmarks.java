@@ -0,0 +1,26 @@
+package com.instantolap.charts.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Runs the benchmarks with the GC profiler, so that allocation rates are
+ * reported next to the times. Takes the usual JMH command line options,
+ * e.g. a benchmark regex or -p samples=1000.
+ */
+public class Benchmarks {
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    final Options options = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,81 @@
+package com.instantolap.charts.benchmarks;
+
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.impl.data.CubeImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Cell access and growth of CubeImpl.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CubeBenchmark {
+
+  @Param({"1000", "100000"})
+  public int samples;
+
+  @Param({"1", "10"})
+  public int series;
+
+  private CubeImpl cube;
+  private int measure;
+
+  @Setup
+  public void setup() {
+    cube = BenchmarkData.createCube(samples, series);
+    measure = cube.getMeasureId(Cube.MEASURE_VALUE);
+  }
+
+  @Benchmark
+  public double getDouble() {
+    double sum = 0;
+    for (int c1 = 0; c1 < series; c1++) {
+      for (int c0 = 0; c0 < samples; c0++) {
+        sum += cube.getDouble(measure, c0, c1);
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public void get(Blackhole blackhole) {
+    for (int c1 = 0; c1 < series; c1++) {
+      for (int c0 = 0; c0 < samples; c0++) {
+        blackhole.consume(cube.get(Cube.MEASURE_VALUE, c0, c1));
+      }
+    }
+  }
+
+  @Benchmark
+  public CubeImpl set() {
+    for (int c1 = 0; c1 < series; c1++) {
+      for (int c0 = 0; c0 < samples; c0++) {
+        cube.set(Cube.MEASURE_VALUE, (double) c0, c0, c1);
+      }
+    }
+    return cube;
+  }
+
+  @Benchmark
+  public CubeImpl create() {
+    return BenchmarkData.createCube(samples, series);
+  }
+
+  @Benchmark
+  public CubeImpl addSample() {
+    final CubeImpl newCube = new CubeImpl();
+    newCube.setSamples(1, BenchmarkData.createSamples("series", series), null);
+    for (int c0 = 0; c0 < samples; c0++) {
+      newCube.addSample(0, "s" + c0);
+    }
+    return newCube;
+  }
+}
@@ -0,0 +1,48 @@
+package com.instantolap.charts.benchmarks;
+
+import com.instantolap.charts.Data;
+import com.instantolap.charts.factories.JSONDataFactory;
+import com.instantolap.charts.json.JSONException;
+import com.instantolap.charts.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Parsing of large JSON data payloads, split into tokenizing and filling the
+ * cube.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParseBenchmark {
+
+  @Param({"1000", "100000"})
+  public int samples;
+
+  @Param({"10"})
+  public int series;
+
+  private String text;
+  private JSONObject json;
+
+  @Setup
+  public void setup() throws JSONException {
+    text = BenchmarkData.createData(samples, series);
+    json = new JSONObject(text);
+  }
+
+  @Benchmark
+  public Data parseText() throws JSONException {
+    return JSONDataFactory.parseData(new JSONObject(text));
+  }
+
+  @Benchmark
+  public Data parseData() throws JSONException {
+    return JSONDataFactory.parseData(json);
+  }
+}
@@ -0,0 +1,81 @@
+package com.instantolap.charts.benchmarks;
+
+import com.instantolap.charts.Chart;
+import com.instantolap.charts.factories.JSONChartFactory;
+import com.instantolap.charts.json.JSONObject;
+import com.instantolap.charts.renderer.impl.BasicRenderer;
+import com.instantolap.charts.renderer.impl.HeadlessRenderer;
+import com.instantolap.charts.renderer.impl.StreamingSvgRenderer;
+import com.instantolap.charts.renderer.impl.SvgRenderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Complete unanimated renders of each chart type, from the JSON spec to the
+ * finished image. Every type gets the measures it reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RenderBenchmark {
+
+  @Param({"bar", "column", "line", "spline", "area", "pie", "doughnut", "radar", "rose",
+    "scatter", "bubble", "heatmap", "timeline", "timebar", "candle", "meter"})
+  public String type;
+
+  @Param({"png", "svg", "streamingsvg"})
+  public String output;
+
+  @Param({"100", "10000"})
+  public int samples;
+
+  @Param({"5"})
+  public int series;
+
+  private JSONObject spec;
+
+  @Setup
+  public void setup() throws Exception {
+    spec = new JSONObject(BenchmarkData.createChart(type, samples, series));
+  }
+
+  @Benchmark
+  public Object render() throws Exception {
+    final Chart chart = JSONChartFactory.create(spec, null);
+    final BasicRenderer renderer;
+    if ("png".equals(output)) {
+      renderer = new HeadlessRenderer();
+    } else if ("svg".equals(output)) {
+      renderer = new SvgRenderer();
+    } else {
+      renderer = new StreamingSvgRenderer(new NullOutputStream());
+    }
+    renderer.setSize(spec.getInt("width"), spec.getInt("height"));
+    renderer.enableHandlers(false);
+    chart.setRenderer(renderer);
+    chart.renderUnanimated();
+
+    if (renderer instanceof SvgRenderer) {
+      return ((SvgRenderer) renderer).getSVG();
+    } else if (renderer instanceof HeadlessRenderer) {
+      return ((HeadlessRenderer) renderer).getImage();
+    }
+    return renderer;
+  }
+
+  private static class NullOutputStream extends OutputStream {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.instantolap.charts.benchmarks;
+
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.Transformation;
+import com.instantolap.charts.impl.data.transform.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Each transformation applied to a fresh cube, including reading the result,
+ * so that lazy transformations are measured as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransformBenchmark {
+
+  @Param({"1000", "100000"})
+  public int samples;
+
+  @Param({"10"})
+  public int series;
+
+  @Param({"stack", "accumulate", "waterfall", "normalize", "subcube", "reverse", "sort",
+    "downsample"})
+  public String transform;
+
+  private Cube cube;
+  private Transformation transformation;
+
+  @Setup
+  public void setup() {
+    cube = BenchmarkData.createCube(samples, series);
+    transformation = createTransformation(transform);
+  }
+
+  @Benchmark
+  public double transform() {
+    return BenchmarkData.sum(transformation.transform(cube));
+  }
+
+  private static Transformation createTransformation(String type) {
+    switch (type) {
+      case "stack":
+        return new StackedTransform();
+      case "accumulate":
+        return new AccumulateTransform();
+      case "waterfall":
+        return new WaterfallTransform();
+      case "normalize":
+        return new NormalizeTransform();
+      case "subcube":
+        return new SubcubeTransform(new int[]{0});
+      case "reverse":
+        return new ReverseTransform(0);
+      case "sort":
+        return new SortTransform(0, true, Integer.MAX_VALUE);
+      case "downsample":
+        return new DownsampleTransform(500, Cube.MEASURE_VALUE, false);
+      default:
+        throw new IllegalArgumentException("Unknown transformation '" + type + "'");
+    }
+  }
+}
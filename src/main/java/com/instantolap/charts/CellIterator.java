@@ -0,0 +1,17 @@
+package com.instantolap.charts;
+
+
+/**
+ * Iterates the cells of a measure that have a value, see Cube.getCells.
+ */
+public interface CellIterator {
+
+  /**
+   * Moves to the next cell, returns false if there is none.
+   */
+  boolean next();
+
+  int getPosition(int dimension);
+
+  double getValue();
+}
@@ -37,18 +37,60 @@ public interface Cube extends Serializable {
 
   Double get(String measure, int[] pos);
 
+  // primitive access, missing values are NaN
+
+  int getMeasureId(String measure);
+
+  double getDouble(int measure, int pos);
+
+  double getDouble(int measure, int pos1, int pos2);
+
+  double getDouble(int measure, int[] pos);
+
   String getString(String measure, int... pos);
 
+  // cells of the measure that have a value, in no particular order
+
+  CellIterator getCells(int measure);
+
+  // names of all numeric measures, in the order of their ids
+
+  String[] getMeasures();
+
+  String[] getStringMeasures();
+
   Double getMin(String... measures);
 
   Double getMax(String... measures);
 
+  MeasureStatistics getStatistics(String... measures);
+
+  // changes whenever values or samples change, so that views can tell when
+  // the statistics they cache are out of date
+
+  default long getModificationCount() {
+    return 0;
+  }
+
   // visibility
 
   void setVisible(int dimension, int sample, boolean visible);
 
   boolean isVisible(int dimension, int sample);
 
+  // positions of the visible samples in ascending order, must not be changed
+
+  default int[] getVisibleSamples(int dimension) {
+    final int[] result = new int[getVisibleSampleCount(dimension)];
+    int next = 0;
+    for (int n = 0; next < result.length; n++) {
+      if (isVisible(dimension, n)) {
+        result[next++] = n;
+      }
+    }
+    return result;
+  }
+
   // listeners
 
   void addListener(CubeListener listener);
@@ -5,4 +5,17 @@ import java.io.Serializable;
 
 public interface CubeListener extends Serializable {
 
+  default void onRowsAppended(Cube cube, int first, int count) {
+  }
+
+  default void onRowsEvicted(Cube cube, int count) {
+  }
+
+  // values of the measure have been set, or of any measure if it is null
+
+  default void onValuesChanged(Cube cube, String measure) {
+  }
+
+  default void onSamplesChanged(Cube cube, int dimension) {
+  }
 }
@@ -1,6 +1,7 @@
 package com.instantolap.charts;
 
 import com.instantolap.charts.impl.data.Theme;
+import com.instantolap.charts.impl.data.transform.TransformPipeline;
 import com.instantolap.charts.renderer.ChartColor;
 import com.instantolap.charts.renderer.ChartStroke;
 
@@ -17,6 +18,11 @@ public interface Data extends Serializable {
 
   void setCurrentCube(Cube cube);
 
+  // transformations of the main cube, or of the cube set as current one,
+  // calculated again when it changes
+
+  TransformPipeline getTransformPipeline();
+
   // display information
 
   void setColors(int range, ChartColor[] sampleColors);
@@ -27,6 +27,14 @@ public interface LineContent
 
   void setStepLine(boolean stairs);
 
+  /**
+   * Draws long series with about two points per pixel, keeping the minimum
+   * and maximum of each pixel column.
+   */
+  boolean isDownsampled();
+
+  void setDownsampled(boolean downsampled);
+
   void setFillColor(int start, int end, ChartColor colors);
 
   ChartColor getFillColor(int series);
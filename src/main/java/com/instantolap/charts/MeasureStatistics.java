@@ -0,0 +1,80 @@
+package com.instantolap.charts;
+
+import java.io.Serializable;
+
+
+@SuppressWarnings("serial")
+public class MeasureStatistics implements Serializable {
+
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+  private double sum;
+  private int count;
+
+  public MeasureStatistics() {
+  }
+
+  public MeasureStatistics(double min, double max, double sum, int count) {
+    if (count > 0) {
+      this.min = min;
+      this.max = max;
+      this.sum = sum;
+      this.count = count;
+    }
+  }
+
+  public void add(double v) {
+    if (Double.isNaN(v)) {
+      return;
+    }
+    min = Math.min(min, v);
+    max = Math.max(max, v);
+    sum += v;
+    count++;
+  }
+
+  public void add(MeasureStatistics statistics) {
+    if (statistics.count == 0) {
+      return;
+    }
+    min = Math.min(min, statistics.min);
+    max = Math.max(max, statistics.max);
+    sum += statistics.sum;
+    count += statistics.count;
+  }
+
+  /**
+   * Removes a value, returns false if it was an extreme and the statistics
+   * have to be recalculated.
+   */
+  public boolean remove(double v) {
+    if (Double.isNaN(v)) {
+      return true;
+    } else if (v <= min || v >= max) {
+      return false;
+    }
+    sum -= v;
+    count--;
+    return true;
+  }
+
+  public Double getMin() {
+    return (count > 0) ? min : null;
+  }
+
+  public Double getMax() {
+    return (count > 0) ? max : null;
+  }
+
+  public double getSum() {
+    return sum;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public Double getAverage() {
+    return (count > 0) ? sum / count : null;
+  }
+}
@@ -2,4 +2,20 @@ package com.instantolap.charts;
 
 public interface Transformation {
   Cube transform(Cube cube);
+
+  /**
+   * Returns the measures the result is calculated from, or null if it may
+   * depend on any measure.
+   */
+  default String[] getInputMeasures() {
+    return null;
+  }
+
+  /**
+   * Returns the dimensions the result is calculated from, or null if it may
+   * depend on any dimension.
+   */
+  default int[] getInputDimensions() {
+    return null;
+  }
 }
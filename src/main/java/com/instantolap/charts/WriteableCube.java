@@ -8,6 +8,13 @@ public interface WriteableCube extends Cube {
 
   void addSample(int axis, String sample, String id);
 
+  // bulk loading: declare all samples first, then hand over whole columns
+  // laid out as pos0 + size0 * (pos1 + size1 * (pos2 + ...))
+
+  void setSamples(int axis, String[] samples, String[] ids);
+
+  void setValues(String measure, double[] values);
+
   void set(String measure, Double v, int pos1);
 
   void set(String measure, Double v, int pos1, int pos2);
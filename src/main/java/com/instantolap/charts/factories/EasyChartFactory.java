@@ -205,8 +205,7 @@ public class EasyChartFactory {
   }
 
   private static void transformStacked(Data data, Theme theme) {
-    final Transformation transformation = new StackedTransform();
-    data.setCurrentCube(transformation.transform(data.getCurrentCube()));
+    data.getTransformPipeline().add(new StackedTransform());
   }
 
   private static Chart createLineChart(
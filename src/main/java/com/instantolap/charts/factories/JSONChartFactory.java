@@ -11,6 +11,8 @@ import com.instantolap.charts.impl.util.SymbolDrawer;
 import com.instantolap.charts.json.JSONArray;
 import com.instantolap.charts.json.JSONException;
 import com.instantolap.charts.json.JSONObject;
+import com.instantolap.charts.json.JSONPullParser;
+import com.instantolap.charts.json.JSONSource;
 import com.instantolap.charts.renderer.ChartColor;
 import com.instantolap.charts.renderer.ChartFont;
 import com.instantolap.charts.renderer.ChartStroke;
@@ -26,6 +28,39 @@ public class JSONChartFactory {
     return create(json, data, Theme.DEFAULT_THEME);
   }
 
+  public static Chart create(JSONSource source) throws JSONException {
+    return create(source, Theme.DEFAULT_THEME);
+  }
+
+  /**
+   * Parses the spec from a source of text. The data is read with
+   * JSONDataFactory.parseData, all other parts of the spec are read as
+   * JSONObject.
+   * <p>
+   * <b>Unlike create(JSONObject, Data), values beyond the declared
+   * dimensions of the data are dropped</b> instead of growing dimension 0.
+   * </p>
+   */
+  public static Chart create(JSONSource source, Theme theme) throws JSONException {
+    final JSONPullParser parser = new JSONPullParser(source);
+    if (parser.next() != JSONPullParser.START_OBJECT) {
+      throw parser.syntaxError("A JSONObject text must begin with '{'");
+    }
+
+    final JSONObject json = new JSONObject();
+    Data data = null;
+    while (parser.next() == JSONPullParser.NAME) {
+      final String key = parser.getString();
+      final int event = parser.next();
+      if ("data".equals(key) && event == JSONPullParser.START_OBJECT) {
+        data = JSONDataFactory.parseData(parser);
+      } else {
+        json.put(key, parser.getValue());
+      }
+    }
+    return create(json, data, theme);
+  }
+
   public static Chart create(JSONObject json, Data data, Theme theme) throws JSONException {
 
     // data
@@ -327,8 +362,7 @@ public class JSONChartFactory {
   }
 
   private static void transformStacked(Data data) {
-    final Transformation transformation = new StackedTransform();
-    data.setCurrentCube(transformation.transform(data.getCurrentCube()));
+    data.getTransformPipeline().add(new StackedTransform());
   }
 
   private static RoundChart createRoundChart(
@@ -847,6 +881,7 @@ public class JSONChartFactory {
     content.setInterpolated(json.optBoolean("interpolated", content.isInterpolated()));
     content.setStepLine(json.optBoolean("stepline", content.isStepLine()));
     content.setConnected(json.optBoolean("connected", content.isConnected()));
+    content.setDownsampled(json.optBoolean("downsample", content.isDownsampled()));
 
     final JSONArray fillColors = json.optJSONArray("fill");
     if (fillColors != null) {
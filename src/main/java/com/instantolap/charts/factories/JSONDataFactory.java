@@ -9,29 +9,83 @@ import com.instantolap.charts.impl.data.transform.*;
 import com.instantolap.charts.json.JSONArray;
 import com.instantolap.charts.json.JSONException;
 import com.instantolap.charts.json.JSONObject;
+import com.instantolap.charts.json.JSONPullParser;
+import com.instantolap.charts.json.JSONSource;
 
-import java.util.Iterator;
+import java.util.*;
 
 
 public class JSONDataFactory {
 
   public static Data parseData(JSONObject json) throws JSONException {
+    final Data data = new DataImpl();
+    parseCube(json, data.getMainCube());
+    addTransformations(json, data);
+    return data;
+  }
+
+  /**
+   * Parses the data without building a tree of its values. If the dimensions
+   * come before the values, which is the usual order, the values are read
+   * straight into arrays of the size of the cube.
+   * <p>
+   * <b>Unlike parseData(JSONObject), values beyond the declared dimensions
+   * are dropped.</b> The tree parser grows dimension 0 to fit the longest
+   * value array, this parser keeps the sizes of the dimensions.
+   * </p>
+   */
+  public static Data parseData(JSONSource source) throws JSONException {
+    final JSONPullParser parser = new JSONPullParser(source);
+    if (parser.next() != JSONPullParser.START_OBJECT) {
+      throw parser.syntaxError("A JSONObject text must begin with '{'");
+    }
+    return parseData(parser);
+  }
+
+  /**
+   * Parses the data object that has just been started on the parser. Like
+   * parseData(JSONSource), values beyond the declared dimensions are
+   * dropped.
+   */
+  public static Data parseData(JSONPullParser parser) throws JSONException {
     final Data data = new DataImpl();
     final WriteableCube cube = data.getMainCube();
 
+    // everything except dimensions and values is small
+    final JSONObject json = new JSONObject();
+    while (parser.next() == JSONPullParser.NAME) {
+      final String key = parser.getString();
+      final int event = parser.next();
+      if ("dimensions".equals(key) && event == JSONPullParser.START_ARRAY) {
+        parseDimensions(parser, cube);
+      } else if ("values".equals(key) && event == JSONPullParser.START_ARRAY
+        && cube.getDimensionCount() > 0)
+      {
+        new ValueReader(parser, cube).read();
+      } else {
+        json.put(key, parser.getValue());
+      }
+    }
+
+    parseCube(json, cube);
+    addTransformations(json, data);
+    return data;
+  }
+
+  private static void parseCube(JSONObject json, WriteableCube cube) throws JSONException {
+
     // read dimensions
     final JSONArray dimensions = json.optJSONArray("dimensions");
     if (dimensions != null) {
       for (int dim = 0; dim < dimensions.length(); dim++) {
 
-        // generate at least dimension with 0 samples
-        cube.setDimensionSize(dim, 0);
-
-        // add samples
+        // add all samples at once
         final JSONArray keys = dimensions.getJSONArray(dim);
-        for (int n = 0; n < keys.length(); n++) {
-          cube.addSample(dim, keys.getString(n));
+        final String[] samples = new String[keys.length()];
+        for (int n = 0; n < samples.length; n++) {
+          samples[n] = keys.getString(n);
         }
+        cube.setSamples(dim, samples, null);
       }
     }
 
@@ -42,9 +96,26 @@ public class JSONDataFactory {
       final int[] pos = new int[dimensionCount];
       parseValues(cube, dimensionCount - 1, pos, values);
     }
+  }
 
-    addTransformations(json, data);
-    return data;
+  private static void parseDimensions(JSONPullParser parser, WriteableCube cube)
+    throws JSONException
+  {
+    final List<String> samples = new ArrayList<>();
+    for (int dim = 0; parser.next() != JSONPullParser.END_ARRAY; dim++) {
+      if (parser.getEvent() != JSONPullParser.START_ARRAY) {
+        throw new JSONException("JSONArray[" + dim + "] is not a JSONArray.");
+      }
+
+      samples.clear();
+      for (int n = 0; parser.next() != JSONPullParser.END_ARRAY; n++) {
+        if (parser.getEvent() != JSONPullParser.STRING) {
+          throw new JSONException("JSONArray[" + n + "] not a string.");
+        }
+        samples.add(parser.getString());
+      }
+      cube.setSamples(dim, samples.toArray(new String[samples.size()]), null);
+    }
   }
 
   private static void parseValues(WriteableCube cube, int axis, int[] pos, JSONArray values)
@@ -86,16 +157,121 @@ public class JSONDataFactory {
     }
   }
 
+  /**
+   * Reads nested value arrays into one array per measure, laid out like the
+   * cube. The innermost arrays belong to dimension 0.
+   */
+  private static class ValueReader {
+    private final JSONPullParser parser;
+    private final WriteableCube cube;
+    private final int[] sizes;
+    private final int[] strides;
+    private final int size;
+    private final Map<String, double[]> measures = new LinkedHashMap<>();
+
+    private ValueReader(JSONPullParser parser, WriteableCube cube) {
+      this.parser = parser;
+      this.cube = cube;
+
+      final int dimensionCount = cube.getDimensionCount();
+      sizes = new int[dimensionCount];
+      strides = new int[dimensionCount];
+      int size = 1;
+      for (int d = 0; d < dimensionCount; d++) {
+        sizes[d] = cube.getSampleCount(d);
+        strides[d] = size;
+        size *= sizes[d];
+      }
+      this.size = size;
+    }
+
+    private void read() throws JSONException {
+      read(sizes.length - 1, 0);
+      for (final Map.Entry<String, double[]> e : measures.entrySet()) {
+        cube.setValues(e.getKey(), e.getValue());
+      }
+    }
+
+    /**
+     * Reads the array that has just been started. The offset is -1 for
+     * arrays outside of the cube.
+     */
+    private void read(int axis, int offset) throws JSONException {
+      if (axis < 0) {
+        throw new JSONException("Value depth does not match dimension count");
+      }
+      for (int n = 0; parser.next() != JSONPullParser.END_ARRAY; n++) {
+        final int ord = (offset < 0 || n >= sizes[axis]) ? -1 : offset + n * strides[axis];
+        switch (parser.getEvent()) {
+          case JSONPullParser.START_ARRAY:
+            read(axis - 1, ord);
+            break;
+          case JSONPullParser.NUMBER:
+            if (axis != 0) {
+              throw new JSONException("Value depth does not match dimension count");
+            }
+            if (ord >= 0) {
+              getValues(Cube.MEASURE_VALUE)[ord] = parser.getDouble();
+            }
+            break;
+          case JSONPullParser.START_OBJECT:
+            if (axis != 0) {
+              throw new JSONException("Value depth does not match dimension count");
+            }
+            readMeasures(ord);
+            break;
+          default:
+            parser.skipValue();
+            break;
+        }
+      }
+    }
+
+    private void readMeasures(int ord) throws JSONException {
+      while (parser.next() == JSONPullParser.NAME) {
+        final String measure = parser.getString();
+        final int event = parser.next();
+        final double[] values = getValues(measure);
+        if (event == JSONPullParser.NUMBER) {
+          if (ord >= 0) {
+            values[ord] = parser.getDouble();
+          }
+        } else if (event == JSONPullParser.STRING) {
+          try {
+            final double v = Double.parseDouble(parser.getString());
+            if (ord >= 0) {
+              values[ord] = v;
+            }
+          } catch (NumberFormatException e) {
+            throw new JSONException(
+              "JSONObject[" + JSONObject.quote(measure) + "] is not a number.");
+          }
+        } else if (event != JSONPullParser.NULL) {
+          throw new JSONException(
+            "JSONObject[" + JSONObject.quote(measure) + "] is not a number.");
+        }
+      }
+    }
+
+    private double[] getValues(String measure) {
+      double[] values = measures.get(measure);
+      if (values == null) {
+        values = new double[size];
+        Arrays.fill(values, Double.NaN);
+        measures.put(measure, values);
+      }
+      return values;
+    }
+  }
+
   public static void addTransformations(JSONObject json, Data data) throws JSONException {
-    Cube currentCube = data.getCurrentCube();
     final JSONArray transforms = json.optJSONArray("transform");
     if (transforms != null) {
       for (int n = 0; n < transforms.length(); n++) {
         final Transformation t = parseTransformation(transforms.getJSONObject(n));
-        currentCube = t.transform(currentCube);
+        data.getTransformPipeline().add(t);
       }
     }
-    data.setCurrentCube(currentCube);
   }
 
   private static Transformation parseTransformation(JSONObject json) throws JSONException {
@@ -114,6 +290,8 @@ public class JSONDataFactory {
       return parseReverseTransformation(json);
     } else if ("sort".equalsIgnoreCase(type)) {
       return parseSortTransformation(json);
+    } else if ("downsample".equalsIgnoreCase(type)) {
+      return parseDownsampleTransformation(json);
     } else {
       throw new JSONException("Unknown transformation '" + type + "'");
     }
@@ -141,7 +319,7 @@ public class JSONDataFactory {
     for (int n = 0; n < dimensions.length; n++) {
       dimensions[n] = dimensionsArray.getInt(n);
     }
-    return new SubcubeTransform(dimensions);
+    return new SubcubeTransform(dimensions, parseAggregation(json));
   }
 
   private static Transformation parseReverseTransformation(JSONObject json) throws JSONException {
@@ -153,6 +331,27 @@ public class JSONDataFactory {
     final int dimension = json.getInt("dimension");
     final boolean desc = json.optBoolean("desc", false);
     final int limit = json.optInt("limit", Integer.MAX_VALUE);
-    return new SortTransform(dimension, desc, limit);
+    return new SortTransform(dimension, desc, limit, parseAggregation(json));
+  }
+
+  private static int parseAggregation(JSONObject json) throws JSONException {
+    final String name = json.optString("aggregation", "sum");
+    final int aggregation = Aggregator.getFunction(name);
+    if (aggregation < 0) {
+      throw new JSONException("Unknown aggregation '" + name + "'");
+    }
+    return aggregation;
+  }
+
+  private static Transformation parseDownsampleTransformation(JSONObject json)
+    throws JSONException
+  {
+    final int count = json.getInt("count");
+    final String measure = json.optString("measure", Cube.MEASURE_VALUE);
+    final String method = json.optString("method", "lttb");
+    if (!"lttb".equalsIgnoreCase(method) && !"minmax".equalsIgnoreCase(method)) {
+      throw new JSONException("Unknown downsampling method '" + method + "'");
+    }
+    return new DownsampleTransform(count, measure, "minmax".equalsIgnoreCase(method));
   }
 }
@@ -2,6 +2,7 @@ package com.instantolap.charts.impl.axis;
 
 import com.instantolap.charts.CriticalArea;
 import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
 import com.instantolap.charts.TargetLine;
 import com.instantolap.charts.TimeAxis;
 import com.instantolap.charts.impl.data.SlicedCube;
@@ -52,10 +53,11 @@ public class TimeAxisImpl extends BasicScaleAxisImpl implements TimeAxis {
     }
 
     // find range
+    final MeasureStatistics statistics = cube.getStatistics(measures);
     if (userMin != null) {
       min = userMin;
     } else {
-      min = cube.getMin(measures);
+      min = statistics.getMin();
 
       if (includeTargets) {
         for (TargetLine target : getTargetLines()) {
@@ -74,7 +76,7 @@ public class TimeAxisImpl extends BasicScaleAxisImpl implements TimeAxis {
     if (userMax != null) {
       max = userMax;
     } else {
-      max = cube.getMax(measures);
+      max = statistics.getMax();
 
       if (includeTargets) {
         for (TargetLine target : getTargetLines()) {
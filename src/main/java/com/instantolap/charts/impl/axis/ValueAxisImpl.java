@@ -2,6 +2,7 @@ package com.instantolap.charts.impl.axis;
 
 import com.instantolap.charts.CriticalArea;
 import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
 import com.instantolap.charts.TargetLine;
 import com.instantolap.charts.ValueAxis;
 import com.instantolap.charts.impl.data.Theme;
@@ -63,10 +64,11 @@ public class ValueAxisImpl extends BasicScaleAxisImpl implements ValueAxis {
     }
 
     // find range
+    final MeasureStatistics statistics = cube.getStatistics(measures);
     if (userMin != null) {
       min = userMin;
     } else {
-      min = cube.getMin(measures);
+      min = statistics.getMin();
       if (min == null) {
         min = 0.0;
       } else if (useZeroAsBase && min > 0) {
@@ -77,7 +79,7 @@ public class ValueAxisImpl extends BasicScaleAxisImpl implements ValueAxis {
     if (userMax != null) {
       max = userMax;
     } else {
-      max = cube.getMax(measures);
+      max = statistics.getMax();
       if (max == null) {
         max = 0.0;
       } else if (max < 0) {
@@ -69,6 +69,8 @@ public class BarContentImpl extends BasicBarContentImpl implements SampleValueRe
 
     final int size0 = cube.getSampleCount(0);
     final int size1 = Math.max(cube.getSampleCount(1), 1);
+    final int[] visible0 = getVisibleSamples(cube, 0, size0);
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
     final int visibleSize1 = Math.max(cube.getVisibleSampleCount(1), 1);
 
     final double xShadowOffset = getShadowXOffset();
@@ -93,11 +95,13 @@ public class BarContentImpl extends BasicBarContentImpl implements SampleValueRe
     // init regression
     final SimpleRegression regression = initRegression();
 
+    final int measure = cube.getMeasureId(getMeasure());
+    final int lowerMeasure = cube.getMeasureId(getLowerMeasure());
+    final int minMeasure = (getMinMeasure() != null) ? cube.getMeasureId(getMinMeasure()) : -1;
+    final int maxMeasure = (getMaxMeasure() != null) ? cube.getMeasureId(getMaxMeasure()) : -1;
+
     for (int pass = 0; pass < 3; pass++) {
-      for (int c0 = 0; c0 < size0; c0++) {
-        if (!cube.isVisible(0, c0)) {
-          continue;
-        }
+      for (int c0 : visible0) {
         double bar = (double) c0 / (double) (size0 - 1);
         if (size0 <= 1) {
           bar = 0;
@@ -109,11 +113,7 @@ public class BarContentImpl extends BasicBarContentImpl implements SampleValueRe
         }
 
         double avgY = 0, avgCount = 0;
-        for (int c1 = 0; c1 < size1; c1++) {
-          if (!cube.isVisible(1, c1)) {
-            continue;
-          }
-
+        for (int c1 : visible1) {
           // colors
           ChartColor sampleColor =
             getSampleColor(progress, bar, anim, data, c1, c0, isMultiColor());
@@ -124,10 +124,10 @@ public class BarContentImpl extends BasicBarContentImpl implements SampleValueRe
           final ChartColor shadowColor = getCurrentShadow(anim, progress, bar, data, c1, c0);
 
           final String format = yAxis.getFormat();
-          Double lowerValue = cube.get(getLowerMeasure(), c0, c1);
-          final Double upperValue = cube.get(getMeasure(), c0, c1);
-          if (upperValue != null) {
-            if (lowerValue == null) {
+          double lowerValue = cube.getDouble(lowerMeasure, c0, c1);
+          final double upperValue = cube.getDouble(measure, c0, c1);
+          if (!Double.isNaN(upperValue)) {
+            if (Double.isNaN(lowerValue)) {
               lowerValue = 0.0;
             }
 
@@ -159,17 +159,17 @@ public class BarContentImpl extends BasicBarContentImpl implements SampleValueRe
 
             // get min / max
             Double yMin = null;
-            if (getMinMeasure() != null) {
-              final Double minValue = cube.get(getMinMeasure(), c0, c1);
-              if (minValue != null) {
+            if (minMeasure >= 0) {
+              final double minValue = cube.getDouble(minMeasure, c0, c1);
+              if (!Double.isNaN(minValue)) {
                 yMin = yAxis.getPosition(anim.getValue(progress, bar, minValue));
               }
             }
 
             Double yMax = null;
-            if (getMaxMeasure() != null) {
-              final Double maxValue = cube.get(getMaxMeasure(), c0, c1);
-              if (maxValue != null) {
+            if (maxMeasure >= 0) {
+              final double maxValue = cube.getDouble(maxMeasure, c0, c1);
+              if (!Double.isNaN(maxValue)) {
                 yMax = yAxis.getPosition(anim.getValue(progress, bar, maxValue));
               }
             }
@@ -178,8 +178,8 @@ public class BarContentImpl extends BasicBarContentImpl implements SampleValueRe
             boolean isLastValue = true;
             if (isStacked) {
               for (int n = c1 + 1; n < size1; n++) {
-                final Double o = cube.get(getMeasure(), c0, n);
-                if ((o != null) && (o * upperValue >= 0)) {
+                final double o = cube.getDouble(measure, c0, n);
+                if (o * upperValue >= 0) {
                   isLastValue = false;
                 }
               }
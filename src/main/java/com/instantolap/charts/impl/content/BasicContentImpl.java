@@ -6,6 +6,8 @@ import com.instantolap.charts.impl.animation.ContentAnimation;
 import com.instantolap.charts.impl.animation.ContentAnimationAdapter;
 import com.instantolap.charts.impl.util.ArrayHelper;
 
+import java.util.Arrays;
+
 
 public abstract class BasicContentImpl implements Content {
 
@@ -27,6 +29,26 @@ public abstract class BasicContentImpl implements Content {
     this.animation = animation;
   }
 
+  /**
+   * Returns the positions of the visible samples of a dimension with the
+   * given size. If the cube has another number of samples there, like for
+   * missing dimensions, every sample is checked on its own.
+   */
+  protected static int[] getVisibleSamples(Cube cube, int dimension, int size) {
+    if (dimension < cube.getDimensionCount() && cube.getSampleCount(dimension) == size) {
+      return cube.getVisibleSamples(dimension);
+    }
+
+    final int[] samples = new int[size];
+    int count = 0;
+    for (int n = 0; n < size; n++) {
+      if (cube.isVisible(dimension, n)) {
+        samples[count++] = n;
+      }
+    }
+    return Arrays.copyOf(samples, count);
+  }
+
   protected Cube getCube() {
     return cube;
   }
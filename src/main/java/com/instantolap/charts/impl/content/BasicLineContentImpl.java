@@ -16,6 +16,7 @@ public abstract class BasicLineContentImpl extends BasicSampleContentImpl implem
   private boolean isConnected = false;
   private boolean isInterpolated = false;
   private boolean isStepLine = false;
+  private boolean isDownsampled = false;
   private ChartColor[] fillColors = new ChartColor[0];
   private Integer[] fillStarts = new Integer[0];
   private String measure = Cube.MEASURE_VALUE;
@@ -88,6 +89,16 @@ public abstract class BasicLineContentImpl extends BasicSampleContentImpl implem
     return isConnected;
   }
 
+  @Override
+  public void setDownsampled(boolean downsampled) {
+    this.isDownsampled = downsampled;
+  }
+
+  @Override
+  public boolean isDownsampled() {
+    return isDownsampled;
+  }
+
   @Override
   public void setInterpolated(boolean interpolated) {
     this.isInterpolated = interpolated;
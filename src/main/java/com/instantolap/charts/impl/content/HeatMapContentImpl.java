@@ -1,5 +1,6 @@
 package com.instantolap.charts.impl.content;
 
+import com.instantolap.charts.CellIterator;
 import com.instantolap.charts.Cube;
 import com.instantolap.charts.Data;
 import com.instantolap.charts.SampleAxis;
@@ -13,6 +14,8 @@ import com.instantolap.charts.renderer.ChartException;
 import com.instantolap.charts.renderer.ChartFont;
 import com.instantolap.charts.renderer.Renderer;
 
+import java.util.Arrays;
+
 
 public class HeatMapContentImpl extends BasicHeatMapContentImpl implements SampleSampleRenderer {
 
@@ -49,6 +52,7 @@ public class HeatMapContentImpl extends BasicHeatMapContentImpl implements Sampl
 
     final int size0 = cube.getSampleCount(0);
     final int size1 = cube.getSampleCount(1);
+    final int[] visible0 = getVisibleSamples(cube, 0, size0);
 
     Double max = cube.getMax(Cube.MEASURE_VALUE);
     if (max == null) {
@@ -56,14 +60,24 @@ public class HeatMapContentImpl extends BasicHeatMapContentImpl implements Sampl
     }
 
     final ChartColor[][] cellColors = getCellColors();
+    final int measure = cube.getMeasureId(Cube.MEASURE_VALUE);
+
+    // only the cells that have a value are drawn, cells[rows[c0]] is the
+    // first one of sample c0
+    final int[] cells = getCells(cube, measure, size1);
+    final int[] rows = new int[size0 + 1];
+    for (int n = 0, c0 = 0; c0 <= size0; c0++) {
+      while (n < cells.length && cells[n] / size1 < c0) {
+        n++;
+      }
+      rows[c0] = n;
+    }
 
     for (int pass = 0; pass < 4; pass++) {
-      for (int c0 = 0; c0 < size0; c0++) {
-        if (!cube.isVisible(0, c0)) {
-          continue;
-        }
+      for (int c0 : visible0) {
         final double progress0 = (double) c0 / (double) (size0 - 1);
-        for (int c1 = 0; c1 < size1; c1++) {
+        for (int n = rows[c0]; n < rows[c0 + 1]; n++) {
+          final int c1 = cells[n] % size1;
           if (!cube.isVisible(1, c1)) {
             continue;
           }
@@ -76,8 +90,8 @@ public class HeatMapContentImpl extends BasicHeatMapContentImpl implements Sampl
           final double cx = x + xx + cellWidth / 2;
           final double cy = y + yy + cellHeight / 2;
 
-          final Double value = cube.get(Cube.MEASURE_VALUE, c0, c1);
-          if (value != null) {
+          final double value = cube.getDouble(measure, c0, c1);
+          if (!Double.isNaN(value)) {
             final double p = value / max;
 
             final ChartColor sampleColor =
@@ -195,6 +209,37 @@ public class HeatMapContentImpl extends BasicHeatMapContentImpl implements Sampl
     }
   }
 
+  /**
+   * Returns the cells of the first two dimensions that have a value, as
+   * c0 * size1 + c1, in the order of the samples of dimension 0.
+   */
+  private static int[] getCells(Cube cube, int measure, int size1) {
+    final int dimensionCount = cube.getDimensionCount();
+    if (dimensionCount < 2 || size1 == 0) {
+      return new int[0];
+    }
+
+    int[] cells = new int[16];
+    int count = 0;
+    final CellIterator i = cube.getCells(measure);
+    while (i.next()) {
+      boolean isFirst = true;
+      for (int d = 2; d < dimensionCount; d++) {
+        isFirst &= i.getPosition(d) == 0;
+      }
+      if (isFirst) {
+        if (count == cells.length) {
+          cells = Arrays.copyOf(cells, count * 2);
+        }
+        cells[count++] = i.getPosition(0) * size1 + i.getPosition(1);
+      }
+    }
+
+    cells = Arrays.copyOf(cells, count);
+    Arrays.sort(cells);
+    return cells;
+  }
+
   private ChartColor getTargetColor(Data data, int c1, double p) {
     final HeatColor[] colors = getHeatColors();
     if (colors == null) {
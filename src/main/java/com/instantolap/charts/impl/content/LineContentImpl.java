@@ -7,6 +7,7 @@ import com.instantolap.charts.ValueAxis;
 import com.instantolap.charts.impl.animation.ContentAnimation;
 import com.instantolap.charts.impl.animation.LeftToRightContentAnim;
 import com.instantolap.charts.impl.data.Theme;
+import com.instantolap.charts.impl.math.Downsampling;
 import com.instantolap.charts.impl.math.PolynomialSplineFunction;
 import com.instantolap.charts.impl.math.SimpleRegression;
 import com.instantolap.charts.impl.math.SplineInterpolator;
@@ -15,11 +16,14 @@ import com.instantolap.charts.impl.util.SymbolDrawer;
 import com.instantolap.charts.renderer.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
 public class LineContentImpl extends BasicLineContentImpl implements SampleValueRenderer {
 
+  private PathBuffer[] paths = new PathBuffer[0];
+
   public LineContentImpl(Theme theme) {
     super(theme);
 
@@ -64,6 +68,7 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
 
     final int size0 = cube.getSampleCount(0);
     final int size1 = (dimensions >= 2) ? cube.getSampleCount(1) : 1;
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
 
     final double xOffset = getShadowXOffset();
     final double yOffset = getShadowYOffset();
@@ -75,15 +80,36 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
       x += xAxis.getSampleWidth() / 2;
     }
 
-    final String yMeasure = getMeasure();
+    final int yMeasure = cube.getMeasureId(getMeasure());
+    final int lowerMeasure = cube.getMeasureId(Cube.MEASURE_LOWER);
     final String format = yAxis.getFormat();
 
     // init regression
     final SimpleRegression regression = initRegression();
 
+    // reduce long series to about two points per pixel
+    final double pixels = isRotated ? height : width;
+    final int[] rows;
+    final int[] lastRows;
+    if (isDownsampled() && !spline && (size0 > 2 * pixels)) {
+      rows = buildLevelOfDetail(cube, xAxis, yMeasure, size0, size1, isConnected);
+      lastRows = new int[size1];
+    } else {
+      rows = null;
+      lastRows = null;
+    }
+    final int rowCount = (rows != null) ? rows.length : size0;
+
+    // runs of connected samples are collected and drawn as one path
+    final PathBuffer[] paths = getPaths(size1);
+
     // draw lines
     for (int pass = 0; pass < 5; pass++) {
-      for (int c0 = 0; c0 < size0; c0++) {
+      if (lastRows != null) {
+        Arrays.fill(lastRows, -1);
+      }
+      for (int row = 0; row < rowCount; row++) {
+        final int c0 = (rows != null) ? rows[row] : row;
         if (!cube.isVisible(0, c0)) {
           continue;
         }
@@ -93,11 +119,7 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
 
         // centered?
         double avgY = 0, avgCount = 0;
-        for (int c1 = 0; c1 < size1; c1++) {
-          if (!cube.isVisible(1, c1)) {
-            continue;
-          }
-
+        for (int c1 : visible1) {
           final double xx = xAxis.getSamplePosition(cube, c0, c1);
           final int symbolWidth = data.getSymbolSize(c1);
           final ChartStroke stroke = data.getStroke(c1);
@@ -108,8 +130,8 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
           final ChartColor outlineColor = getOutlineColor(progress, bar, anim, data, c1, c0);
           final ChartColor shadowColor = getCurrentShadow(anim, progress, bar, data, c1, c0);
 
-          final Double maxValue = cube.get(yMeasure, c0, c1);
-          if (maxValue != null) {
+          final double maxValue = cube.getDouble(yMeasure, c0, c1);
+          if (!Double.isNaN(maxValue)) {
 
             // find lower and higher y
             final double yMax = yAxis.getPosition(anim.getValue(progress, bar, maxValue));
@@ -117,8 +139,8 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
             boolean isLastValue = true;
             if (isStacked) {
               for (int n = c1 + 1; n < size1; n++) {
-                final Double o = cube.get(yMeasure, c0, n);
-                if ((o != null) && (o * maxValue >= 0)) {
+                final double o = cube.getDouble(yMeasure, c0, n);
+                if (o * maxValue >= 0) {
                   isLastValue = false;
                 }
               }
@@ -134,11 +156,15 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
 
               // find last sample (don't change code, otherwise GWT compiler hangs)
               int prevSample = c0 - 1;
-              if (isConnected && !spline) {
+              if (lastRows != null) {
+                if (isConnected || !Double.isNaN(cube.getDouble(yMeasure, prevSample, c1))) {
+                  prevSample = lastRows[c1];
+                }
+              } else if (isConnected && !spline) {
                 prevSample = findLastIndexWithValue(cube, yMeasure, c0, c1);
               }
-              final Double prevMaxValue = cube.get(yMeasure, prevSample, c1);
-              if (prevMaxValue != null) {
+              final double prevMaxValue = cube.getDouble(yMeasure, prevSample, c1);
+              if (!Double.isNaN(prevMaxValue)) {
 
                 final double px = xAxis.getSamplePosition(cube, prevSample, c1);
                 final double pyMax = yAxis.getPosition(anim.getValue(progress, bar, prevMaxValue));
@@ -162,39 +188,34 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
                         );
                       } else {
                         // find previous sample
-                        Double minValue = null;
-                        Double prevMinValue = null;
+                        double minValue = Double.NaN;
+                        double prevMinValue = Double.NaN;
                         if (isStacked && (start == null)) {
-                          prevMinValue = cube.get(Cube.MEASURE_LOWER, prevSample, c1);
-                          minValue = cube.get(Cube.MEASURE_LOWER, c0, c1);
+                          prevMinValue = cube.getDouble(lowerMeasure, prevSample, c1);
+                          minValue = cube.getDouble(lowerMeasure, c0, c1);
                         } else if (start != null) {
-                          minValue = cube.get(getMeasure(), c0, start);
-                          prevMinValue = cube.get(getMeasure(), prevSample, start);
+                          minValue = cube.getDouble(yMeasure, c0, start);
+                          prevMinValue = cube.getDouble(yMeasure, prevSample, start);
                         }
-                        if (minValue == null) {
+                        if (Double.isNaN(minValue)) {
                           minValue = 0.0;
                         }
-                        if (prevMinValue == null) {
+                        if (Double.isNaN(prevMinValue)) {
                           prevMinValue = 0.0;
                         }
 
                         final double yMin = yAxis.getPosition(anim.getValue(progress, bar, minValue));
                         final double pyMin = yAxis.getPosition(anim.getValue(progress, bar, prevMinValue));
 
-                        final double[] xp;
-                        final double[] yp;
-                        if (stepLine) {
-                          xp = new double[]{px, xx, xx, px};
-                          yp = new double[]{yMax, yMax, yMin, yMin};
-                        } else {
-                          xp = new double[]{px, xx, xx, px};
-                          yp = new double[]{pyMax, yMax, yMin, pyMin};
+                        // extend the area of the current run
+                        final PathBuffer path = paths[c1];
+                        if (!path.continues(prevSample, areaColor, null)) {
+                          path.start(areaColor, null, null);
                         }
-
-                        if (isRotated) {
-                          r.fillPolygon(shift(yp, x), shift(xp, y));
+                        if (stepLine) {
+                          path.addArea(isRotated, px, xx, yMax, yMax, yMin, yMin, c0);
                         } else {
-                          r.fillPolygon(shift(xp, x), shift(yp, y));
+                          path.addArea(isRotated, px, xx, pyMax, yMax, pyMin, yMin, c0);
                         }
                       }
                     }
@@ -202,7 +223,13 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
 
                   case 1:
                     // draw shadow
-                    if (stroke.getWidth() > 0) {
+                    if (stroke.getWidth() > 0 && !spline) {
+                      final PathBuffer path = paths[c1];
+                      if (!path.continues(prevSample, shadowColor, outlineColor)) {
+                        path.start(shadowColor, outlineColor, stroke);
+                      }
+                      path.addLine(isRotated, stepLine, px, pyMax, xx, yMax, c0);
+                    } else if (stroke.getWidth() > 0) {
                       r.setStroke(stroke);
                       if (shadowColor != null) {
                         r.setColor(shadowColor);
@@ -234,7 +261,13 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
 
                   case 2:
                     // draw line
-                    if (stroke.getWidth() > 0) {
+                    if (stroke.getWidth() > 0 && !spline) {
+                      final PathBuffer path = paths[c1];
+                      if (!path.continues(prevSample, sampleColor, null)) {
+                        path.start(sampleColor, null, stroke);
+                      }
+                      path.addLine(isRotated, stepLine, px, pyMax, xx, yMax, c0);
+                    } else if (stroke.getWidth() > 0) {
                       r.setColor(sampleColor);
                       r.setStroke(stroke);
                       drawLine(r,
@@ -250,6 +283,9 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
                 }
               }
             }
+            if (lastRows != null) {
+              lastRows[c1] = c0;
+            }
 
             switch (pass) {
               case 3:
@@ -347,6 +383,11 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
           }
         }
       }
+
+      // draw the collected runs
+      for (int c1 = 0; c1 < size1; c1++) {
+        drawPath(r, paths[c1], pass, x, y, xOffset, yOffset);
+      }
     }
 
     // draw regression line?
@@ -361,6 +402,8 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
     if (spline) {
       final int size0 = cube.getSampleCount(0);
       final int size1 = Math.max(cube.getSampleCount(1), 1);
+      final int measure = cube.getMeasureId(getMeasure());
+      final int lowerMeasure = cube.getMeasureId(Cube.MEASURE_LOWER);
       cubics = new PolynomialSplineFunction[size1][2];
       for (int c1 = 0; c1 < size1; c1++) {
         final List<Number> minX = new ArrayList<>();
@@ -369,19 +412,19 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
         final List<Number> maxV = new ArrayList<>();
         for (int c0 = 0; c0 < size0; c0++) {
           final double progress0 = (double) c0 / (size0 - 1);
-          final Double max = cube.get(getMeasure(), c0, c1);
-          if (max != null) {
+          final double max = cube.getDouble(measure, c0, c1);
+          if (!Double.isNaN(max)) {
             maxX.add(c0);
             double dy = yAxis.getPosition(anim.getValue(progress, progress0, max));
             maxV.add(dy);
 
-            Double min = null;
+            double min = Double.NaN;
             if (isStacked) {
-              min = cube.get(Cube.MEASURE_LOWER, c0, c1);
+              min = cube.getDouble(lowerMeasure, c0, c1);
             } else if (c1 > 0) {
-              min = cube.get(getMeasure(), c0, c1 - 1);
+              min = cube.getDouble(measure, c0, c1 - 1);
             }
-            if (min == null) {
+            if (Double.isNaN(min)) {
               min = 0.0;
             }
 
@@ -401,10 +444,114 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
     return cubics;
   }
 
-  private int findLastIndexWithValue(Cube cube, String yMeasure, int c0, int c1) {
+  private PathBuffer[] getPaths(int size1) {
+    if (paths.length < size1) {
+      final PathBuffer[] newPaths = Arrays.copyOf(paths, size1);
+      for (int n = paths.length; n < size1; n++) {
+        newPaths[n] = new PathBuffer();
+      }
+      paths = newPaths;
+    }
+    for (int n = 0; n < size1; n++) {
+      paths[n].clear();
+    }
+    return paths;
+  }
+
+  private void drawPath(Renderer r, PathBuffer path, int pass, double x, double y,
+                        double xOffset, double yOffset) {
+    for (int run = 0; run < path.runCount; run++) {
+      if (path.getSize(run) < 2) {
+        continue;
+      }
+
+      final ChartColor color = path.colors[run];
+      final ChartColor color2 = path.colors2[run];
+      switch (pass) {
+        case 0:
+          r.setColor(color);
+          r.fillPolygon(path.getPolygon(run, path.xs, path.lowerXs, x),
+            path.getPolygon(run, path.ys, path.lowerYs, y));
+          break;
+
+        case 1:
+          r.setStroke(path.stroke);
+          if (color != null) {
+            r.setColor(color);
+            r.drawPolyLine(path.getLine(run, path.xs, x + xOffset),
+              path.getLine(run, path.ys, y + yOffset));
+          }
+          if (color2 != null) {
+            r.setColor(color2);
+            r.setStroke(path.stroke.incStroke(2));
+            r.drawPolyLine(path.getLine(run, path.xs, x), path.getLine(run, path.ys, y));
+          }
+          break;
+
+        case 2:
+          r.setColor(color);
+          r.setStroke(path.stroke);
+          r.drawPolyLine(path.getLine(run, path.xs, x), path.getLine(run, path.ys, y));
+          r.resetStroke();
+          break;
+      }
+    }
+    path.clear();
+  }
+
+  private int[] buildLevelOfDetail(Cube cube, PositionAxis xAxis, int yMeasure,
+                                   int size0, int size1, boolean isConnected) {
+    final boolean[] keep = new boolean[size0];
+    final double[] xs = new double[size0];
+    final double[] ys = new double[size0];
+    final int[] samples = new int[size0];
+    final int[] kept = new int[size0];
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
+
+    // keep min and max of each pixel column, split at gaps
+    for (int c1 : visible1) {
+      int points = 0, start = 0;
+      for (int c0 = 0; c0 <= size0; c0++) {
+        final double value = (c0 < size0) ? cube.getDouble(yMeasure, c0, c1) : Double.NaN;
+        if (!Double.isNaN(value)) {
+          final double position = xAxis.getSamplePosition(cube, c0, c1);
+          if (Double.isNaN(position)) {
+            keep[c0] = true;
+          } else {
+            xs[points] = position;
+            ys[points] = value;
+            samples[points++] = c0;
+          }
+        } else if ((c0 == size0 || !isConnected) && (points > start)) {
+          final int count = Downsampling.minMax(xs, ys, start, points, 1, kept, 0);
+          for (int n = 0; n < count; n++) {
+            keep[samples[kept[n]]] = true;
+          }
+          start = points;
+        }
+      }
+    }
+
+    int rowCount = 0;
+    for (boolean k : keep) {
+      if (k) {
+        rowCount++;
+      }
+    }
+    final int[] rows = new int[rowCount];
+    int next = 0;
+    for (int c0 = 0; c0 < size0; c0++) {
+      if (keep[c0]) {
+        rows[next++] = c0;
+      }
+    }
+    return rows;
+  }
+
+  private int findLastIndexWithValue(Cube cube, int yMeasure, int c0, int c1) {
     int prevSample;
     for (prevSample = c0 - 1; prevSample >= 0; prevSample--) {
-      if (cube.get(yMeasure, prevSample, c1) != null) {
+      if (!Double.isNaN(cube.getDouble(yMeasure, prevSample, c1))) {
         break;
       }
     }
@@ -502,4 +649,149 @@ public class LineContentImpl extends BasicLineContentImpl implements SampleValue
     axis.addMeasures(getMeasure());
     axis.addMeasures(getLowerMeasure());
   }
+
+
+  /**
+   * Reusable point buffer for the runs of one series. Lines use the upper
+   * points only, areas go forward along the upper and back along the lower
+   * points of a run.
+   */
+  private static class PathBuffer {
+    private double[] xs = new double[32];
+    private double[] ys = new double[32];
+    private double[] lowerXs = new double[32];
+    private double[] lowerYs = new double[32];
+    private int count;
+    private int lowerCount;
+    private int[] starts = new int[4];
+    private int[] lowerStarts = new int[4];
+    private ChartColor[] colors = new ChartColor[4];
+    private ChartColor[] colors2 = new ChartColor[4];
+    private int runCount;
+    private int lastSample = -1;
+    private ChartStroke stroke;
+
+    public void clear() {
+      count = 0;
+      lowerCount = 0;
+      runCount = 0;
+      lastSample = -1;
+    }
+
+    public boolean continues(int prevSample, ChartColor color, ChartColor color2) {
+      return (runCount > 0)
+        && (lastSample == prevSample)
+        && equals(colors[runCount - 1], color)
+        && equals(colors2[runCount - 1], color2);
+    }
+
+    public void start(ChartColor color, ChartColor color2, ChartStroke stroke) {
+      if (runCount > 0 && getSize(runCount - 1) < 2) {
+        runCount--;
+        count = starts[runCount];
+        lowerCount = lowerStarts[runCount];
+      }
+      if (runCount == starts.length) {
+        starts = Arrays.copyOf(starts, runCount * 2);
+        lowerStarts = Arrays.copyOf(lowerStarts, runCount * 2);
+        colors = Arrays.copyOf(colors, runCount * 2);
+        colors2 = Arrays.copyOf(colors2, runCount * 2);
+      }
+      starts[runCount] = count;
+      lowerStarts[runCount] = lowerCount;
+      colors[runCount] = color;
+      colors2[runCount] = color2;
+      runCount++;
+      this.stroke = stroke;
+    }
+
+    public int getSize(int run) {
+      final int end = (run + 1 < runCount) ? starts[run + 1] : count;
+      return end - starts[run];
+    }
+
+    public void addLine(boolean isRotated, boolean stepLine,
+                        double px, double py, double x, double y, int sample) {
+      add(isRotated, px, py);
+      if (stepLine) {
+        add(isRotated, x, py);
+      }
+      add(isRotated, x, y);
+      lastSample = sample;
+    }
+
+    public void addArea(boolean isRotated, double px, double x,
+                        double pyMax, double yMax, double pyMin, double yMin, int sample) {
+      add(isRotated, px, pyMax);
+      add(isRotated, x, yMax);
+      addLower(isRotated, px, pyMin);
+      addLower(isRotated, x, yMin);
+      lastSample = sample;
+    }
+
+    private void add(boolean isRotated, double x, double y) {
+      if (isRotated) {
+        final double t = x;
+        x = y;
+        y = t;
+      }
+      if (count > starts[runCount - 1] && xs[count - 1] == x && ys[count - 1] == y) {
+        return;
+      }
+      if (count == xs.length) {
+        xs = Arrays.copyOf(xs, count * 2);
+        ys = Arrays.copyOf(ys, count * 2);
+      }
+      xs[count] = x;
+      ys[count] = y;
+      count++;
+    }
+
+    private void addLower(boolean isRotated, double x, double y) {
+      if (isRotated) {
+        final double t = x;
+        x = y;
+        y = t;
+      }
+      if (lowerCount > lowerStarts[runCount - 1]
+        && lowerXs[lowerCount - 1] == x && lowerYs[lowerCount - 1] == y) {
+        return;
+      }
+      if (lowerCount == lowerXs.length) {
+        lowerXs = Arrays.copyOf(lowerXs, lowerCount * 2);
+        lowerYs = Arrays.copyOf(lowerYs, lowerCount * 2);
+      }
+      lowerXs[lowerCount] = x;
+      lowerYs[lowerCount] = y;
+      lowerCount++;
+    }
+
+    public double[] getLine(int run, double[] a, double offset) {
+      final int start = starts[run];
+      final double[] result = new double[getSize(run)];
+      for (int n = 0; n < result.length; n++) {
+        result[n] = a[start + n] + offset;
+      }
+      return result;
+    }
+
+    public double[] getPolygon(int run, double[] upper, double[] lower, double offset) {
+      final int start = starts[run];
+      final int size = getSize(run);
+      final int lowerStart = lowerStarts[run];
+      final int lowerEnd = (run + 1 < runCount) ? lowerStarts[run + 1] : lowerCount;
+      final double[] result = new double[size + lowerEnd - lowerStart];
+      for (int n = 0; n < size; n++) {
+        result[n] = upper[start + n] + offset;
+      }
+      for (int n = lowerEnd - 1, pos = size; n >= lowerStart; n--, pos++) {
+        result[pos] = lower[n] + offset;
+      }
+      return result;
+    }
+
+    private static boolean equals(ChartColor c1, ChartColor c2) {
+      return (c1 == null) ? (c2 == null) : c1.equals(c2);
+    }
+  }
 }
@@ -67,6 +67,8 @@ public class MeterContentImpl extends BasicMeterContentImpl implements SampleVal
 
     final int size0 = cube.getSampleCount(0);
     final int size1 = (dimensions >= 2) ? cube.getSampleCount(1) : 1;
+    final int[] visible0 = getVisibleSamples(cube, 0, size0);
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
 
     final double pinSize = (radius * getPinSize());
     double labelY = cy + radius / 2;
@@ -74,16 +76,8 @@ public class MeterContentImpl extends BasicMeterContentImpl implements SampleVal
     // draw slices
     ChartColor latestColor = null;
     for (int pass = 0; pass < 2; pass++) {
-      for (int c1 = 0; c1 < size1; c1++) {
-        if (!cube.isVisible(1, c1)) {
-          continue;
-        }
-
-        for (int c0 = 0; c0 < size0; c0++) {
-          if (!cube.isVisible(0, c0)) {
-            continue;
-          }
-
+      for (int c1 : visible1) {
+        for (int c0 : visible0) {
           Double v = cube.get(getMeasure(), c0, c1);
           if (v != null) {
             final double bar = (double) c0 / (size0 - 1);
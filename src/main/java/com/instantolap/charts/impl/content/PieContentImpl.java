@@ -84,14 +84,12 @@ public class PieContentImpl extends BasicPieContentImpl implements SampleValueRe
 
     final int size0 = cube.getSampleCount(0);
     final int size1 = (dimensions >= 2) ? cube.getSampleCount(1) : 1;
+    final int[] visible0 = getVisibleSamples(cube, 0, size0);
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
 
     // draw slices
     for (int pass = 0; pass < 3; pass++) {
-      for (int c1 = 0; c1 < size1; c1++) {
-        if (!cube.isVisible(1, c1)) {
-          continue;
-        }
-
+      for (int c1 : visible1) {
         // inner/outer bounds
         final double seriesSize = (double) size / size1;
         final double base = seriesSize * c1;
@@ -100,11 +98,7 @@ public class PieContentImpl extends BasicPieContentImpl implements SampleValueRe
 
         // calc total
         double total = 0;
-        for (int c0 = 0; c0 < size0; c0++) {
-          if (!cube.isVisible(0, c0)) {
-            continue;
-          }
-
+        for (int c0 : visible0) {
           final Double v = cube.get(getMeasure(), c0, c1);
           if ((v != null) && (v >= 0)) {
             total += v;
@@ -112,11 +106,7 @@ public class PieContentImpl extends BasicPieContentImpl implements SampleValueRe
         }
 
         double rad = startAngle;
-        for (int c0 = 0; c0 < size0; c0++) {
-          if (!cube.isVisible(0, c0)) {
-            continue;
-          }
-
+        for (int c0 : visible0) {
           final double bar = (double) c0 / (size0 - 1);
 
           // colors
@@ -68,6 +68,8 @@ public class RoundBarContentImpl extends BasicBarContentImpl
 
     final int size0 = cube.getSampleCount(0);
     final int size1 = (dimensions >= 2) ? cube.getSampleCount(1) : 1;
+    final int[] visible0 = getVisibleSamples(cube, 0, size0);
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
     final int visibleSize1 = (dimensions >= 2) ? cube.getVisibleSampleCount(1) : 1;
 
     final double xOffset = getShadowXOffset();
@@ -77,10 +79,7 @@ public class RoundBarContentImpl extends BasicBarContentImpl
 
     // draw bars
     for (int pass = 0; pass < 3; pass++) {
-      for (int c0 = 0; c0 < size0; c0++) {
-        if (!cube.isVisible(0, c0)) {
-          continue;
-        }
+      for (int c0 : visible0) {
         final double progress0 = (double) c0 / (double) (size0 - 1);
 
         double rad1 = getRad(startAngle, endAngle, c0, size0, progress);
@@ -94,11 +93,7 @@ public class RoundBarContentImpl extends BasicBarContentImpl
         final double padding = (step * (1 - barWidth)) / 2.0;
         rad1 += padding;
 
-        for (int c1 = 0; c1 < size1; c1++) {
-          if (!cube.isVisible(1, c1)) {
-            continue;
-          }
-
+        for (int c1 : visible1) {
           // colors
           final ChartColor sampleColor =
             getSampleColor(progress, progress0, anim, data, c1, c0, isMultiColor() && (size1 == 1));
@@ -55,6 +55,8 @@ public class RoundLineContentImpl extends BasicLineContentImpl implements Sample
     // draw lines
     final int size0 = cube.getSampleCount(0);
     final int size1 = (dimensions >= 2) ? cube.getSampleCount(1) : 1;
+    final int[] visible0 = getVisibleSamples(cube, 0, size0);
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
 
     final double xOffset = getShadowXOffset();
     final double yOffset = getShadowYOffset();
@@ -63,16 +65,10 @@ public class RoundLineContentImpl extends BasicLineContentImpl implements Sample
     final RoundLabelDrawer labelDrawer = new RoundLabelDrawer(r, cx, cy, 10);
 
     for (int pass = 0; pass < 5; pass++) {
-      for (int c0 = 0; c0 < size0; c0++) {
-        if (!cube.isVisible(0, c0)) {
-          continue;
-        }
+      for (int c0 : visible0) {
         final double progress0 = (double) c0 / (size0 - 1);
 
-        for (int c1 = 0; c1 < size1; c1++) {
-          if (!cube.isVisible(1, c1)) {
-            continue;
-          }
+        for (int c1 : visible1) {
           final int symbolSize = data.getSymbolSize(c1);
 
           // colors
@@ -50,6 +50,8 @@ public class ScatterContentImpl extends BasicScatterContentImpl implements Value
 
     final int size0 = (dimensions >= 1) ? cube.getSampleCount(0) : 1;
     final int size1 = (dimensions >= 2) ? cube.getSampleCount(1) : 1;
+    final int[] visible0 = getVisibleSamples(cube, 0, size0);
+    final int[] visible1 = getVisibleSamples(cube, 1, size1);
 
     final double xOffset = getShadowXOffset();
     final double yOffset = getShadowYOffset();
@@ -80,23 +82,21 @@ public class ScatterContentImpl extends BasicScatterContentImpl implements Value
 
     final double minFade = getMinFade();
 
+    final int timeMeasure = cube.getMeasureId(Cube.MEASURE_TIME);
+    final int xMeasure = cube.getMeasureId(getXMeasure());
+    final int yMeasure = cube.getMeasureId(getYMeasure());
+    final int zMeasure = cube.getMeasureId(getMeasure());
+
     // draw symbols
     for (int pass = 0; pass < 2; pass++) {
-      for (int c0 = 0; c0 < size0; c0++) {
-        if (!cube.isVisible(0, c0)) {
-          continue;
-        }
+      for (int c0 : visible0) {
         final double progress0 = (double) c0 / (double) (size0 - 1);
 
-        for (int c1 = 0; c1 < size1; c1++) {
-          if (!cube.isVisible(1, c1)) {
-            continue;
-          }
-
-          Double timestamp = cube.get(Cube.MEASURE_TIME, c0, c1);
+        for (int c1 : visible1) {
+          final double timestamp = cube.getDouble(timeMeasure, c0, c1);
           boolean showOutline = true;
           boolean addToRegression = true;
-          if (timestamp != null && currentTime != null) {
+          if (!Double.isNaN(timestamp) && currentTime != null) {
             if (timestamp > currentTime) {
               continue;
             } else if (timestamp < currentTime - visibleTime) {
@@ -124,20 +124,20 @@ public class ScatterContentImpl extends BasicScatterContentImpl implements Value
           final ChartColor outlineColor = showOutline ? getOutlineColor(progress, progress0, anim, data, c1, c0) : null;
           final ChartColor shadowColor = showOutline ? getCurrentShadow(anim, progress, progress0, data, c1, c0) : null;
 
-          final Double vx = cube.get(getXMeasure(), c0, c1);
-          final Double vy = cube.get(getYMeasure(), c0, c1);
+          final double vx = cube.getDouble(xMeasure, c0, c1);
+          final double vy = cube.getDouble(yMeasure, c0, c1);
 
           double symbolWidth = data.getSymbolSize(c1);
           if (isBubble()) {
-            final Double vz = cube.get(getMeasure(), c0, c1);
-            if ((vz == null) || (vz <= 0)) {
+            final double vz = cube.getDouble(zMeasure, c0, c1);
+            if (Double.isNaN(vz) || (vz <= 0)) {
               continue;
             }
             symbolWidth *= (vz / maxVZ);
             symbolWidth = Math.max(symbolWidth, 1d);
           }
 
-          if (vx != null && vy != null) {
+          if (!Double.isNaN(vx) && !Double.isNaN(vy)) {
 
             final double xx = xAxis.getPosition(vx);
             final double yy = yAxis.getPosition(vy);
@@ -213,18 +213,13 @@ public class ScatterContentImpl extends BasicScatterContentImpl implements Value
     if (isBubble()) {
       final int size0 = cube.getSampleCount(0);
       final int size1 = Math.max(cube.getSampleCount(1), 1);
-      for (int c0 = 0; c0 < size0; c0++) {
-        if (!cube.isVisible(0, c0)) {
-          continue;
-        }
-
-        for (int c1 = 0; c1 < size1; c1++) {
-          if (!cube.isVisible(1, c1)) {
-            continue;
-          }
-
-          final Double vz = cube.get(getMeasure(), c0, c1);
-          if (vz == null) {
+      final int[] visible0 = getVisibleSamples(cube, 0, size0);
+      final int[] visible1 = getVisibleSamples(cube, 1, size1);
+      final int measure = cube.getMeasureId(getMeasure());
+      for (int c0 : visible0) {
+        for (int c1 : visible1) {
+          final double vz = cube.getDouble(measure, c0, c1);
+          if (Double.isNaN(vz)) {
             continue;
           }
 
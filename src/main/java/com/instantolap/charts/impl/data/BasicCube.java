@@ -1,16 +1,23 @@
 package com.instantolap.charts.impl.data;
 
+import com.instantolap.charts.CellIterator;
 import com.instantolap.charts.Cube;
 import com.instantolap.charts.CubeListener;
+import com.instantolap.charts.MeasureStatistics;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 @SuppressWarnings("serial")
 public abstract class BasicCube implements Cube {
 
   private List<CubeListener> listeners = new ArrayList<>();
+  private transient Map<String, MeasureStatistics> statistics;
+  private transient long statisticsModificationCount;
+  private long modificationCount;
 
   @Override
   public int getVisibleSampleCount(int dimension) {
@@ -24,6 +31,177 @@ public abstract class BasicCube implements Cube {
     return result;
   }
 
+  @Override
+  public Double getMin(String... measures) {
+    return getStatistics(measures).getMin();
+  }
+
+  @Override
+  public Double getMax(String... measures) {
+    return getStatistics(measures).getMax();
+  }
+
+  @Override
+  public MeasureStatistics getStatistics(String... measures) {
+    final MeasureStatistics result = new MeasureStatistics();
+    for (String measure : measures) {
+      result.add(getMeasureStatistics(measure));
+    }
+    return result;
+  }
+
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    return getCachedStatistics(measure);
+  }
+
+  /**
+   * Returns the statistics of the measure over the cells in
+   * isInStatistics. They are cached until invalidateStatistics is called
+   * or the modification count changes.
+   */
+  protected MeasureStatistics getCachedStatistics(String measure) {
+    final long modificationCount = getModificationCount();
+    if (statistics == null || statisticsModificationCount != modificationCount) {
+      statistics = new HashMap<>();
+      statisticsModificationCount = modificationCount;
+    }
+
+    MeasureStatistics result = statistics.get(measure);
+    if (result == null) {
+      result = calcStatistics(getMeasureId(measure));
+      statistics.put(measure, result);
+    }
+    return result;
+  }
+
+  protected void invalidateStatistics() {
+    statistics = null;
+  }
+
+  /**
+   * Returns the samples of a dimension if the cube keeps them in a
+   * Dimension, so that they can be shared without a copy, or null.
+   */
+  public Dimension getDimension(int dimension) {
+    return null;
+  }
+
+  @Override
+  public long getModificationCount() {
+    return modificationCount;
+  }
+
+  /**
+   * Has to be called by cubes whenever their values or samples change.
+   */
+  protected void modified() {
+    modificationCount++;
+  }
+
+  protected boolean isInStatistics(int dimension, int sample) {
+    return true;
+  }
+
+  private MeasureStatistics calcStatistics(int measure) {
+    final MeasureStatistics result = new MeasureStatistics();
+    final int dimensionCount = getDimensionCount();
+    if (measure < 0 || dimensionCount == 0) {
+      return result;
+    }
+
+    // collect samples per dimension
+    final int[][] samples = new int[dimensionCount][];
+    for (int d = 0; d < dimensionCount; d++) {
+      final int sampleCount = getSampleCount(d);
+      int count = 0;
+      samples[d] = new int[sampleCount];
+      for (int s = 0; s < sampleCount; s++) {
+        if (isInStatistics(d, s)) {
+          samples[d][count++] = s;
+        }
+      }
+      if (count == 0) {
+        return result;
+      }
+      if (count < sampleCount) {
+        final int[] used = new int[count];
+        System.arraycopy(samples[d], 0, used, 0, count);
+        samples[d] = used;
+      }
+    }
+
+    // iterate all combinations
+    final int[] index = new int[dimensionCount];
+    final int[] pos = new int[dimensionCount];
+    for (int d = 0; d < dimensionCount; d++) {
+      pos[d] = samples[d][0];
+    }
+    while (true) {
+      result.add(getDouble(measure, pos));
+
+      int d = 0;
+      while (d < dimensionCount && ++index[d] == samples[d].length) {
+        index[d] = 0;
+        pos[d] = samples[d][0];
+        d++;
+      }
+      if (d == dimensionCount) {
+        return result;
+      }
+      pos[d] = samples[d][index[d]];
+    }
+  }
+
+  /**
+   * Visits all cells in the order of the dense layout and skips the ones
+   * without a value. Cubes that know which cells are set should override
+   * this.
+   */
+  @Override
+  public CellIterator getCells(final int measure) {
+    final int dimensionCount = getDimensionCount();
+    final int[] sizes = new int[dimensionCount];
+    long size = (measure < 0) ? 0 : 1;
+    for (int d = 0; d < dimensionCount; d++) {
+      sizes[d] = getSampleCount(d);
+      size *= sizes[d];
+    }
+
+    final long cellCount = size;
+    return new CellIterator() {
+      private final int[] pos = new int[dimensionCount];
+      private long ord = -1;
+      private double value;
+
+      @Override
+      public boolean next() {
+        while (++ord < cellCount) {
+          if (ord > 0) {
+            for (int d = 0; d < dimensionCount && ++pos[d] == sizes[d]; d++) {
+              pos[d] = 0;
+            }
+          }
+          value = getDouble(measure, pos);
+          if (!Double.isNaN(value)) {
+            return true;
+          }
+        }
+        ord = cellCount;
+        return false;
+      }
+
+      @Override
+      public int getPosition(int dimension) {
+        return pos[dimension];
+      }
+
+      @Override
+      public double getValue() {
+        return value;
+      }
+    };
+  }
+
   @Override
   public void addListener(CubeListener listener) {
     listeners.add(listener);
@@ -34,4 +212,32 @@ public abstract class BasicCube implements Cube {
     listeners.remove(listener);
   }
 
+  protected void fireRowsAppended(int first, int count) {
+    for (CubeListener listener : listeners) {
+      listener.onRowsAppended(this, first, count);
+    }
+  }
+
+  protected void fireRowsEvicted(int count) {
+    for (CubeListener listener : listeners) {
+      listener.onRowsEvicted(this, count);
+    }
+  }
+
+  /**
+   * Tells the listeners that values of the measure have changed, or of any
+   * measure if it is null.
+   */
+  protected void fireValuesChanged(String measure) {
+    for (CubeListener listener : listeners) {
+      listener.onValuesChanged(this, measure);
+    }
+  }
+
+  protected void fireSamplesChanged(int dimension) {
+    for (CubeListener listener : listeners) {
+      listener.onSamplesChanged(this, dimension);
+    }
+  }
+
 }
@@ -1,38 +1,104 @@
 package com.instantolap.charts.impl.data;
 
+import com.instantolap.charts.CellIterator;
+import com.instantolap.charts.MeasureStatistics;
 import com.instantolap.charts.WriteableCube;
-import com.instantolap.charts.impl.util.ArrayHelper;
 
+import java.io.Closeable;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 
+/**
+ * Cube that keeps all values in memory, laid out as pos0 + size0 * (pos1 +
+ * size1 * ...). Every measure is stored either in a dense array or, if most
+ * of its cells are empty, in a sparse map of the cells that have a value.
+ * <p>
+ * By default, measures of large cubes start sparse and become dense once
+ * more than an eighth of their cells have been set. Arrays passed to
+ * setValues are kept sparse if at most a sixteenth of them are set.
+ * </p>
+ * <p>
+ * Cubes with a MeasureStorage keep their values and string measures in its
+ * columns, like the direct buffers of jvm.OffHeapStorage. Their memory is
+ * given back by close, after which the cube has no more measures.
+ * </p>
+ * <p>
+ * Single measures can be given a smaller encoding with setEncoding, which
+ * takes precedence over the storage of the cube. Their values are decoded by
+ * every get.
+ * </p>
+ */
 @SuppressWarnings("serial")
-public class CubeImpl extends BasicCube implements WriteableCube {
-
-  private Map<String, double[]> measureValues = new HashMap<>();
+public class CubeImpl extends BasicCube implements WriteableCube, Closeable {
+
+  public static final int STORAGE_AUTO = 0;
+  public static final int STORAGE_DENSE = 1;
+  public static final int STORAGE_SPARSE = 2;
+
+  public static final int ENCODING_DOUBLE = 0;
+  public static final int ENCODING_FLOAT = 1;
+  public static final int ENCODING_SCALED = 2;
+  public static final int ENCODING_DELTA = 3;
+
+  private static final int SPARSE_SIZE = 1 << 16;
+  private static final int DENSE_RATIO = 8;
+  private static final int SPARSE_RATIO = 16;
+
+  private final int storage;
+  private final MeasureStorage measureStorage;
+  private Map<String, Integer> measureIds = new HashMap<>();
+  private double[][] measureValues = new double[0][];
+  private SparseValues[] sparseValues = new SparseValues[0];
+  private MeasureStorage.Values[] storedValues = new MeasureStorage.Values[0];
+  private EncodedValues[] encodedValues = new EncodedValues[0];
+  private Map<String, Integer> encodings = new HashMap<>();
+  private Map<String, Double> scales = new HashMap<>();
+  private MeasureStatistics[] statistics = new MeasureStatistics[0];
   private Map<String, String[]> stringMeasureValues = new HashMap<>();
-  private double[] values;
+  private Map<String, MeasureStorage.Strings> storedStrings = new HashMap<>();
   private int[] indices;
-  private String[][][] dimensions = new String[0][][];
-  private boolean[][] visibilities;
+  private Dimension[] dimensions = new Dimension[0];
+  private final Visibility visibility = new Visibility();
   private int size;
   private boolean isInitialized;
 
   public CubeImpl() {
+    this(STORAGE_AUTO);
+  }
+
+  /**
+   * Creates a cube that stores its measures in the given way, one of the
+   * STORAGE constants.
+   */
+  public CubeImpl(int storage) {
+    this.storage = storage;
+    this.measureStorage = null;
+  }
+
+  /**
+   * Creates a cube that keeps its measures in columns of the given storage.
+   * The cube should be closed to release them.
+   */
+  public CubeImpl(MeasureStorage measureStorage) {
+    this.storage = STORAGE_DENSE;
+    this.measureStorage = measureStorage;
   }
 
   @Override
   public void setDimensionSize(int axis, int size) {
-    String[][] samples = getDimension(axis);
+    final Dimension samples = getDimension(axis);
     if (samples == null) {
-      samples = new String[size][2];
-      setDimension(axis, samples);
-    } else if (samples.length < size) {
-      final String[][] newSamples = new String[size][2];
-      System.arraycopy(samples, 0, newSamples, 0, samples.length);
-      setDimension(axis, newSamples);
+      putDimension(axis, Dimension.ofSize(size));
+      fireSamplesChanged(axis);
+    } else if (samples.size() < size) {
+      Dimension grown = samples;
+      while (grown.size() < size) {
+        grown = grown.add(null, null);
+      }
+      putDimension(axis, grown);
+      fireSamplesChanged(axis);
     }
   }
 
@@ -43,101 +109,251 @@ public class CubeImpl extends BasicCube implements WriteableCube {
 
   @Override
   public void addSample(int axis, String sample, String id) {
+    // the new sample adds a gap of cells after every interval
+    int gap = 1;
     int interval = 1;
     if (isInitialized) {
-      for (int n = 0; n <= axis; n++) {
-        interval *= getSampleCount(n);
+      for (int n = 0; n < axis; n++) {
+        gap *= getSampleCount(n);
       }
+      interval = gap * getSampleCount(axis);
     }
 
-    String[][] samples = getDimension(axis);
+    final Dimension samples = getDimension(axis);
     if (samples == null) {
-      samples = new String[][]{{sample, id}};
+      putDimension(axis, new Dimension(new String[]{sample}, new String[]{id}));
     } else {
-      samples = ArrayHelper.add(samples, new String[]{sample, id});
+      putDimension(axis, samples.add(sample, id));
     }
-    setDimension(axis, samples);
 
     // reorganize?
     if (isInitialized) {
       final int newSize = calcSize();
 
-      values = reorganize(values, newSize, interval);
-      for (Map.Entry<String, double[]> entry : measureValues.entrySet()) {
-        values = entry.getValue();
-        values = reorganize(values, newSize, interval);
-        measureValues.put(entry.getKey(), values);
+      for (int m = 0; m < measureValues.length; m++) {
+        if (measureValues[m] != null) {
+          measureValues[m] = reorganize(measureValues[m], newSize, interval, gap);
+        } else if (encodedValues[m] != null) {
+          encodedValues[m] = encodedValues[m].reorganize(newSize, interval, gap);
+        } else if (sparseValues[m] != null) {
+          sparseValues[m] = sparseValues[m].reorganize(interval, gap);
+        } else {
+          storedValues[m] = storedValues[m].reorganize(newSize, interval, gap);
+        }
+      }
+      for (Map.Entry<String, String[]> e : stringMeasureValues.entrySet()) {
+        e.setValue(reorganize(e.getValue(), newSize, interval, gap));
+      }
+      for (Map.Entry<String, MeasureStorage.Strings> e : storedStrings.entrySet()) {
+        e.setValue(e.getValue().reorganize(newSize, interval, gap));
       }
 
       size = newSize;
       buildIndices();
     }
+    fireSamplesChanged(axis);
+  }
+
+  @Override
+  public void setSamples(int axis, String[] samples, String[] ids) {
+    setDimension(axis, new Dimension(samples, ids));
+  }
+
+  /**
+   * Sets the samples of an axis. The dimension is not copied, so cubes with
+   * the same samples can share it.
+   */
+  public void setDimension(int axis, Dimension dimension) {
+    if (isInitialized && dimension.size() != getSampleCount(axis)) {
+      throw new IllegalStateException("Samples must be set before any values");
+    }
+    putDimension(axis, dimension);
+    fireSamplesChanged(axis);
+  }
+
+  @Override
+  public Dimension getDimension(int axis) {
+    if (dimensions.length > axis) {
+      return dimensions[axis];
+    }
+    return null;
+  }
+
+  @Override
+  public void setValues(String measure, double[] values) {
+    init();
+
+    if (values.length != size) {
+      throw new IllegalArgumentException(
+        "Measure '" + measure + "' has " + values.length + " values, cube size is " + size);
+    }
+
+    final Integer encoding = encodings.get(measure);
+    if (encoding != null) {
+      final EncodedValues encoded = EncodedValues.of(encoding, scales.get(measure), values);
+      setMeasure(measure, null, null, null, encoded);
+      fireValuesChanged(measure);
+      return;
+    } else if (measureStorage != null) {
+      setMeasure(measure, null, null, measureStorage.createValues(values), null);
+      fireValuesChanged(measure);
+      return;
+    }
+
+    // mostly empty arrays are not kept
+    SparseValues sparse = null;
+    if (storage == STORAGE_SPARSE || (storage == STORAGE_AUTO && size >= SPARSE_SIZE)) {
+      int count = 0;
+      for (double v : values) {
+        if (!Double.isNaN(v)) {
+          count++;
+        }
+      }
+      if (storage == STORAGE_SPARSE || count * SPARSE_RATIO <= size) {
+        sparse = SparseValues.of(values, count);
+      }
+    }
+    final double[] dense = (sparse == null) ? values : null;
+    setMeasure(measure, dense, sparse, null, null);
+    fireValuesChanged(measure);
+  }
+
+  /**
+   * Stores the measure in one of the ENCODING constants instead of the
+   * storage of the cube. Float values have about 7 significant digits.
+   * Scaled and delta encoded values are multiplied by the scale and rounded
+   * to integers, which must fit into an int for the scaled encoding. The
+   * delta encoding suits columns that grow in small steps, like times.
+   * Values that are already set are converted.
+   */
+  public void setEncoding(String measure, int encoding, double scale) {
+    if (encoding < ENCODING_DOUBLE || encoding > ENCODING_DELTA) {
+      throw new IllegalArgumentException("Unknown encoding: " + encoding);
+    } else if (!(scale > 0) || Double.isInfinite(scale)) {
+      throw new IllegalArgumentException("Scale must be positive: " + scale);
+    }
+
+    if (encoding == ENCODING_DOUBLE) {
+      encodings.remove(measure);
+      scales.remove(measure);
+    } else {
+      encodings.put(measure, encoding);
+      scales.put(measure, scale);
+    }
+
+    final Integer id = isInitialized ? measureIds.get(measure) : null;
+    if (id != null) {
+      final double[] values = new double[size];
+      for (int n = 0; n < size; n++) {
+        values[n] = getValue(id, n);
+      }
+      setValues(measure, values);
+    }
+  }
+
+  public void setEncoding(String measure, int encoding) {
+    setEncoding(measure, encoding, 1);
   }
 
   @Override
   public void set(String measure, Double v, int pos1) {
-    final double[] values = getDoubleMeasure(measure, true);
+    final int id = getOrCreateMeasure(measure);
     final Integer ord = getOrdinal(pos1);
     if (ord != null) {
-      if (v == null) {
-        values[ord] = Double.NaN;
-      } else {
-        values[ord] = v;
-      }
+      set(id, ord, v);
+      fireValuesChanged(measure);
     }
   }
 
   @Override
   public void set(String measure, Double v, int pos1, int pos2) {
-    final double[] values = getDoubleMeasure(measure, true);
+    final int id = getOrCreateMeasure(measure);
     final Integer ord = getOrdinal(pos1, pos2);
     if (ord != null) {
-      if (v == null) {
-        values[ord] = Double.NaN;
-      } else {
-        values[ord] = v;
-      }
+      set(id, ord, v);
+      fireValuesChanged(measure);
     }
   }
 
   @Override
   public void set(String measure, Double v, int[] pos) {
-    final double[] values = getDoubleMeasure(measure, true);
+    final int id = getOrCreateMeasure(measure);
     final Integer ord = getOrdinal(pos);
     if (ord != null) {
-      if (v == null) {
-        values[ord] = Double.NaN;
+      set(id, ord, v);
+      fireValuesChanged(measure);
+    }
+  }
+
+  private void set(int id, int ord, Double v) {
+    final double[] values = measureValues[id];
+    final double newValue = (v == null) ? Double.NaN : v;
+    final double oldValue;
+    if (values != null) {
+      oldValue = values[ord];
+      values[ord] = newValue;
+    } else if (encodedValues[id] != null) {
+      final EncodedValues encoded = encodedValues[id];
+      oldValue = encoded.get(ord);
+      encoded.set(ord, newValue);
+    } else if (storedValues[id] != null) {
+      final MeasureStorage.Values stored = storedValues[id];
+      oldValue = stored.get(ord);
+      stored.set(ord, newValue);
+    } else {
+      final SparseValues sparse = sparseValues[id];
+      oldValue = sparse.get(ord);
+      sparse.set(ord, newValue);
+      if (storage == STORAGE_AUTO && sparse.size() * DENSE_RATIO > size) {
+        measureValues[id] = sparse.toDense(size);
+        sparseValues[id] = null;
+      }
+    }
+
+    // keep statistics up to date
+    final MeasureStatistics s = statistics[id];
+    if (s != null) {
+      if (s.remove(oldValue)) {
+        s.add(newValue);
       } else {
-        values[ord] = v;
+        statistics[id] = null;
       }
     }
+    modified();
   }
 
   @Override
   public void set(String measure, String v, int... pos) {
+    if (measureStorage != null) {
+      final MeasureStorage.Strings values = getStoredStrings(measure, true);
+      final Integer ord = getOrdinal(pos);
+      if (ord != null) {
+        values.set(ord, v);
+        modified();
+        fireValuesChanged(measure);
+      }
+      return;
+    }
+
     final String[] values = getStringMeasure(measure, true);
     final Integer ord = getOrdinal(pos);
     if (ord != null) {
       values[ord] = v;
+      modified();
+      fireValuesChanged(measure);
     }
   }
 
-  private String[][] getDimension(int axis) {
-    if (dimensions.length > axis) {
-      return dimensions[axis];
-    }
-    return null;
-  }
-
-  private void setDimension(int axis, String[][] samples) {
+  private void putDimension(int axis, Dimension samples) {
     if (axis < dimensions.length) {
       dimensions[axis] = samples;
     } else {
-      final String[][][] newDimensions = new String[axis + 1][][];
+      final Dimension[] newDimensions = new Dimension[axis + 1];
       System.arraycopy(dimensions, 0, newDimensions, 0, dimensions.length);
       newDimensions[axis] = samples;
       dimensions = newDimensions;
     }
+    modified();
   }
 
   private void buildIndices() {
@@ -150,14 +366,19 @@ public class CubeImpl extends BasicCube implements WriteableCube {
     }
   }
 
-  private double[] reorganize(double[] values, int newSize, int interval) {
+  private double[] reorganize(double[] values, int newSize, int interval, int gap) {
     final double[] newValues = new double[newSize];
-    int target = 0;
+    Arrays.fill(newValues, Double.NaN);
     for (int n = 0; n < size; n++) {
-      newValues[target++] = values[n];
-      if (n % interval == interval - 1) {
-        newValues[target++] = Double.NaN;
-      }
+      newValues[n + (n / interval) * gap] = values[n];
+    }
+    return newValues;
+  }
+
+  private String[] reorganize(String[] values, int newSize, int interval, int gap) {
+    final String[] newValues = new String[newSize];
+    for (int n = 0; n < size; n++) {
+      newValues[n + (n / interval) * gap] = values[n];
     }
     return newValues;
   }
@@ -169,91 +390,183 @@ public class CubeImpl extends BasicCube implements WriteableCube {
 
   @Override
   public int getSampleCount(int axis) {
-    final String[][] samples = getDimension(axis);
+    final Dimension samples = getDimension(axis);
     if (samples == null) {
       return 0;
     }
-    return samples.length;
+    return samples.size();
   }
 
   @Override
   public String getSample(int axis, int pos) {
-    final String[][] samples = getDimension(axis);
+    final Dimension samples = getDimension(axis);
     if (samples == null) {
       return null;
     }
-    return samples[pos][0];
+    return samples.getLabel(pos);
   }
 
   @Override
   public String getSampleID(int axis, int pos) {
-    final String[][] samples = getDimension(axis);
+    final Dimension samples = getDimension(axis);
     if (samples == null) {
       return null;
     }
-    return samples[pos][1];
+    return samples.getID(pos);
   }
 
   @Override
   public Double get(String measure, int pos1) {
-    final double[] values = getDoubleMeasure(measure, false);
-    if (values == null) {
-      return null;
-    } else if (dimensions.length == 0) {
-      return null;
-    } else if (pos1 < 0 || pos1 >= dimensions[0].length) {
-      return null;
-    }
-    final double v = values[pos1];
-    if (Double.isNaN(v)) {
-      return null;
-    }
-    return v;
+    return box(getDouble(getMeasureId(measure), pos1));
   }
 
   @Override
   public Double get(String measure, int pos1, int pos2) {
-    if (dimensions.length <= 1) {
-      return get(measure, pos1);
+    return box(getDouble(getMeasureId(measure), pos1, pos2));
+  }
+
+  @Override
+  public Double get(String measure, int[] pos) {
+    return box(getDouble(getMeasureId(measure), pos));
+  }
+
+  @Override
+  public int getMeasureId(String measure) {
+    init();
+
+    final Integer id = measureIds.get(measure);
+    if (id == null) {
+      return -1;
     }
+    return id;
+  }
 
-    final double[] values = getDoubleMeasure(measure, false);
-    if (values == null) {
-      return null;
-    } else if (dimensions.length < 2) {
-      return null;
-    } else if (pos1 < 0 || pos1 >= dimensions[0].length) {
-      return null;
-    } else if (pos2 < 0 || pos2 >= dimensions[1].length) {
-      return null;
+  @Override
+  public double getDouble(int measure, int pos1) {
+    if (measure < 0) {
+      return Double.NaN;
+    } else if (dimensions.length == 0) {
+      return Double.NaN;
+    } else if (pos1 < 0 || pos1 >= dimensions[0].size()) {
+      return Double.NaN;
     }
+    return getValue(measure, pos1);
+  }
 
-    final double v = values[pos1 + indices[1] * pos2];
-    if (Double.isNaN(v)) {
-      return null;
+  @Override
+  public double getDouble(int measure, int pos1, int pos2) {
+    if (dimensions.length <= 1) {
+      return getDouble(measure, pos1);
+    } else if (measure < 0) {
+      return Double.NaN;
+    } else if (pos1 < 0 || pos1 >= dimensions[0].size()) {
+      return Double.NaN;
+    } else if (pos2 < 0 || pos2 >= dimensions[1].size()) {
+      return Double.NaN;
     }
-    return v;
+    return getValue(measure, pos1 + indices[1] * pos2);
   }
 
   @Override
-  public Double get(String measure, int[] pos) {
-    final double[] values = getDoubleMeasure(measure, false);
-    if (values == null) {
-      return null;
+  public double getDouble(int measure, int[] pos) {
+    if (measure < 0) {
+      return Double.NaN;
     }
     final Integer ord = getOrdinal(pos);
     if (ord == null) {
-      return null;
+      return Double.NaN;
     }
-    final double v = values[ord];
-    if (Double.isNaN(v)) {
-      return null;
+    return getValue(measure, ord);
+  }
+
+  private double getValue(int measure, int ord) {
+    final double[] values = measureValues[measure];
+    if (values != null) {
+      return values[ord];
+    } else if (encodedValues[measure] != null) {
+      return encodedValues[measure].get(ord);
+    } else if (storedValues[measure] != null) {
+      return storedValues[measure].get(ord);
     }
-    return v;
+    return sparseValues[measure].get(ord);
+  }
+
+  @Override
+  public CellIterator getCells(int measure) {
+    init();
+    if (measure < 0 || measure >= measureValues.length) {
+      return super.getCells(measure);
+    }
+
+    final double[] values = measureValues[measure];
+    final SparseValues sparse = sparseValues[measure];
+    final MeasureStorage.Values stored = storedValues[measure];
+    final EncodedValues encoded = encodedValues[measure];
+    return new CellIterator() {
+      private int index = -1;
+      private int ord;
+      private double value;
+
+      @Override
+      public boolean next() {
+        if (values != null) {
+          while (++index < values.length) {
+            if (!Double.isNaN(values[index])) {
+              ord = index;
+              value = values[index];
+              return true;
+            }
+          }
+        } else if (encoded != null) {
+          while (++index < encoded.size()) {
+            final double v = encoded.get(index);
+            if (!Double.isNaN(v)) {
+              ord = index;
+              value = v;
+              return true;
+            }
+          }
+        } else if (stored != null) {
+          while (++index < stored.size()) {
+            final double v = stored.get(index);
+            if (!Double.isNaN(v)) {
+              ord = index;
+              value = v;
+              return true;
+            }
+          }
+        } else {
+          while (++index < sparse.getSlotCount()) {
+            if (sparse.getOrdinal(index) >= 0) {
+              ord = sparse.getOrdinal(index);
+              value = sparse.getValue(index);
+              return true;
+            }
+          }
+        }
+        return false;
+      }
+
+      @Override
+      public int getPosition(int dimension) {
+        return (ord / indices[dimension]) % dimensions[dimension].size();
+      }
+
+      @Override
+      public double getValue() {
+        return value;
+      }
+    };
   }
 
   @Override
   public String getString(String measure, int... pos) {
+    if (measureStorage != null) {
+      final MeasureStorage.Strings values = getStoredStrings(measure, false);
+      final Integer ord = (values != null) ? getOrdinal(pos) : null;
+      return (ord != null) ? values.get(ord) : null;
+    }
+
     final String[] values = getStringMeasure(measure, false);
     if (values == null) {
       return null;
@@ -266,71 +579,128 @@ public class CubeImpl extends BasicCube implements WriteableCube {
   }
 
   @Override
-  public Double getMin(String... measures) {
-    Double min = null;
-    for (String measure : measures) {
-      final double[] values = getDoubleMeasure(measure, false);
-      if (values != null) {
-        for (double v : values) {
-          if (!Double.isNaN(v)) {
-            if (min == null) {
-              min = v;
-            } else {
-              min = Math.min(min, v);
-            }
-          }
-        }
-      }
+  public String[] getMeasures() {
+    init();
+
+    final String[] measures = new String[measureValues.length];
+    for (Map.Entry<String, Integer> e : measureIds.entrySet()) {
+      measures[e.getValue()] = e.getKey();
     }
-    return min;
+    return measures;
   }
 
   @Override
-  public Double getMax(String... measures) {
-    Double max = null;
-    for (String measure : measures) {
-      final double[] values = getDoubleMeasure(measure, false);
-      if (values != null) {
-        for (double v : values) {
-          if (!Double.isNaN(v)) {
-            if (max == null) {
-              max = v;
-            } else {
-              max = Math.max(max, v);
-            }
+  public String[] getStringMeasures() {
+    if (measureStorage != null) {
+      return storedStrings.keySet().toArray(new String[0]);
+    }
+    return stringMeasureValues.keySet().toArray(new String[0]);
+  }
+
+  @Override
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    final int id = getMeasureId(measure);
+    if (id < 0) {
+      return new MeasureStatistics();
+    }
+
+    MeasureStatistics result = statistics[id];
+    if (result == null) {
+      result = new MeasureStatistics();
+      if (measureValues[id] != null) {
+        for (double v : measureValues[id]) {
+          result.add(v);
+        }
+      } else if (encodedValues[id] != null) {
+        final EncodedValues encoded = encodedValues[id];
+        for (int n = 0; n < encoded.size(); n++) {
+          result.add(encoded.get(n));
+        }
+      } else if (storedValues[id] != null) {
+        final MeasureStorage.Values stored = storedValues[id];
+        for (int n = 0; n < stored.size(); n++) {
+          result.add(stored.get(n));
+        }
+      } else {
+        final SparseValues sparse = sparseValues[id];
+        for (int slot = 0; slot < sparse.getSlotCount(); slot++) {
+          if (sparse.getOrdinal(slot) >= 0) {
+            result.add(sparse.getValue(slot));
           }
         }
       }
+      statistics[id] = result;
     }
-    return max;
+    return result;
   }
 
   @Override
   public void setVisible(int dimension, int sample, boolean visible) {
-    if (visibilities == null) {
-      visibilities = new boolean[dimensions.length][];
-    }
-    boolean[] dimensionVisibilities = visibilities[dimension];
-    if (dimensionVisibilities == null) {
-      dimensionVisibilities = new boolean[getSampleCount(dimension)];
-      for (int n = 0; n < dimensionVisibilities.length; n++) {
-        dimensionVisibilities[n] = true;
-      }
-      visibilities[dimension] = dimensionVisibilities;
-    }
-    dimensionVisibilities[sample] = visible;
+    visibility.setVisible(dimension, sample, visible);
   }
 
   @Override
   public boolean isVisible(int dimension, int sample) {
-    if (visibilities == null) {
-      return true;
+    return visibility.isVisible(dimension, sample);
+  }
+
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    return visibility.getVisibleSampleCount(dimension, getSampleCount(dimension));
+  }
+
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    return visibility.getVisibleSamples(dimension, getSampleCount(dimension));
+  }
+
+  /**
+   * Returns the values of the measure, laid out like in setValues, or null
+   * if there is no such measure or it is not stored in a dense array. The array is not
+   * copied and must not be changed.
+   */
+  public double[] getValues(int measure) {
+    init();
+    if (measure < 0 || measure >= measureValues.length) {
+      return null;
     }
-    final boolean[] dimensionVisibilities = visibilities[dimension];
-    if (dimensionVisibilities == null) {
-      return true;
+    return measureValues[measure];
+  }
+
+  /**
+   * Returns true if the measure is stored as a map of the cells that have a
+   * value, instead of a dense array.
+   */
+  public boolean isSparse(int measure) {
+    init();
+    return measure >= 0 && measure < measureValues.length && sparseValues[measure] != null;
+  }
+
+  /**
+   * Releases the columns of all measures in the MeasureStorage. The cube has
+   * no measures afterwards.
+   */
+  @Override
+  public void close() {
+    for (MeasureStorage.Values values : storedValues) {
+      if (values != null) {
+        values.release();
+      }
     }
-    return dimensionVisibilities[sample];
+    for (MeasureStorage.Strings values : storedStrings.values()) {
+      values.release();
+    }
+
+    measureIds.clear();
+    measureValues = new double[0][];
+    sparseValues = new SparseValues[0];
+    storedValues = new MeasureStorage.Values[0];
+    encodedValues = new EncodedValues[0];
+    statistics = new MeasureStatistics[0];
+    stringMeasureValues.clear();
+    storedStrings.clear();
+    modified();
+    fireValuesChanged(null);
   }
 
   public int getAxisCount() {
@@ -348,8 +718,63 @@ public class CubeImpl extends BasicCube implements WriteableCube {
     buildIndices();
 
     // basic values
-    values = new double[size];
-    Arrays.fill(values, Double.NaN);
+    addMeasure(MEASURE_VALUE);
+  }
+
+  /**
+   * Adds an empty measure, which is sparse if most of its cells are likely
+   * to stay empty.
+   */
+  private void addMeasure(String measure) {
+    final Integer encoding = encodings.get(measure);
+    if (encoding != null) {
+      final EncodedValues encoded = EncodedValues.create(encoding, scales.get(measure), size);
+      setMeasure(measure, null, null, null, encoded);
+    } else if (measureStorage != null) {
+      setMeasure(measure, null, null, measureStorage.createValues(size), null);
+    } else if (storage == STORAGE_SPARSE || (storage == STORAGE_AUTO && size >= SPARSE_SIZE)) {
+      setMeasure(measure, null, new SparseValues(), null, null);
+    } else {
+      final double[] values = new double[size];
+      Arrays.fill(values, Double.NaN);
+      setMeasure(measure, values, null, null, null);
+    }
+  }
+
+  /**
+   * Sets the storage of a measure, exactly one of which is not null, and
+   * adds the measure if it does not exist yet.
+   */
+  private void setMeasure(
+    String measure, double[] values, SparseValues sparse, MeasureStorage.Values stored,
+    EncodedValues encoded)
+  {
+    Integer id = measureIds.get(measure);
+    if (id == null) {
+      id = measureValues.length;
+      measureValues = Arrays.copyOf(measureValues, id + 1);
+      sparseValues = Arrays.copyOf(sparseValues, id + 1);
+      storedValues = Arrays.copyOf(storedValues, id + 1);
+      encodedValues = Arrays.copyOf(encodedValues, id + 1);
+      statistics = Arrays.copyOf(statistics, id + 1);
+      measureIds.put(measure, id);
+    } else if (storedValues[id] != null) {
+      storedValues[id].release();
+    }
+
+    measureValues[id] = values;
+    sparseValues[id] = sparse;
+    storedValues[id] = stored;
+    encodedValues[id] = encoded;
+    statistics[id] = null;
+    modified();
+  }
+
+  private static Double box(double v) {
+    if (Double.isNaN(v)) {
+      return null;
+    }
+    return v;
   }
 
   private int calcSize() {
@@ -361,7 +786,7 @@ public class CubeImpl extends BasicCube implements WriteableCube {
   }
 
   private Integer getOrdinal(int pos) {
-    if (pos >= dimensions[0].length) {
+    if (pos >= dimensions[0].size()) {
       return null;
     }
 
@@ -371,9 +796,9 @@ public class CubeImpl extends BasicCube implements WriteableCube {
   private Integer getOrdinal(int pos1, int pos2) {
     if (indices.length < 2) {
       return getOrdinal(pos1);
-    } else if (pos1 >= dimensions[0].length) {
+    } else if (pos1 >= dimensions[0].size()) {
       return null;
-    } else if (pos2 >= dimensions[1].length) {
+    } else if (pos2 >= dimensions[1].size()) {
       return null;
     }
 
@@ -384,7 +809,7 @@ public class CubeImpl extends BasicCube implements WriteableCube {
     int ord = 0;
     final int len = Math.min(pos.length, indices.length);
     for (int n = 0; n < len; n++) {
-      if (pos[n] < 0 || pos[n] >= dimensions[n].length) {
+      if (pos[n] < 0 || pos[n] >= dimensions[n].size()) {
         return null;
       }
       ord += indices[n] * pos[n];
@@ -392,34 +817,41 @@ public class CubeImpl extends BasicCube implements WriteableCube {
     return ord;
   }
 
-  private double[] getDoubleMeasure(String measure, boolean create) {
+  private int getOrCreateMeasure(String measure) {
     init();
 
-    if (MEASURE_VALUE.equals(measure)) {
-      return values;
+    final Integer id = measureIds.get(measure);
+    if (id != null) {
+      return id;
     }
 
-    double[] values = measureValues.get(measure);
+    addMeasure(measure);
+    return measureValues.length - 1;
+  }
+
+  private String[] getStringMeasure(String measure, boolean create) {
+    init();
+
+    String[] values = stringMeasureValues.get(measure);
     if (values != null || !create) {
       return values;
     }
 
-    values = new double[size];
-    Arrays.fill(values, Double.NaN);
-    measureValues.put(measure, values);
+    values = new String[size];
+    stringMeasureValues.put(measure, values);
     return values;
   }
 
-  private String[] getStringMeasure(String measure, boolean create) {
+  private MeasureStorage.Strings getStoredStrings(String measure, boolean create) {
     init();
 
-    String[] values = stringMeasureValues.get(measure);
+    MeasureStorage.Strings values = storedStrings.get(measure);
     if (values != null || !create) {
       return values;
     }
 
-    values = new String[size];
-    stringMeasureValues.put(measure, values);
+    values = measureStorage.createStrings(size);
+    storedStrings.put(measure, values);
     return values;
   }
 }
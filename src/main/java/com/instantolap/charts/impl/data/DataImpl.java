@@ -3,6 +3,7 @@ package com.instantolap.charts.impl.data;
 import com.instantolap.charts.Cube;
 import com.instantolap.charts.Data;
 import com.instantolap.charts.WriteableCube;
+import com.instantolap.charts.impl.data.transform.TransformPipeline;
 import com.instantolap.charts.impl.util.ArrayHelper;
 import com.instantolap.charts.impl.util.SymbolDrawer;
 import com.instantolap.charts.renderer.ChartColor;
@@ -18,7 +19,7 @@ public class DataImpl implements Data {
 
   private final transient Map<Integer, Integer> selectedSamples = new HashMap<>();
   private WriteableCube cube;
-  private Cube currentCube;
+  private TransformPipeline pipeline;
   private ChartColor[][] sampleColors = new ChartColor[0][];
   private ChartStroke defaultStroke = new ChartStroke(1);
   private ChartStroke[] strokes = new ChartStroke[0];
@@ -29,7 +30,7 @@ public class DataImpl implements Data {
 
   public DataImpl() {
     cube = new CubeImpl();
-    currentCube = cube;
+    pipeline = new TransformPipeline(cube);
   }
 
   @Override
@@ -37,14 +38,26 @@ public class DataImpl implements Data {
     return cube;
   }
 
+  /**
+   * Returns the result of the transform pipeline.
+   */
   @Override
   public Cube getCurrentCube() {
-    return currentCube;
+    return pipeline.getResult();
   }
 
+  /**
+   * Makes the cube the source of the transform pipeline, so that its stages
+   * are applied to it. Null goes back to the main cube.
+   */
   @Override
   public void setCurrentCube(Cube cube) {
-    this.currentCube = cube;
+    pipeline.setSource((cube == null) ? this.cube : cube);
+  }
+
+  @Override
+  public TransformPipeline getTransformPipeline() {
+    return pipeline;
   }
 
   @Override
@@ -154,7 +167,7 @@ public class DataImpl implements Data {
   public Data getCopy() {
     final DataImpl copy = new DataImpl();
     copy.cube = cube;
-    copy.currentCube = currentCube;
+    copy.pipeline = pipeline.getCopy();
     copy.sampleColors = sampleColors;
     copy.strokes = strokes;
     copy.symbols = symbols;
@@ -172,7 +185,7 @@ public class DataImpl implements Data {
   }
 
   public boolean isSampleVisible(int dimension, int sample) {
-    return currentCube.isVisible(dimension, sample);
+    return getCurrentCube().isVisible(dimension, sample);
   }
 
   public String getTarget(int series, int sample) {
@@ -1,6 +1,7 @@
 package com.instantolap.charts.impl.data;
 
 import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
 
 
 @SuppressWarnings("serial")
@@ -19,6 +20,68 @@ public class DelegatedCube extends BasicCube {
     return cube;
   }
 
+  /**
+   * Copies all samples, measures and visibilities of this view into a new
+   * cube, which no longer depends on the underlying cube.
+   */
+  public CubeImpl materialize() {
+    final CubeImpl result = new CubeImpl();
+    final int dimensionCount = getDimensionCount();
+    final int[] sizes = new int[dimensionCount];
+    int size = 1;
+    for (int d = 0; d < dimensionCount; d++) {
+      sizes[d] = getSampleCount(d);
+      size *= sizes[d];
+      final String[] samples = new String[sizes[d]];
+      final String[] ids = new String[sizes[d]];
+      for (int s = 0; s < sizes[d]; s++) {
+        samples[s] = getSample(d, s);
+        ids[s] = getSampleID(d, s);
+      }
+      result.setSamples(d, samples, ids);
+    }
+
+    for (String measure : getMeasures()) {
+      final int id = getMeasureId(measure);
+      final double[] values = new double[size];
+      final int[] pos = new int[dimensionCount];
+      for (int n = 0; n < size; n++) {
+        values[n] = getDouble(id, pos);
+        next(pos, sizes);
+      }
+      result.setValues(measure, values);
+    }
+
+    for (String measure : getStringMeasures()) {
+      final int[] pos = new int[dimensionCount];
+      for (int n = 0; n < size; n++) {
+        final String value = getString(measure, pos);
+        if (value != null) {
+          result.set(measure, value, pos);
+        }
+        next(pos, sizes);
+      }
+    }
+
+    for (int d = 0; d < dimensionCount; d++) {
+      for (int s = 0; s < sizes[d]; s++) {
+        if (!isVisible(d, s)) {
+          result.setVisible(d, s, false);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void next(int[] pos, int[] sizes) {
+    for (int d = 0; d < pos.length; d++) {
+      if (++pos[d] < sizes[d]) {
+        return;
+      }
+      pos[d] = 0;
+    }
+  }
+
   @Override
   public int getDimensionCount() {
     return cube.getDimensionCount();
@@ -54,19 +117,49 @@ public class DelegatedCube extends BasicCube {
     return cube.get(measure, pos);
   }
 
+  @Override
+  public int getMeasureId(String measure) {
+    return cube.getMeasureId(measure);
+  }
+
+  @Override
+  public double getDouble(int measure, int pos1) {
+    return cube.getDouble(measure, pos1);
+  }
+
+  @Override
+  public double getDouble(int measure, int pos1, int pos2) {
+    return cube.getDouble(measure, pos1, pos2);
+  }
+
+  @Override
+  public double getDouble(int measure, int[] pos) {
+    return cube.getDouble(measure, pos);
+  }
+
   @Override
   public String getString(String measure, int... pos) {
     return cube.getString(measure, pos);
   }
 
   @Override
-  public Double getMin(String... measures) {
-    return cube.getMin(measures);
+  public String[] getMeasures() {
+    return cube.getMeasures();
   }
 
   @Override
-  public Double getMax(String... measures) {
-    return cube.getMax(measures);
+  public String[] getStringMeasures() {
+    return cube.getStringMeasures();
+  }
+
+  @Override
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    return cube.getStatistics(measure);
+  }
+
+  @Override
+  public long getModificationCount() {
+    return cube.getModificationCount();
   }
 
   @Override
@@ -78,4 +171,44 @@ public class DelegatedCube extends BasicCube {
   public boolean isVisible(int dimension, int sample) {
     return cube.isVisible(dimension, sample);
   }
+
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    return cube.getVisibleSampleCount(dimension);
+  }
+
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    return cube.getVisibleSamples(dimension);
+  }
+
+  /**
+   * Counts the visible samples with isVisible, for views whose samples are
+   * not the ones of the underlying cube.
+   */
+  protected int countVisibleSamples(int dimension) {
+    final int sampleCount = getSampleCount(dimension);
+    int result = sampleCount;
+    for (int n = 0; n < sampleCount; n++) {
+      if (!isVisible(dimension, n)) {
+        result--;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Finds the visible samples with isVisible, for views whose samples are
+   * not the ones of the underlying cube.
+   */
+  protected int[] findVisibleSamples(int dimension) {
+    final int[] result = new int[countVisibleSamples(dimension)];
+    int next = 0;
+    for (int n = 0; next < result.length; n++) {
+      if (isVisible(dimension, n)) {
+        result[next++] = n;
+      }
+    }
+    return result;
+  }
 }
@@ -0,0 +1,225 @@
+package com.instantolap.charts.impl.data;
+
+import com.instantolap.charts.Cube;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Immutable list of the samples of a dimension. Labels and ids are stored as
+ * int codes into one dictionary of strings, and as long as every id equals
+ * its label, both share the same codes. Since it never changes, a dimension
+ * can be shared by any number of cubes.
+ * <p>
+ * Adding a sample returns a new dimension, which shares growable arrays with
+ * this one. Only the positions beyond the end of every existing dimension
+ * are written, so appending to the latest dimension is amortized O(1), and
+ * the codes of the strings are kept for the next append.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class Dimension implements Serializable {
+
+  private static final int NULL = -1;
+
+  private final Samples samples;
+  private final String[] dictionary;
+  private final int[] labels;
+  private final int[] ids;
+  private final int size;
+
+  /**
+   * Creates a dimension of the given samples. Without ids, every id is the
+   * label of its sample.
+   */
+  public Dimension(String[] labels, String[] ids) {
+    if (ids != null && ids.length != labels.length) {
+      throw new IllegalArgumentException("Sample and id count differ");
+    }
+
+    final Samples samples = new Samples(labels.length);
+    for (int n = 0; n < labels.length; n++) {
+      samples.append(labels[n], (ids == null) ? labels[n] : ids[n]);
+    }
+    this.samples = samples;
+    this.dictionary = samples.dictionary;
+    this.labels = samples.labels;
+    this.ids = samples.ids;
+    this.size = samples.size;
+  }
+
+  private Dimension(Samples samples) {
+    this.samples = samples;
+    this.dictionary = samples.dictionary;
+    this.labels = samples.labels;
+    this.ids = samples.ids;
+    this.size = samples.size;
+  }
+
+  /**
+   * Returns the samples of a dimension of the cube. Cubes that keep them in
+   * a Dimension return it without a copy.
+   */
+  public static Dimension of(Cube cube, int axis) {
+    if (cube instanceof BasicCube) {
+      final Dimension result = ((BasicCube) cube).getDimension(axis);
+      if (result != null) {
+        return result;
+      }
+    }
+
+    final String[] labels = new String[cube.getSampleCount(axis)];
+    final String[] ids = new String[labels.length];
+    for (int n = 0; n < labels.length; n++) {
+      labels[n] = cube.getSample(axis, n);
+      ids[n] = cube.getSampleID(axis, n);
+    }
+    return new Dimension(labels, ids);
+  }
+
+  /**
+   * Creates a dimension of the given number of samples without labels.
+   */
+  public static Dimension ofSize(int size) {
+    return new Dimension(new String[size], null);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public String getLabel(int pos) {
+    checkPosition(pos);
+    return decode(labels[pos]);
+  }
+
+  public String getID(int pos) {
+    checkPosition(pos);
+    return decode(ids[pos]);
+  }
+
+  /**
+   * Returns a dimension with the given sample added at the end.
+   */
+  public Dimension add(String label, String id) {
+    return samples.add(this, label, id);
+  }
+
+  private void checkPosition(int pos) {
+    if (pos >= size) {
+      throw new IndexOutOfBoundsException("Sample " + pos + " of " + size);
+    }
+  }
+
+  private String decode(int code) {
+    return (code == NULL) ? null : dictionary[code];
+  }
+
+  /**
+   * Serializes the samples without the shared arrays.
+   */
+  private Object writeReplace() {
+    final String[] labels = new String[size];
+    final String[] ids = new String[size];
+    for (int n = 0; n < size; n++) {
+      labels[n] = getLabel(n);
+      ids[n] = getID(n);
+    }
+    return new SerializedDimension(labels, ids);
+  }
+
+  private static boolean equals(String s1, String s2) {
+    return (s1 == null) ? (s2 == null) : s1.equals(s2);
+  }
+
+
+  /**
+   * The arrays shared by a dimension and the ones added to it. The arrays
+   * are replaced by larger copies when they are full, so older dimensions
+   * keep reading the ones they were created with.
+   */
+  private static class Samples {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] dictionary;
+    private int dictionarySize;
+    private int[] labels;
+    private int[] ids; // the labels, as long as every id equals its label
+    private int size;
+
+    Samples(int capacity) {
+      dictionary = new String[16];
+      labels = new int[Math.max(capacity, 4)];
+      ids = labels;
+    }
+
+    synchronized Dimension add(Dimension dimension, String label, String id) {
+      if (dimension.size != size) {
+        // another sample has already been added to this dimension
+        final Samples copy = new Samples(dimension.size * 2);
+        for (int n = 0; n < dimension.size; n++) {
+          copy.append(dimension.getLabel(n), dimension.getID(n));
+        }
+        copy.append(label, id);
+        return new Dimension(copy);
+      }
+      append(label, id);
+      return new Dimension(this);
+    }
+
+    void append(String label, String id) {
+      if (size == labels.length) {
+        final boolean isShared = (ids == labels);
+        labels = Arrays.copyOf(labels, size * 2);
+        ids = isShared ? labels : Arrays.copyOf(ids, size * 2);
+      }
+      if (ids == labels && !Dimension.equals(label, id)) {
+        ids = labels.clone();
+      }
+
+      labels[size] = encode(label);
+      if (ids != labels) {
+        ids[size] = encode(id);
+      }
+      size++;
+    }
+
+    private int encode(String string) {
+      if (string == null) {
+        return NULL;
+      }
+      Integer code = codes.get(string);
+      if (code == null) {
+        if (dictionarySize == dictionary.length) {
+          dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        }
+        code = dictionarySize;
+        dictionary[dictionarySize++] = string;
+        codes.put(string, code);
+      }
+      return code;
+    }
+  }
+
+
+  /**
+   * The serialized form of a dimension.
+   */
+  private static class SerializedDimension implements Serializable {
+
+    private final String[] labels;
+    private final String[] ids;
+
+    SerializedDimension(String[] labels, String[] ids) {
+      this.labels = labels;
+      this.ids = ids;
+    }
+
+    private Object readResolve() {
+      return new Dimension(labels, ids);
+    }
+  }
+}
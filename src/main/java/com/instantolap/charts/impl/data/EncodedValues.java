@@ -0,0 +1,263 @@
+package com.instantolap.charts.impl.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+
+/**
+ * Values of a measure by ordinal in a smaller encoding than doubles. Missing
+ * values are NaN, like in the dense arrays.
+ */
+@SuppressWarnings("serial")
+abstract class EncodedValues implements Serializable {
+
+  final int encoding;
+  final double scale;
+
+  EncodedValues(int encoding, double scale) {
+    this.encoding = encoding;
+    this.scale = scale;
+  }
+
+  /**
+   * Encodes the values in one of the ENCODING constants of CubeImpl.
+   */
+  static EncodedValues of(int encoding, double scale, double[] values) {
+    switch (encoding) {
+      case CubeImpl.ENCODING_FLOAT:
+        return new FloatValues(values);
+      case CubeImpl.ENCODING_SCALED:
+        return new ScaledValues(scale, values);
+      case CubeImpl.ENCODING_DELTA:
+        return new DeltaValues(scale, values);
+      default:
+        throw new IllegalArgumentException("Unknown encoding: " + encoding);
+    }
+  }
+
+  /**
+   * Creates the given number of values in the encoding, all NaN.
+   */
+  static EncodedValues create(int encoding, double scale, int size) {
+    final double[] values = new double[size];
+    Arrays.fill(values, Double.NaN);
+    return of(encoding, scale, values);
+  }
+
+  abstract int size();
+
+  abstract double get(int ord);
+
+  abstract void set(int ord, double v);
+
+  /**
+   * Returns the values in an array of the given size, moving every value to
+   * the ordinal n + (n / interval) * gap.
+   */
+  EncodedValues reorganize(int newSize, int interval, int gap) {
+    final double[] values = new double[newSize];
+    Arrays.fill(values, Double.NaN);
+    for (int n = 0; n < size(); n++) {
+      values[n + (n / interval) * gap] = get(n);
+    }
+    return of(encoding, scale, values);
+  }
+
+  /**
+   * Returns the value times the scale as an integer, or throws an
+   * IllegalArgumentException if it does not fit into the given range.
+   */
+  long toLong(double v, long min, long max) {
+    final double scaled = Math.rint(v * scale);
+    if (!(scaled >= min && scaled <= max)) {
+      throw new IllegalArgumentException(
+        "Value " + v + " cannot be encoded with scale " + scale);
+    }
+    return (long) scaled;
+  }
+
+
+  /**
+   * Single precision values, half the size of doubles.
+   */
+  private static class FloatValues extends EncodedValues {
+
+    private final float[] values;
+
+    FloatValues(double[] values) {
+      super(CubeImpl.ENCODING_FLOAT, 1);
+      this.values = new float[values.length];
+      for (int n = 0; n < values.length; n++) {
+        this.values[n] = (float) values[n];
+      }
+    }
+
+    @Override
+    int size() {
+      return values.length;
+    }
+
+    @Override
+    double get(int ord) {
+      return values[ord];
+    }
+
+    @Override
+    void set(int ord, double v) {
+      values[ord] = (float) v;
+    }
+  }
+
+
+  /**
+   * Values with a fixed number of decimals, stored as the value times the
+   * scale in an int. Integer.MIN_VALUE stands for NaN.
+   */
+  private static class ScaledValues extends EncodedValues {
+
+    private static final int NAN = Integer.MIN_VALUE;
+
+    private final int[] values;
+
+    ScaledValues(double scale, double[] values) {
+      super(CubeImpl.ENCODING_SCALED, scale);
+      this.values = new int[values.length];
+      for (int n = 0; n < values.length; n++) {
+        set(n, values[n]);
+      }
+    }
+
+    @Override
+    int size() {
+      return values.length;
+    }
+
+    @Override
+    double get(int ord) {
+      final int v = values[ord];
+      return (v == NAN) ? Double.NaN : v / scale;
+    }
+
+    @Override
+    void set(int ord, double v) {
+      values[ord] = Double.isNaN(v) ? NAN : (int) toLong(v, NAN + 1, Integer.MAX_VALUE);
+    }
+  }
+
+
+  /**
+   * Values times the scale as the differences to their predecessors, in
+   * variable length blocks of BLOCK_SIZE values. Small steps, like the ones
+   * of a time column, take a single byte. Every block starts from 0, so it
+   * can be decoded on its own, and the last decoded block is cached for
+   * sequential reads.
+   */
+  private static class DeltaValues extends EncodedValues {
+
+    private static final int BLOCK_SHIFT = 5;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final int size;
+    private final byte[][] blocks;
+    private transient volatile Block cache;
+
+    DeltaValues(double scale, double[] values) {
+      super(CubeImpl.ENCODING_DELTA, scale);
+      this.size = values.length;
+      this.blocks = new byte[(size + BLOCK_SIZE - 1) >>> BLOCK_SHIFT][];
+      for (int b = 0; b < blocks.length; b++) {
+        final int start = b << BLOCK_SHIFT;
+        blocks[b] = encode(values, start, Math.min(size, start + BLOCK_SIZE));
+      }
+    }
+
+    @Override
+    int size() {
+      return size;
+    }
+
+    @Override
+    double get(int ord) {
+      return getBlock(ord >>> BLOCK_SHIFT).values[ord & (BLOCK_SIZE - 1)];
+    }
+
+    @Override
+    void set(int ord, double v) {
+      final int index = ord >>> BLOCK_SHIFT;
+      final double[] values = getBlock(index).values.clone();
+      values[ord & (BLOCK_SIZE - 1)] = v;
+      blocks[index] = encode(values, 0, values.length);
+      cache = new Block(index, values);
+    }
+
+    private Block getBlock(int index) {
+      Block block = cache;
+      if (block == null || block.index != index) {
+        final int count = Math.min(BLOCK_SIZE, size - (index << BLOCK_SHIFT));
+        block = new Block(index, decode(blocks[index], count));
+        cache = block;
+      }
+      return block;
+    }
+
+    /**
+     * Writes every value as a zig-zag varint of its difference to the
+     * previous value, plus 1. A 0 stands for NaN.
+     */
+    private byte[] encode(double[] values, int start, int end) {
+      final byte[] buffer = new byte[(end - start) * 10];
+      int length = 0;
+      long previous = 0;
+      for (int n = start; n < end; n++) {
+        long code = 0;
+        if (!Double.isNaN(values[n])) {
+          final long v = toLong(values[n], -(1L << 52), 1L << 52);
+          final long delta = v - previous;
+          code = ((delta << 1) ^ (delta >> 63)) + 1;
+          previous = v;
+        }
+        while ((code & ~0x7FL) != 0) {
+          buffer[length++] = (byte) ((code & 0x7F) | 0x80);
+          code >>>= 7;
+        }
+        buffer[length++] = (byte) code;
+      }
+      return Arrays.copyOf(buffer, length);
+    }
+
+    private double[] decode(byte[] block, int count) {
+      final double[] values = new double[count];
+      long previous = 0;
+      int pos = 0;
+      for (int n = 0; n < count; n++) {
+        long code = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = block[pos++];
+          code |= (long) (b & 0x7F) << shift;
+          shift += 7;
+        } while (b < 0);
+
+        if (code == 0) {
+          values[n] = Double.NaN;
+        } else {
+          code--;
+          previous += (code >>> 1) ^ -(code & 1);
+          values[n] = previous / scale;
+        }
+      }
+      return values;
+    }
+
+    private static class Block {
+      private final int index;
+      private final double[] values;
+
+      Block(int index, double[] values) {
+        this.index = index;
+        this.values = values;
+      }
+    }
+  }
+}
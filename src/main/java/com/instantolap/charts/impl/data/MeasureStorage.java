@@ -0,0 +1,69 @@
+package com.instantolap.charts.impl.data;
+
+import java.io.Serializable;
+
+
+/**
+ * Storage for the measures of a CubeImpl outside of its own arrays, like
+ * the direct buffers of jvm.OffHeapStorage. Every measure is kept in a
+ * column of the size of the cube, which is replaced by a larger one when a
+ * sample is added.
+ */
+public interface MeasureStorage extends Serializable {
+
+  /**
+   * Creates a column of the given number of values, all NaN.
+   */
+  Values createValues(int size);
+
+  Values createValues(double[] values);
+
+  /**
+   * Creates a column of the given number of strings, all null.
+   */
+  Strings createStrings(int size);
+
+
+  interface Values extends Serializable {
+
+    int size();
+
+    double get(int ord);
+
+    void set(int ord, double v);
+
+    /**
+     * Copies the values to a new column of the given size, moving every
+     * value to the ordinal n + (n / interval) * gap, and releases this one.
+     */
+    Values reorganize(int newSize, int interval, int gap);
+
+    /**
+     * Gives back the memory of the column, which must not be used
+     * afterwards.
+     */
+    void release();
+  }
+
+
+  interface Strings extends Serializable {
+
+    int size();
+
+    String get(int ord);
+
+    void set(int ord, String v);
+
+    /**
+     * Copies the strings to a new column of the given size, moving every
+     * string to the ordinal n + (n / interval) * gap, and releases this one.
+     */
+    Strings reorganize(int newSize, int interval, int gap);
+
+    /**
+     * Gives back the memory of the column, which must not be used
+     * afterwards.
+     */
+    void release();
+  }
+}
@@ -1,22 +1,28 @@
 package com.instantolap.charts.impl.data;
 
 import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
+
+import java.util.Arrays;
 
 
 @SuppressWarnings("serial")
 public class PartialCube extends DelegatedCube {
 
-  private boolean[][] visibilities;
+  private final Visibility visibility = new Visibility();
+  private int[] sampleCounts = new int[0];
+  private transient volatile VisibleSamples[] visibleSamples;
 
   public PartialCube(Cube cube) {
     super(cube);
 
-    visibilities = new boolean[cube.getDimensionCount()][];
+    sampleCounts = new int[cube.getDimensionCount()];
     for (int d = 0; d < cube.getDimensionCount(); d++) {
-      final int sampleCount = cube.getSampleCount(d);
-      visibilities[d] = new boolean[sampleCount];
-      for (int s = 0; s < sampleCount; s++) {
-        visibilities[d][s] = cube.isVisible(d, s);
+      sampleCounts[d] = cube.getSampleCount(d);
+      for (int s = 0; s < sampleCounts[d]; s++) {
+        if (!cube.isVisible(d, s)) {
+          visibility.setVisible(d, s, false);
+        }
       }
     }
   }
@@ -24,22 +30,24 @@ public class PartialCube extends DelegatedCube {
   public PartialCube() {}
 
   public void setVisible(int dimension, int[] samples, boolean visible) {
-    if (dimension >= visibilities.length) {
+    if (dimension >= sampleCounts.length) {
       return;
     }
     for (int sample : samples) {
-      if (sample < visibilities[dimension].length) {
-        visibilities[dimension][sample] = visible;
+      if (sample < sampleCounts[dimension]) {
+        visibility.setVisible(dimension, sample, visible);
       }
     }
+    invalidateVisibleSamples();
   }
 
   public void keepVisible(int dimension, int[] samples, boolean visible) {
     for (int n = 0; n < getSampleCount(dimension); n++) {
       if (!contains(samples, n)) {
-        visibilities[dimension][n] = visible;
+        visibility.setVisible(dimension, n, visible);
       }
     }
+    invalidateVisibleSamples();
   }
 
   private boolean contains(int[] samples, int n) {
@@ -52,70 +60,95 @@ public class PartialCube extends DelegatedCube {
   }
 
   @Override
-  public Double getMax(String... measures) {
-    return getMinMax(false, measures);
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    return getCachedStatistics(measure);
   }
 
   @Override
-  public Double getMin(String... measures) {
-    return getMinMax(true, measures);
+  protected boolean isInStatistics(int dimension, int sample) {
+    return visibility.isVisible(dimension, sample);
   }
 
   @Override
   public void setVisible(int dimension, int sample, boolean visible) {
-    visibilities[dimension][sample] = visible;
+    visibility.setVisible(dimension, sample, visible);
+    invalidateVisibleSamples();
   }
 
+  /**
+   * Checks the samples hidden here first, so that the underlying cube is
+   * only asked for the others.
+   */
   @Override
   public boolean isVisible(int dimension, int sample) {
-    if (!getCube().isVisible(dimension, sample)) {
-      return false;
+    return visibility.isVisible(dimension, sample) && getCube().isVisible(dimension, sample);
+  }
+
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    return getVisibleSamples(dimension).length;
+  }
+
+  /**
+   * Returns the visible samples of the underlying cube that are not hidden
+   * here. They are filtered again only after a change here, or when the
+   * underlying cube returns another array or has another sample count.
+   */
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    final Cube cube = getCube();
+    final int[] samples = cube.getVisibleSamples(dimension);
+    final int sampleCount = cube.getSampleCount(dimension);
+
+    VisibleSamples[] cache = visibleSamples;
+    final VisibleSamples cached = (cache != null && dimension < cache.length)
+      ? cache[dimension] : null;
+    if (cached != null && cached.samples == samples && cached.sampleCount == sampleCount) {
+      return cached.result;
     }
 
-    if (dimension >= visibilities.length) {
-      return true;
-    } else if (sample >= visibilities[dimension].length) {
-      return true;
+    final int[] result = filter(dimension, samples);
+    if (cache == null || dimension >= cache.length) {
+      cache = (cache == null)
+        ? new VisibleSamples[dimension + 1] : Arrays.copyOf(cache, dimension + 1);
     } else {
-      return visibilities[dimension][sample];
+      cache = cache.clone();
     }
+    cache[dimension] = new VisibleSamples(samples, sampleCount, result);
+    visibleSamples = cache;
+    return result;
   }
 
-  private Double getMinMax(boolean isMin, String... measures) {
-    int maxIndex = 1;
-    for (int n = 0; n < getDimensionCount(); n++) {
-      maxIndex *= getSampleCount(n);
+  private int[] filter(int dimension, int[] samples) {
+    final int[] result = new int[samples.length];
+    int count = 0;
+    for (int sample : samples) {
+      if (visibility.isVisible(dimension, sample)) {
+        result[count++] = sample;
+      }
     }
+    return (count == samples.length) ? samples : Arrays.copyOf(result, count);
+  }
 
-    Double max = null;
-    final int[] pos = new int[getDimensionCount()];
-    for (int n = 0; n < maxIndex; n++) {
-      int index = n;
-      boolean visible = true;
-      for (int i = getDimensionCount() - 1; i >= 0; i--) {
-        final int c = getSampleCount(i);
-        pos[i] = index % c;
-        if (!visibilities[i][pos[i]]) {
-          visible = false;
-          break;
-        }
-        index /= c;
-      }
-      if (visible) {
-        for (String measure : measures) {
-          final Double value = get(measure, pos);
-          if (value != null) {
-            if (max == null) {
-              max = value;
-            } else if (isMin) {
-              max = Math.min(max, value);
-            } else {
-              max = Math.max(max, value);
-            }
-          }
-        }
-      }
+  private void invalidateVisibleSamples() {
+    visibleSamples = null;
+    invalidateStatistics();
+  }
+
+
+  /**
+   * The visible samples of a dimension, filtered from the given ones of the
+   * underlying cube.
+   */
+  private static class VisibleSamples {
+    private final int[] samples;
+    private final int sampleCount;
+    private final int[] result;
+
+    VisibleSamples(int[] samples, int sampleCount, int[] result) {
+      this.samples = samples;
+      this.sampleCount = sampleCount;
+      this.result = result;
     }
-    return max;
   }
 }
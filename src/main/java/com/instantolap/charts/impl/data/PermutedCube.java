@@ -0,0 +1,144 @@
+package com.instantolap.charts.impl.data;
+
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
+
+
+/**
+ * View that shows the samples of a cube in another order. Every dimension
+ * can have its own list of samples of the underlying cube, which may also
+ * leave samples out. Dimensions without a list are shown unchanged. All
+ * measures of the underlying cube stay available.
+ */
+@SuppressWarnings("serial")
+public class PermutedCube extends DelegatedCube {
+
+  private int[][] mappings;
+  private boolean isPermutation = true;
+
+  public PermutedCube() {
+  }
+
+  public PermutedCube(Cube cube) {
+    super(cube);
+    mappings = new int[cube.getDimensionCount()][];
+  }
+
+  /**
+   * Shows the given samples of the underlying cube, in this order. Each
+   * sample may only be given once.
+   */
+  public void setSamples(int dimension, int[] samples) {
+    mappings[dimension] = samples;
+    isPermutation = true;
+    for (int d = 0; d < mappings.length; d++) {
+      if (mappings[d] != null && mappings[d].length != cube.getSampleCount(d)) {
+        isPermutation = false;
+      }
+    }
+    invalidateStatistics();
+  }
+
+  @Override
+  public int getSampleCount(int dimension) {
+    if (dimension < mappings.length && mappings[dimension] != null) {
+      return mappings[dimension].length;
+    }
+    return cube.getSampleCount(dimension);
+  }
+
+  @Override
+  public String getSample(int dimension, int pos) {
+    return cube.getSample(dimension, transform(dimension, pos));
+  }
+
+  @Override
+  public String getSampleID(int dimension, int pos) {
+    return cube.getSampleID(dimension, transform(dimension, pos));
+  }
+
+  @Override
+  public Double get(String measure, int pos) {
+    return cube.get(measure, transform(0, pos));
+  }
+
+  @Override
+  public Double get(String measure, int pos1, int pos2) {
+    return cube.get(measure, transform(0, pos1), transform(1, pos2));
+  }
+
+  @Override
+  public Double get(String measure, int[] pos) {
+    return cube.get(measure, transform(pos));
+  }
+
+  @Override
+  public double getDouble(int measure, int pos) {
+    return cube.getDouble(measure, transform(0, pos));
+  }
+
+  @Override
+  public double getDouble(int measure, int pos1, int pos2) {
+    return cube.getDouble(measure, transform(0, pos1), transform(1, pos2));
+  }
+
+  @Override
+  public double getDouble(int measure, int[] pos) {
+    return cube.getDouble(measure, transform(pos));
+  }
+
+  @Override
+  public String getString(String measure, int... pos) {
+    return cube.getString(measure, transform(pos));
+  }
+
+  @Override
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    // the order of the samples does not matter, unless some are left out
+    if (isPermutation) {
+      return cube.getStatistics(measure);
+    }
+    return getCachedStatistics(measure);
+  }
+
+  @Override
+  public boolean isVisible(int dimension, int sample) {
+    return cube.isVisible(dimension, transform(dimension, sample));
+  }
+
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    return countVisibleSamples(dimension);
+  }
+
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    return findVisibleSamples(dimension);
+  }
+
+  @Override
+  public void setVisible(int dimension, int sample, boolean visible) {
+    cube.setVisible(dimension, transform(dimension, sample), visible);
+  }
+
+  private int[] transform(int[] pos) {
+    final int[] newPos = new int[pos.length];
+    for (int n = 0; n < pos.length; n++) {
+      newPos[n] = transform(n, pos[n]);
+    }
+    return newPos;
+  }
+
+  private int transform(int dimension, int pos) {
+    if (dimension >= mappings.length) {
+      return pos;
+    }
+    final int[] mapping = mappings[dimension];
+    if (mapping == null) {
+      return pos;
+    } else if (pos < 0 || pos >= mapping.length) {
+      return -1;
+    }
+    return mapping[pos];
+  }
+}
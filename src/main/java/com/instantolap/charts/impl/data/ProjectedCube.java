@@ -0,0 +1,123 @@
+package com.instantolap.charts.impl.data;
+
+import com.instantolap.charts.Cube;
+
+
+/**
+ * View that shows a selection of the dimensions of a cube, in any order.
+ * Dimensions of the underlying cube that are left out are fixed to their
+ * first sample, so this only loses values if they have more than one. All
+ * measures of the underlying cube stay available.
+ */
+@SuppressWarnings("serial")
+public class ProjectedCube extends DelegatedCube {
+
+  private int[] dimensions;
+
+  public ProjectedCube() {
+  }
+
+  /**
+   * Dimension n of the view is the dimension dimensions[n] of the cube.
+   */
+  public ProjectedCube(Cube cube, int[] dimensions) {
+    super(cube);
+    this.dimensions = dimensions;
+  }
+
+  @Override
+  public int getDimensionCount() {
+    return dimensions.length;
+  }
+
+  @Override
+  public int getSampleCount(int dimension) {
+    if (dimension >= dimensions.length) {
+      return 0;
+    }
+    return cube.getSampleCount(dimensions[dimension]);
+  }
+
+  @Override
+  public String getSample(int dimension, int pos) {
+    return cube.getSample(dimensions[dimension], pos);
+  }
+
+  @Override
+  public String getSampleID(int dimension, int pos) {
+    return cube.getSampleID(dimensions[dimension], pos);
+  }
+
+  @Override
+  public Double get(String measure, int pos) {
+    return cube.get(measure, transform(pos));
+  }
+
+  @Override
+  public Double get(String measure, int pos1, int pos2) {
+    return cube.get(measure, transform(pos1, pos2));
+  }
+
+  @Override
+  public Double get(String measure, int[] pos) {
+    return cube.get(measure, transform(pos));
+  }
+
+  @Override
+  public double getDouble(int measure, int pos) {
+    return cube.getDouble(measure, transform(pos));
+  }
+
+  @Override
+  public double getDouble(int measure, int pos1, int pos2) {
+    return cube.getDouble(measure, transform(pos1, pos2));
+  }
+
+  @Override
+  public double getDouble(int measure, int[] pos) {
+    return cube.getDouble(measure, transform(pos));
+  }
+
+  @Override
+  public String getString(String measure, int... pos) {
+    return cube.getString(measure, transform(pos));
+  }
+
+  @Override
+  public boolean isVisible(int dimension, int sample) {
+    if (dimension >= dimensions.length) {
+      return true;
+    }
+    return cube.isVisible(dimensions[dimension], sample);
+  }
+
+  @Override
+  public void setVisible(int dimension, int sample, boolean visible) {
+    cube.setVisible(dimensions[dimension], sample, visible);
+  }
+
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    if (dimension >= dimensions.length) {
+      return countVisibleSamples(dimension);
+    }
+    return cube.getVisibleSampleCount(dimensions[dimension]);
+  }
+
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    if (dimension >= dimensions.length) {
+      return findVisibleSamples(dimension);
+    }
+    return cube.getVisibleSamples(dimensions[dimension]);
+  }
+
+  private int[] transform(int... pos) {
+    final int[] newPos = new int[cube.getDimensionCount()];
+    final int len = Math.min(pos.length, dimensions.length);
+    for (int n = 0; n < len; n++) {
+      newPos[dimensions[n]] = pos[n];
+    }
+    return newPos;
+  }
+}
@@ -1,6 +1,7 @@
 package com.instantolap.charts.impl.data;
 
 import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
 
 
 @SuppressWarnings("serial")
@@ -9,6 +10,7 @@ public class ReducedCube extends DelegatedCube {
   private Cube cube;
   private boolean[][] indices;
   private int[] sampleCounts;
+  private transient int[][] mappings;
 
   public ReducedCube() {
   }
@@ -34,9 +36,12 @@ public class ReducedCube extends DelegatedCube {
       return;
     }
     for (int s : samples) {
-      indices[d][s] = false;
-      sampleCounts[d]--;
+      if (indices[d][s]) {
+        indices[d][s] = false;
+        sampleCounts[d]--;
+      }
     }
+    invalidate();
   }
 
   public void removeAllSamples(int d) {
@@ -47,6 +52,7 @@ public class ReducedCube extends DelegatedCube {
       indices[d][n] = false;
     }
     sampleCounts[d] = 0;
+    invalidate();
   }
 
   public void keepSamples(int d, int[] samples) {
@@ -66,17 +72,23 @@ public class ReducedCube extends DelegatedCube {
     }
   }
 
+  private void invalidate() {
+    mappings = null;
+    invalidateStatistics();
+  }
+
   @Override
   public int getSampleCount(int dimension) {
     return sampleCounts[dimension];
   }
 
   public void removeSample(int d, int sample) {
-    if (d >= sampleCounts.length) {
+    if (d >= sampleCounts.length || !indices[d][sample]) {
       return;
     }
     indices[d][sample] = false;
     sampleCounts[d]--;
+    invalidate();
   }
 
   @Override
@@ -84,6 +96,11 @@ public class ReducedCube extends DelegatedCube {
     return cube.getSample(dimension, transform(dimension, pos));
   }
 
+  @Override
+  public String getSampleID(int dimension, int pos) {
+    return cube.getSampleID(dimension, transform(dimension, pos));
+  }
+
   @Override
   public Double get(String measure, int pos) {
     pos = transform(0, pos);
@@ -104,44 +121,27 @@ public class ReducedCube extends DelegatedCube {
   }
 
   @Override
-  public Double getMin(String... measures) {
-    return getMinMax(true, measures);
+  public double getDouble(int measure, int pos) {
+    pos = transform(0, pos);
+    return cube.getDouble(measure, pos);
   }
 
   @Override
-  public Double getMax(String... measures) {
-    return getMinMax(false, measures);
+  public double getDouble(int measure, int pos1, int pos2) {
+    pos1 = transform(0, pos1);
+    pos2 = transform(1, pos2);
+    return cube.getDouble(measure, pos1, pos2);
   }
 
-  private Double getMinMax(boolean isMin, String... measures) {
-    int maxIndex = 1;
-    for (int c : sampleCounts) {
-      maxIndex *= c;
-    }
+  @Override
+  public double getDouble(int measure, int[] pos) {
+    pos = transform(pos);
+    return cube.getDouble(measure, pos);
+  }
 
-    Double result = null;
-    final int[] pos = new int[getDimensionCount()];
-    for (int n = 0; n < maxIndex; n++) {
-      int index = n;
-      for (int i = 0; i < getDimensionCount(); i++) {
-        final int c = getSampleCount(i);
-        pos[i] = index % c;
-        index /= c;
-      }
-      for (String measure : measures) {
-        final Double value = get(measure, pos);
-        if (value != null) {
-          if (result == null) {
-            result = value;
-          } else if (isMin) {
-            result = Math.min(result, value);
-          } else {
-            result = Math.max(result, value);
-          }
-        }
-      }
-    }
-    return result;
+  @Override
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    return getCachedStatistics(measure);
   }
 
   private int[] transform(int[] pos) {
@@ -153,19 +153,51 @@ public class ReducedCube extends DelegatedCube {
   }
 
   private int transform(int dimension, int pos) {
-    int dim = 0;
-    for (int n = 0; n < indices[dimension].length; n++) {
-      if (indices[dimension][n]) {
-        if (pos == dim++) {
-          return n;
+    if (mappings == null) {
+      buildMappings();
+    }
+    if (dimension >= mappings.length) {
+      return pos;
+    }
+    final int[] mapping = mappings[dimension];
+    if (pos < 0 || pos >= mapping.length) {
+      return -1;
+    }
+    return mapping[pos];
+  }
+
+  private void buildMappings() {
+    final int[][] newMappings = new int[indices.length][];
+    for (int d = 0; d < indices.length; d++) {
+      final int[] mapping = new int[sampleCounts[d]];
+      int next = 0;
+      for (int n = 0; n < indices[d].length; n++) {
+        if (indices[d][n]) {
+          mapping[next++] = n;
         }
       }
+      newMappings[d] = mapping;
     }
-    return 0;
+    mappings = newMappings;
   }
 
   @Override
   public boolean isVisible(int dimension, int sample) {
     return cube.isVisible(dimension, transform(dimension, sample));
   }
+
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    return countVisibleSamples(dimension);
+  }
+
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    return findVisibleSamples(dimension);
+  }
+
+  @Override
+  public void setVisible(int dimension, int sample, boolean visible) {
+    cube.setVisible(dimension, transform(dimension, sample), visible);
+  }
 }
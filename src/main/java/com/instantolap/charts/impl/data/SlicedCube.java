@@ -1,6 +1,7 @@
 package com.instantolap.charts.impl.data;
 
 import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
 
 
 @SuppressWarnings("serial")
@@ -24,20 +25,17 @@ public class SlicedCube extends DelegatedCube {
 
   public void setDimensionStart(int d, int start) {
     starts[d] = start;
+    invalidateStatistics();
   }
 
   public void setDimensionEnd(int d, int end) {
     ends[d] = end;
+    invalidateStatistics();
   }
 
   @Override
-  public Double getMax(String... measures) {
-    return getMinMax(false, measures);
-  }
-
-  @Override
-  public Double getMin(String... measures) {
-    return getMinMax(true, measures);
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    return getCachedStatistics(measure);
   }
 
   @Override
@@ -63,6 +61,29 @@ public class SlicedCube extends DelegatedCube {
     return cube.get(measure, pos);
   }
 
+  @Override
+  public double getDouble(int measure, int pos) {
+    pos = transform(0, pos);
+    return cube.getDouble(measure, pos);
+  }
+
+  @Override
+  public double getDouble(int measure, int pos1, int pos2) {
+    if (starts.length < 2) {
+      return getDouble(measure, pos1);
+    }
+
+    pos1 = transform(0, pos1);
+    pos2 = transform(1, pos2);
+    return cube.getDouble(measure, pos1, pos2);
+  }
+
+  @Override
+  public double getDouble(int measure, int[] pos) {
+    pos = transform(pos);
+    return cube.getDouble(measure, pos);
+  }
+
   @Override
   public String getSample(int dimension, int pos) {
     return cube.getSample(dimension, transform(dimension, pos));
@@ -84,6 +105,16 @@ public class SlicedCube extends DelegatedCube {
     return cube.isVisible(dimension, transform(dimension, sample));
   }
 
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    return countVisibleSamples(dimension);
+  }
+
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    return findVisibleSamples(dimension);
+  }
+
   private int[] transform(int[] pos) {
     final int[] newPos = new int[pos.length];
     for (int n = 0; n < pos.length; n++) {
@@ -95,35 +126,4 @@ public class SlicedCube extends DelegatedCube {
   private int transform(int dimension, int pos) {
     return pos + starts[dimension];
   }
-
-  private Double getMinMax(boolean isMin, String... measures) {
-    int maxIndex = 1;
-    for (int d = 0; d < getDimensionCount(); d++) {
-      maxIndex *= getSampleCount(d);
-    }
-
-    Double result = null;
-    final int[] pos = new int[getDimensionCount()];
-    for (int n = 0; n < maxIndex; n++) {
-      int index = n;
-      for (int i = 0; i < getDimensionCount(); i++) {
-        final int c = getSampleCount(i);
-        pos[i] = index % c + starts[i];
-        index /= c;
-      }
-      for (String measure : measures) {
-        final Double value = cube.get(measure, pos);
-        if (value != null) {
-          if (result == null) {
-            result = value;
-          } else if (isMin) {
-            result = Math.min(result, value);
-          } else {
-            result = Math.max(result, value);
-          }
-        }
-      }
-    }
-    return result;
-  }
 }
@@ -0,0 +1,183 @@
+package com.instantolap.charts.impl.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+
+/**
+ * Values of a measure by ordinal, for cubes where most cells are empty. The
+ * ordinals and values are kept in two primitive arrays with open addressing
+ * and linear probing. Missing values are NaN, like in the dense arrays.
+ */
+@SuppressWarnings("serial")
+class SparseValues implements Serializable {
+
+  private static final int FREE = -1;
+
+  private int[] keys;
+  private double[] values;
+  private int count;
+
+  SparseValues() {
+    this(16);
+  }
+
+  SparseValues(int capacity) {
+    int slots = 16;
+    while (slots < capacity * 2) {
+      slots *= 2;
+    }
+    keys = new int[slots];
+    values = new double[slots];
+    Arrays.fill(keys, FREE);
+  }
+
+  /**
+   * Collects the values of a dense array that are not NaN.
+   */
+  static SparseValues of(double[] dense, int count) {
+    final SparseValues result = new SparseValues(count);
+    for (int n = 0; n < dense.length; n++) {
+      if (!Double.isNaN(dense[n])) {
+        result.set(n, dense[n]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of values that are not NaN.
+   */
+  int size() {
+    return count;
+  }
+
+  double get(int ord) {
+    final int mask = keys.length - 1;
+    for (int slot = hash(ord) & mask; ; slot = (slot + 1) & mask) {
+      final int key = keys[slot];
+      if (key == ord) {
+        return values[slot];
+      } else if (key == FREE) {
+        return Double.NaN;
+      }
+    }
+  }
+
+  /**
+   * Sets a value, NaN removes it.
+   */
+  void set(int ord, double v) {
+    if (Double.isNaN(v)) {
+      remove(ord);
+      return;
+    }
+
+    final int mask = keys.length - 1;
+    int slot = hash(ord) & mask;
+    while (keys[slot] != FREE) {
+      if (keys[slot] == ord) {
+        values[slot] = v;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    keys[slot] = ord;
+    values[slot] = v;
+    if (++count * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  /**
+   * Returns the values in a dense array of the given size.
+   */
+  double[] toDense(int size) {
+    final double[] result = new double[size];
+    Arrays.fill(result, Double.NaN);
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != FREE) {
+        result[keys[slot]] = values[slot];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Moves every value to the ordinal n + (n / interval) * gap, like when a
+   * gap of empty cells is inserted after every interval cells.
+   */
+  SparseValues reorganize(int interval, int gap) {
+    final SparseValues result = new SparseValues(count);
+    for (int slot = 0; slot < keys.length; slot++) {
+      final int key = keys[slot];
+      if (key != FREE) {
+        result.set(key + (key / interval) * gap, values[slot]);
+      }
+    }
+    return result;
+  }
+
+  // slots are iterated by index, free slots have a negative ordinal
+
+  int getSlotCount() {
+    return keys.length;
+  }
+
+  int getOrdinal(int slot) {
+    return keys[slot];
+  }
+
+  double getValue(int slot) {
+    return values[slot];
+  }
+
+  private void remove(int ord) {
+    final int mask = keys.length - 1;
+    int slot = hash(ord) & mask;
+    while (keys[slot] != ord) {
+      if (keys[slot] == FREE) {
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    count--;
+
+    // move following entries back, so that no probe sequence is broken
+    int next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      final int key = keys[next];
+      if (key == FREE) {
+        break;
+      }
+      final int home = hash(key) & mask;
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        keys[slot] = key;
+        values[slot] = values[next];
+        slot = next;
+      }
+    }
+    keys[slot] = FREE;
+  }
+
+  private void resize(int slots) {
+    final int[] oldKeys = keys;
+    final double[] oldValues = values;
+    keys = new int[slots];
+    values = new double[slots];
+    Arrays.fill(keys, FREE);
+    count = 0;
+    for (int slot = 0; slot < oldKeys.length; slot++) {
+      if (oldKeys[slot] != FREE) {
+        set(oldKeys[slot], oldValues[slot]);
+      }
+    }
+  }
+
+  private static int hash(int ord) {
+    final int h = ord * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,605 @@
+package com.instantolap.charts.impl.data;
+
+import com.instantolap.charts.MeasureStatistics;
+import com.instantolap.charts.WriteableCube;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Cube with a fixed number of rows in dimension 0. New rows are appended
+ * with addSample(0, ...), the oldest row is dropped once the capacity is
+ * reached. All other dimensions have to be declared before the first row.
+ */
+@SuppressWarnings("serial")
+public class StreamingCube extends BasicCube implements WriteableCube {
+
+  private final int capacity;
+  private final String[][] rows;
+  private final boolean[] rowVisibilities;
+  private int head;
+  private int rowCount;
+
+  private String[][][] dimensions = new String[1][][];
+  private boolean[][] visibilities = new boolean[1][];
+  private int[] strides = new int[]{0};
+  private int seriesSize = 1;
+
+  private Map<String, Integer> measureIds = new HashMap<>();
+  private double[][] measureValues = new double[0][];
+  private RowStatistics[] statistics = new RowStatistics[0];
+  private Map<String, String[]> stringMeasureValues = new HashMap<>();
+
+  public StreamingCube(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.rows = new String[capacity][];
+    this.rowVisibilities = new boolean[capacity];
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public void clear() {
+    final int count = rowCount;
+    for (int n = 0; n < rowCount; n++) {
+      clearSlot(getSlot(n));
+    }
+    head = 0;
+    rowCount = 0;
+    modified();
+
+    if (count > 0) {
+      fireRowsEvicted(count);
+    }
+  }
+
+  @Override
+  public void setDimensionSize(int axis, int size) {
+    if (axis == 0) {
+      return;
+    }
+
+    final String[][] samples = getSamples(axis);
+    if (samples == null || samples.length < size) {
+      final String[][] newSamples = new String[size][2];
+      if (samples != null) {
+        System.arraycopy(samples, 0, newSamples, 0, samples.length);
+      }
+      setDimension(axis, newSamples);
+    }
+  }
+
+  @Override
+  public void addSample(int axis, String sample) {
+    addSample(axis, sample, sample);
+  }
+
+  @Override
+  public void addSample(int axis, String sample, String id) {
+    if (axis == 0) {
+      final int evicted = append(sample, id);
+      if (evicted > 0) {
+        fireRowsEvicted(evicted);
+      }
+      fireRowsAppended(rowCount - 1, 1);
+      return;
+    }
+
+    final String[][] samples = getSamples(axis);
+    final String[] newSample = new String[]{sample, id};
+    if (samples == null) {
+      setDimension(axis, new String[][]{newSample});
+    } else {
+      final String[][] newSamples = Arrays.copyOf(samples, samples.length + 1);
+      newSamples[samples.length] = newSample;
+      setDimension(axis, newSamples);
+    }
+  }
+
+  @Override
+  public void setSamples(int axis, String[] samples, String[] ids) {
+    if (ids != null && ids.length != samples.length) {
+      throw new IllegalArgumentException("Sample and id count differ");
+    }
+
+    if (axis == 0) {
+      clear();
+      for (int n = Math.max(samples.length - capacity, 0); n < samples.length; n++) {
+        append(samples[n], ids != null ? ids[n] : samples[n]);
+      }
+      if (rowCount > 0) {
+        fireRowsAppended(0, rowCount);
+      }
+      return;
+    }
+
+    final String[][] newSamples = new String[samples.length][];
+    for (int n = 0; n < samples.length; n++) {
+      newSamples[n] = new String[]{samples[n], ids != null ? ids[n] : samples[n]};
+    }
+    setDimension(axis, newSamples);
+  }
+
+  @Override
+  public void setValues(String measure, double[] values) {
+    if (values.length != rowCount * seriesSize) {
+      throw new IllegalArgumentException(
+        "Measure '" + measure + "' has " + values.length + " values, cube size is " + rowCount * seriesSize);
+    }
+
+    final int id = getOrCreateMeasure(measure);
+    final double[] target = measureValues[id];
+    for (int s = 0; s < seriesSize; s++) {
+      for (int n = 0; n < rowCount; n++) {
+        target[getSlot(n) + capacity * s] = values[n + rowCount * s];
+      }
+    }
+    statistics[id] = new RowStatistics(target, capacity, seriesSize);
+    modified();
+    fireValuesChanged(measure);
+  }
+
+  @Override
+  public void set(String measure, Double v, int pos1) {
+    if (pos1 >= 0 && pos1 < rowCount) {
+      set(getOrCreateMeasure(measure), getSlot(pos1), v);
+      fireValuesChanged(measure);
+    }
+  }
+
+  @Override
+  public void set(String measure, Double v, int pos1, int pos2) {
+    final Integer index = getIndex(pos1, pos2);
+    if (index != null) {
+      set(getOrCreateMeasure(measure), index, v);
+      fireValuesChanged(measure);
+    }
+  }
+
+  @Override
+  public void set(String measure, Double v, int[] pos) {
+    final Integer index = getIndex(pos);
+    if (index != null) {
+      set(getOrCreateMeasure(measure), index, v);
+      fireValuesChanged(measure);
+    }
+  }
+
+  @Override
+  public void set(String measure, String v, int... pos) {
+    final Integer index = getIndex(pos);
+    if (index == null) {
+      return;
+    }
+
+    String[] values = stringMeasureValues.get(measure);
+    if (values == null) {
+      values = new String[capacity * seriesSize];
+      stringMeasureValues.put(measure, values);
+    }
+    values[index] = v;
+    modified();
+    fireValuesChanged(measure);
+  }
+
+  @Override
+  public int getDimensionCount() {
+    return dimensions.length;
+  }
+
+  @Override
+  public int getSampleCount(int dimension) {
+    if (dimension == 0) {
+      return rowCount;
+    }
+
+    final String[][] samples = getSamples(dimension);
+    if (samples == null) {
+      return 0;
+    }
+    return samples.length;
+  }
+
+  @Override
+  public String getSample(int dimension, int pos) {
+    if (dimension == 0) {
+      checkRow(pos);
+      return rows[getSlot(pos)][0];
+    }
+
+    final String[][] samples = getSamples(dimension);
+    if (samples == null) {
+      return null;
+    }
+    return samples[pos][0];
+  }
+
+  @Override
+  public String getSampleID(int dimension, int pos) {
+    if (dimension == 0) {
+      checkRow(pos);
+      return rows[getSlot(pos)][1];
+    }
+
+    final String[][] samples = getSamples(dimension);
+    if (samples == null) {
+      return null;
+    }
+    return samples[pos][1];
+  }
+
+  @Override
+  public Double get(String measure, int pos) {
+    return box(getDouble(getMeasureId(measure), pos));
+  }
+
+  @Override
+  public Double get(String measure, int pos1, int pos2) {
+    return box(getDouble(getMeasureId(measure), pos1, pos2));
+  }
+
+  @Override
+  public Double get(String measure, int[] pos) {
+    return box(getDouble(getMeasureId(measure), pos));
+  }
+
+  @Override
+  public int getMeasureId(String measure) {
+    final Integer id = measureIds.get(measure);
+    if (id == null) {
+      return -1;
+    }
+    return id;
+  }
+
+  @Override
+  public double getDouble(int measure, int pos) {
+    if (measure < 0 || pos < 0 || pos >= rowCount) {
+      return Double.NaN;
+    }
+    return measureValues[measure][getSlot(pos)];
+  }
+
+  @Override
+  public double getDouble(int measure, int pos1, int pos2) {
+    if (dimensions.length <= 1) {
+      return getDouble(measure, pos1);
+    } else if (measure < 0) {
+      return Double.NaN;
+    }
+
+    final Integer index = getIndex(pos1, pos2);
+    if (index == null) {
+      return Double.NaN;
+    }
+    return measureValues[measure][index];
+  }
+
+  @Override
+  public double getDouble(int measure, int[] pos) {
+    if (measure < 0) {
+      return Double.NaN;
+    }
+
+    final Integer index = getIndex(pos);
+    if (index == null) {
+      return Double.NaN;
+    }
+    return measureValues[measure][index];
+  }
+
+  @Override
+  public String getString(String measure, int... pos) {
+    final String[] values = stringMeasureValues.get(measure);
+    if (values == null) {
+      return null;
+    }
+
+    final Integer index = getIndex(pos);
+    if (index == null) {
+      return null;
+    }
+    return values[index];
+  }
+
+  @Override
+  public String[] getMeasures() {
+    final String[] measures = new String[measureValues.length];
+    for (Map.Entry<String, Integer> e : measureIds.entrySet()) {
+      measures[e.getValue()] = e.getKey();
+    }
+    return measures;
+  }
+
+  @Override
+  public String[] getStringMeasures() {
+    return stringMeasureValues.keySet().toArray(new String[0]);
+  }
+
+  @Override
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    final int id = getMeasureId(measure);
+    if (id < 0) {
+      return new MeasureStatistics();
+    }
+
+    return statistics[id].get(measureValues[id]);
+  }
+
+  @Override
+  public void setVisible(int dimension, int sample, boolean visible) {
+    if (dimension == 0) {
+      checkRow(sample);
+      rowVisibilities[getSlot(sample)] = visible;
+      return;
+    }
+
+    boolean[] dimensionVisibilities = visibilities[dimension];
+    if (dimensionVisibilities == null) {
+      dimensionVisibilities = new boolean[getSampleCount(dimension)];
+      Arrays.fill(dimensionVisibilities, true);
+      visibilities[dimension] = dimensionVisibilities;
+    }
+    dimensionVisibilities[sample] = visible;
+  }
+
+  @Override
+  public boolean isVisible(int dimension, int sample) {
+    if (dimension == 0) {
+      checkRow(sample);
+      return rowVisibilities[getSlot(sample)];
+    }
+
+    final boolean[] dimensionVisibilities = visibilities[dimension];
+    if (dimensionVisibilities == null) {
+      return true;
+    }
+    return dimensionVisibilities[sample];
+  }
+
+  private int append(String sample, String id) {
+    int evicted = 0;
+    if (rowCount == capacity) {
+      clearSlot(head);
+      head = (head + 1) % capacity;
+      rowCount--;
+      evicted = 1;
+    }
+
+    final int slot = getSlot(rowCount);
+    rows[slot] = new String[]{sample, id};
+    rowVisibilities[slot] = true;
+    rowCount++;
+    modified();
+    return evicted;
+  }
+
+  private void clearSlot(int slot) {
+    rows[slot] = null;
+    for (int m = 0; m < measureValues.length; m++) {
+      for (int s = 0; s < seriesSize; s++) {
+        set(m, slot + capacity * s, null);
+      }
+    }
+    for (String[] values : stringMeasureValues.values()) {
+      for (int s = 0; s < seriesSize; s++) {
+        values[slot + capacity * s] = null;
+      }
+    }
+  }
+
+  private void set(int id, int index, Double v) {
+    final double[] values = measureValues[id];
+    final double oldValue = values[index];
+    final double newValue = (v == null) ? Double.NaN : v;
+    values[index] = newValue;
+    statistics[id].update(index, oldValue, newValue);
+    modified();
+  }
+
+  private void checkRow(int pos) {
+    if (pos < 0 || pos >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + pos + " of " + rowCount);
+    }
+  }
+
+  private int getSlot(int pos) {
+    return (head + pos) % capacity;
+  }
+
+  private Integer getIndex(int pos1, int pos2) {
+    if (pos1 < 0 || pos1 >= rowCount) {
+      return null;
+    } else if (dimensions.length < 2) {
+      return getSlot(pos1);
+    } else if (pos2 < 0 || pos2 >= dimensions[1].length) {
+      return null;
+    }
+    return getSlot(pos1) + capacity * pos2;
+  }
+
+  private Integer getIndex(int[] pos) {
+    if (pos.length == 0 || pos[0] < 0 || pos[0] >= rowCount) {
+      return null;
+    }
+
+    int series = 0;
+    final int len = Math.min(pos.length, dimensions.length);
+    for (int n = 1; n < len; n++) {
+      if (pos[n] < 0 || pos[n] >= dimensions[n].length) {
+        return null;
+      }
+      series += strides[n] * pos[n];
+    }
+    return getSlot(pos[0]) + capacity * series;
+  }
+
+  private String[][] getSamples(int axis) {
+    if (axis < dimensions.length) {
+      return dimensions[axis];
+    }
+    return null;
+  }
+
+  private void setDimension(int axis, String[][] samples) {
+    if (rowCount > 0) {
+      throw new IllegalStateException("Dimension " + axis + " must be declared before the first row");
+    }
+
+    if (axis >= dimensions.length) {
+      dimensions = Arrays.copyOf(dimensions, axis + 1);
+      visibilities = Arrays.copyOf(visibilities, axis + 1);
+      for (int d = 1; d < dimensions.length; d++) {
+        if (dimensions[d] == null) {
+          dimensions[d] = new String[0][];
+        }
+      }
+    }
+    dimensions[axis] = samples;
+    visibilities[axis] = null;
+
+    // rebuild layout, the cube is still empty
+    strides = new int[dimensions.length];
+    seriesSize = 1;
+    for (int d = 1; d < dimensions.length; d++) {
+      strides[d] = seriesSize;
+      seriesSize *= dimensions[d].length;
+    }
+    for (int m = 0; m < measureValues.length; m++) {
+      measureValues[m] = createValues();
+      statistics[m] = new RowStatistics(measureValues[m], capacity, seriesSize);
+    }
+    stringMeasureValues.clear();
+    modified();
+    fireSamplesChanged(axis);
+  }
+
+  private int getOrCreateMeasure(String measure) {
+    final Integer id = measureIds.get(measure);
+    if (id != null) {
+      return id;
+    }
+
+    final int newId = measureValues.length;
+    measureValues = Arrays.copyOf(measureValues, newId + 1);
+    measureValues[newId] = createValues();
+    statistics = Arrays.copyOf(statistics, newId + 1);
+    statistics[newId] = new RowStatistics(measureValues[newId], capacity, seriesSize);
+    measureIds.put(measure, newId);
+    return newId;
+  }
+
+  private double[] createValues() {
+    final double[] values = new double[capacity * seriesSize];
+    Arrays.fill(values, Double.NaN);
+    return values;
+  }
+
+  private static Double box(double v) {
+    if (Double.isNaN(v)) {
+      return null;
+    }
+    return v;
+  }
+
+
+  /**
+   * Statistics of a measure, with the minimum and maximum kept per block of
+   * about the square root of the capacity in slots. Overwriting the extreme
+   * of a block, like evicting the oldest row, only marks this block, which
+   * is scanned again on the next request.
+   */
+  private static class RowStatistics implements Serializable {
+
+    private final int capacity;
+    private final int seriesSize;
+    private final int blockSize;
+    private final double[] mins;
+    private final double[] maxs;
+    private final boolean[] isDirty;
+    private double sum;
+    private int count;
+    private MeasureStatistics result;
+
+    RowStatistics(double[] values, int capacity, int seriesSize) {
+      this.capacity = capacity;
+      this.seriesSize = seriesSize;
+      this.blockSize = Math.max(1, (int) Math.sqrt(capacity));
+
+      final int blockCount = (capacity + blockSize - 1) / blockSize;
+      mins = new double[blockCount];
+      maxs = new double[blockCount];
+      isDirty = new boolean[blockCount];
+      Arrays.fill(isDirty, true);
+      for (double v : values) {
+        if (!Double.isNaN(v)) {
+          sum += v;
+          count++;
+        }
+      }
+    }
+
+    void update(int index, double oldValue, double newValue) {
+      final int block = (index % capacity) / blockSize;
+      if (!Double.isNaN(oldValue)) {
+        sum -= oldValue;
+        count--;
+        if (oldValue <= mins[block] || oldValue >= maxs[block]) {
+          isDirty[block] = true;
+        }
+      }
+      if (!Double.isNaN(newValue)) {
+        sum += newValue;
+        count++;
+        mins[block] = Math.min(mins[block], newValue);
+        maxs[block] = Math.max(maxs[block], newValue);
+      }
+      if (count == 0) {
+        sum = 0;
+      }
+      result = null;
+    }
+
+    MeasureStatistics get(double[] values) {
+      if (result == null) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int block = 0; block < isDirty.length; block++) {
+          if (isDirty[block]) {
+            scan(values, block);
+          }
+          min = Math.min(min, mins[block]);
+          max = Math.max(max, maxs[block]);
+        }
+        result = new MeasureStatistics(min, max, sum, count);
+      }
+      return result;
+    }
+
+    private void scan(double[] values, int block) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      final int start = block * blockSize;
+      final int end = Math.min(capacity, start + blockSize);
+      for (int s = 0; s < seriesSize; s++) {
+        for (int slot = start; slot < end; slot++) {
+          final double v = values[slot + capacity * s];
+          if (!Double.isNaN(v)) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+          }
+        }
+      }
+      mins[block] = min;
+      maxs[block] = max;
+      isDirty[block] = false;
+    }
+  }
+}
@@ -53,6 +53,27 @@ public class Theme {
     setColors(DEFAULT_PALETTE_2, DEFAULT_SCHEME_2B);
   }
 
+  /**
+   * Constructs a copy of the given theme, so that it can be changed or used
+   * on another thread without affecting the original.
+   */
+  public Theme(Theme theme) {
+    background = theme.background;
+    colors = copy(theme.colors);
+    outlineColor = theme.outlineColor;
+    baseLine = theme.baseLine;
+    horizontalGrid = copy(theme.horizontalGrid);
+    verticalGrid = copy(theme.verticalGrid);
+    baseFontSize = theme.baseFontSize;
+    baseFontName = theme.baseFontName;
+    textColor = theme.textColor;
+    animationEnabled = theme.animationEnabled;
+  }
+
+  private static ChartColor[] copy(ChartColor[] colors) {
+    return (colors != null) ? colors.clone() : null;
+  }
+
   public ChartColor getBackground() {
     return background;
   }
@@ -0,0 +1,94 @@
+package com.instantolap.charts.impl.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * Visibility of the samples of all dimensions, as a bit set of the hidden
+ * samples per dimension, so that samples are visible unless they have been
+ * hidden. The positions of the visible samples are cached until the next
+ * change.
+ */
+@SuppressWarnings("serial")
+public class Visibility implements Serializable {
+
+  private BitSet[] hidden = new BitSet[0];
+  private transient int[][] visibleSamples;
+  private transient int[] sampleCounts;
+
+  public boolean isVisible(int dimension, int sample) {
+    final BitSet[] hidden = this.hidden;
+    if (dimension >= hidden.length || hidden[dimension] == null) {
+      return true;
+    }
+    return !hidden[dimension].get(sample);
+  }
+
+  public synchronized void setVisible(int dimension, int sample, boolean visible) {
+    if (dimension >= hidden.length) {
+      if (visible) {
+        return;
+      }
+      final BitSet[] newHidden = new BitSet[dimension + 1];
+      System.arraycopy(hidden, 0, newHidden, 0, hidden.length);
+      hidden = newHidden;
+    }
+    if (hidden[dimension] == null) {
+      if (visible) {
+        return;
+      }
+      hidden[dimension] = new BitSet();
+    }
+
+    if (hidden[dimension].get(sample) == visible) {
+      hidden[dimension].set(sample, !visible);
+      if (visibleSamples != null && dimension < visibleSamples.length) {
+        visibleSamples[dimension] = null;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of visible samples among the first sampleCount ones.
+   */
+  public int getVisibleSampleCount(int dimension, int sampleCount) {
+    return getVisibleSamples(dimension, sampleCount).length;
+  }
+
+  /**
+   * Returns the positions of the visible samples among the first
+   * sampleCount ones, in ascending order. The array must not be changed.
+   */
+  public synchronized int[] getVisibleSamples(int dimension, int sampleCount) {
+    if (visibleSamples == null) {
+      visibleSamples = new int[dimension + 1][];
+      sampleCounts = new int[dimension + 1];
+    } else if (visibleSamples.length <= dimension) {
+      visibleSamples = Arrays.copyOf(visibleSamples, dimension + 1);
+      sampleCounts = Arrays.copyOf(sampleCounts, dimension + 1);
+    }
+
+    int[] result = visibleSamples[dimension];
+    if (result == null || sampleCounts[dimension] != sampleCount) {
+      result = collect(dimension, sampleCount);
+      visibleSamples[dimension] = result;
+      sampleCounts[dimension] = sampleCount;
+    }
+    return result;
+  }
+
+  private int[] collect(int dimension, int sampleCount) {
+    final BitSet bits = (dimension < hidden.length) ? hidden[dimension] : null;
+    final int hiddenCount = (bits == null) ? 0 : bits.get(0, sampleCount).cardinality();
+    final int[] result = new int[sampleCount - hiddenCount];
+    int next = 0;
+    for (int n = 0; n < sampleCount; n++) {
+      if (bits == null || !bits.get(n)) {
+        result[next++] = n;
+      }
+    }
+    return result;
+  }
+}
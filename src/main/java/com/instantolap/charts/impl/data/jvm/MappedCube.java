@@ -0,0 +1,492 @@
+package com.instantolap.charts.impl.data.jvm;
+
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.MeasureStatistics;
+import com.instantolap.charts.impl.data.BasicCube;
+import com.instantolap.charts.impl.data.CubeImpl;
+import com.instantolap.charts.impl.data.Dimension;
+import com.instantolap.charts.impl.data.Visibility;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Read-only cube on a file in the binary cube format. The values are mapped
+ * into memory and read from the file pages, so opening a large cube does
+ * not copy them onto the heap, and several JVMs on the same host share the
+ * pages. Only the samples and the dictionaries of string measures are read.
+ * <p>
+ * The file is written by write. All numbers are little-endian:
+ * </p>
+ * <pre>
+ * "ICUB", version, header length
+ * header: dimension count, per dimension the sample count and
+ *         all samples as label and id,
+ *         measure count, measure names,
+ *         string measure count, per string measure the name and the
+ *         dictionary of its values,
+ *         padding to 8 bytes
+ * one column of doubles per measure, NaN for missing values
+ * one column of ints per string measure, indices into the dictionary
+ *         or -1 for missing values
+ * </pre>
+ * <p>
+ * Strings are written as their UTF-8 byte count, or -1 for null, followed by
+ * the bytes. The columns are laid out like in CubeImpl. A file must not be
+ * changed while it is open, so new versions should be written to another
+ * file and renamed. Not available in GWT.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class MappedCube extends BasicCube {
+
+  private static final int MAGIC = 'I' | 'C' << 8 | 'U' << 16 | 'B' << 24;
+  private static final int VERSION = 1;
+  private static final int PREFIX_LENGTH = 12;
+
+  private final File file;
+  private final Visibility visibility = new Visibility();
+  private transient Dimension[] dimensions;
+  private transient int[] strides;
+  private transient int size;
+  private transient String[] measures;
+  private transient Map<String, Integer> measureIds;
+  private transient DoubleBuffer[] columns;
+  private transient MeasureStatistics[] statistics;
+  private transient String[] stringMeasures;
+  private transient Map<String, Integer> stringMeasureIds;
+  private transient String[][] dictionaries;
+  private transient IntBuffer[] codes;
+
+  public MappedCube(File file) throws IOException {
+    this.file = file;
+    map();
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public Dimension getDimension(int dimension) {
+    if (dimension >= dimensions.length) {
+      return null;
+    }
+    return dimensions[dimension];
+  }
+
+  /**
+   * Writes the samples and all numeric and string measures of the cube in
+   * the binary cube format. Visibilities are not written.
+   */
+  public static void write(Cube cube, File file) throws IOException {
+    try (OutputStream out = new FileOutputStream(file)) {
+      write(cube, out);
+    }
+  }
+
+  public static void write(Cube cube, OutputStream out) throws IOException {
+    final int dimensionCount = cube.getDimensionCount();
+    final int[] sizes = new int[dimensionCount];
+    long size = 1;
+    for (int d = 0; d < dimensionCount; d++) {
+      sizes[d] = cube.getSampleCount(d);
+      size *= sizes[d];
+    }
+    if (size > Integer.MAX_VALUE / 8) {
+      throw new IOException("Cube has too many values: " + size);
+    }
+
+    final ByteArrayOutputStream header = new ByteArrayOutputStream();
+    writeInt(header, dimensionCount);
+    for (int d = 0; d < dimensionCount; d++) {
+      writeInt(header, sizes[d]);
+      for (int n = 0; n < sizes[d]; n++) {
+        writeString(header, cube.getSample(d, n));
+        writeString(header, cube.getSampleID(d, n));
+      }
+    }
+
+    final String[] measures = cube.getMeasures();
+    writeInt(header, measures.length);
+    for (String measure : measures) {
+      writeString(header, measure);
+    }
+
+    // string measures are encoded before the header is complete
+    final String[] stringMeasures = cube.getStringMeasures();
+    final int[][] codes = new int[stringMeasures.length][];
+    writeInt(header, stringMeasures.length);
+    for (int m = 0; m < stringMeasures.length; m++) {
+      final Map<String, Integer> dictionary = new HashMap<>();
+      final String[] values = new String[(int) size];
+      final int[] pos = new int[dimensionCount];
+      codes[m] = new int[(int) size];
+      for (int ord = 0; ord < size; ord++) {
+        final String v = cube.getString(stringMeasures[m], pos);
+        if (v == null) {
+          codes[m][ord] = -1;
+        } else {
+          Integer code = dictionary.get(v);
+          if (code == null) {
+            code = dictionary.size();
+            dictionary.put(v, code);
+            values[code] = v;
+          }
+          codes[m][ord] = code;
+        }
+        next(pos, sizes);
+      }
+
+      writeString(header, stringMeasures[m]);
+      writeInt(header, dictionary.size());
+      for (int n = 0; n < dictionary.size(); n++) {
+        writeString(header, values[n]);
+      }
+    }
+    while ((PREFIX_LENGTH + header.size()) % 8 != 0) {
+      header.write(0);
+    }
+
+    final ByteBuffer prefix = ByteBuffer.allocate(PREFIX_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    prefix.putInt(MAGIC).putInt(VERSION).putInt(header.size());
+    out.write(prefix.array());
+    header.writeTo(out);
+
+    // columns
+    final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    for (String measure : measures) {
+      final int id = cube.getMeasureId(measure);
+      final double[] values = (cube instanceof CubeImpl) ? ((CubeImpl) cube).getValues(id) : null;
+      final int[] pos = new int[dimensionCount];
+      for (int ord = 0; ord < size; ord++) {
+        if (buffer.remaining() < 8) {
+          flush(buffer, out);
+        }
+        if (values != null) {
+          buffer.putDouble(values[ord]);
+        } else {
+          buffer.putDouble(cube.getDouble(id, pos));
+          next(pos, sizes);
+        }
+      }
+    }
+    for (int[] column : codes) {
+      for (int code : column) {
+        if (buffer.remaining() < 4) {
+          flush(buffer, out);
+        }
+        buffer.putInt(code);
+      }
+    }
+    flush(buffer, out);
+    out.flush();
+  }
+
+  @Override
+  public int getDimensionCount() {
+    return dimensions.length;
+  }
+
+  @Override
+  public int getSampleCount(int dimension) {
+    if (dimension >= dimensions.length) {
+      return 0;
+    }
+    return dimensions[dimension].size();
+  }
+
+  @Override
+  public String getSample(int dimension, int pos) {
+    if (dimension >= dimensions.length) {
+      return null;
+    }
+    return dimensions[dimension].getLabel(pos);
+  }
+
+  @Override
+  public String getSampleID(int dimension, int pos) {
+    if (dimension >= dimensions.length) {
+      return null;
+    }
+    return dimensions[dimension].getID(pos);
+  }
+
+  @Override
+  public Double get(String measure, int pos) {
+    return box(getDouble(getMeasureId(measure), pos));
+  }
+
+  @Override
+  public Double get(String measure, int pos1, int pos2) {
+    return box(getDouble(getMeasureId(measure), pos1, pos2));
+  }
+
+  @Override
+  public Double get(String measure, int[] pos) {
+    return box(getDouble(getMeasureId(measure), pos));
+  }
+
+  @Override
+  public int getMeasureId(String measure) {
+    final Integer id = measureIds.get(measure);
+    if (id == null) {
+      return -1;
+    }
+    return id;
+  }
+
+  @Override
+  public double getDouble(int measure, int pos) {
+    if (measure < 0 || dimensions.length == 0) {
+      return Double.NaN;
+    } else if (pos < 0 || pos >= dimensions[0].size()) {
+      return Double.NaN;
+    }
+    return columns[measure].get(pos);
+  }
+
+  @Override
+  public double getDouble(int measure, int pos1, int pos2) {
+    if (dimensions.length <= 1) {
+      return getDouble(measure, pos1);
+    } else if (measure < 0) {
+      return Double.NaN;
+    } else if (pos1 < 0 || pos1 >= dimensions[0].size()) {
+      return Double.NaN;
+    } else if (pos2 < 0 || pos2 >= dimensions[1].size()) {
+      return Double.NaN;
+    }
+    return columns[measure].get(pos1 + strides[1] * pos2);
+  }
+
+  @Override
+  public double getDouble(int measure, int[] pos) {
+    if (measure < 0) {
+      return Double.NaN;
+    }
+    final int ord = getOrdinal(pos);
+    if (ord < 0) {
+      return Double.NaN;
+    }
+    return columns[measure].get(ord);
+  }
+
+  @Override
+  public String getString(String measure, int... pos) {
+    final Integer id = stringMeasureIds.get(measure);
+    if (id == null) {
+      return null;
+    }
+    final int ord = getOrdinal(pos);
+    if (ord < 0) {
+      return null;
+    }
+    final int code = codes[id].get(ord);
+    return (code < 0) ? null : dictionaries[id][code];
+  }
+
+  @Override
+  public String[] getMeasures() {
+    return measures.clone();
+  }
+
+  @Override
+  public String[] getStringMeasures() {
+    return stringMeasures.clone();
+  }
+
+  @Override
+  protected MeasureStatistics getMeasureStatistics(String measure) {
+    final int id = getMeasureId(measure);
+    if (id < 0) {
+      return new MeasureStatistics();
+    }
+
+    MeasureStatistics result = statistics[id];
+    if (result == null) {
+      result = new MeasureStatistics();
+      final DoubleBuffer column = columns[id];
+      for (int n = 0; n < size; n++) {
+        result.add(column.get(n));
+      }
+      statistics[id] = result;
+    }
+    return result;
+  }
+
+  @Override
+  public void setVisible(int dimension, int sample, boolean visible) {
+    visibility.setVisible(dimension, sample, visible);
+  }
+
+  @Override
+  public boolean isVisible(int dimension, int sample) {
+    return visibility.isVisible(dimension, sample);
+  }
+
+  @Override
+  public int getVisibleSampleCount(int dimension) {
+    return visibility.getVisibleSampleCount(dimension, getSampleCount(dimension));
+  }
+
+  @Override
+  public int[] getVisibleSamples(int dimension) {
+    return visibility.getVisibleSamples(dimension, getSampleCount(dimension));
+  }
+
+  private int getOrdinal(int[] pos) {
+    int ord = 0;
+    final int len = Math.min(pos.length, dimensions.length);
+    for (int n = 0; n < len; n++) {
+      if (pos[n] < 0 || pos[n] >= dimensions[n].size()) {
+        return -1;
+      }
+      ord += strides[n] * pos[n];
+    }
+    return ord;
+  }
+
+  private void map() throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final ByteBuffer prefix = read(channel, 0, PREFIX_LENGTH);
+      if (prefix.getInt() != MAGIC) {
+        throw new IOException("Not a cube file: " + file);
+      } else if (prefix.getInt() != VERSION) {
+        throw new IOException("Unsupported cube file version: " + file);
+      }
+      final int headerLength = prefix.getInt();
+      final ByteBuffer header = read(channel, PREFIX_LENGTH, headerLength);
+
+      dimensions = new Dimension[header.getInt()];
+      strides = new int[dimensions.length];
+      size = 1;
+      for (int d = 0; d < dimensions.length; d++) {
+        final String[] labels = new String[header.getInt()];
+        final String[] ids = new String[labels.length];
+        for (int n = 0; n < labels.length; n++) {
+          labels[n] = readString(header);
+          ids[n] = readString(header);
+        }
+        dimensions[d] = new Dimension(labels, ids);
+        strides[d] = size;
+        size *= labels.length;
+      }
+
+      measures = new String[header.getInt()];
+      measureIds = new HashMap<>();
+      for (int m = 0; m < measures.length; m++) {
+        measures[m] = readString(header);
+        measureIds.put(measures[m], m);
+      }
+
+      stringMeasures = new String[header.getInt()];
+      stringMeasureIds = new HashMap<>();
+      dictionaries = new String[stringMeasures.length][];
+      for (int m = 0; m < stringMeasures.length; m++) {
+        stringMeasures[m] = readString(header);
+        stringMeasureIds.put(stringMeasures[m], m);
+        dictionaries[m] = new String[header.getInt()];
+        for (int n = 0; n < dictionaries[m].length; n++) {
+          dictionaries[m][n] = readString(header);
+        }
+      }
+
+      long offset = PREFIX_LENGTH + headerLength;
+      final long length = offset + 8L * size * measures.length + 4L * size * stringMeasures.length;
+      if (channel.size() < length) {
+        throw new IOException("Cube file is truncated: " + file);
+      }
+
+      // the mappings stay valid after the channel is closed
+      columns = new DoubleBuffer[measures.length];
+      for (int m = 0; m < columns.length; m++) {
+        columns[m] = channel.map(FileChannel.MapMode.READ_ONLY, offset, 8L * size)
+          .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        offset += 8L * size;
+      }
+      codes = new IntBuffer[stringMeasures.length];
+      for (int m = 0; m < codes.length; m++) {
+        codes[m] = channel.map(FileChannel.MapMode.READ_ONLY, offset, 4L * size)
+          .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        offset += 4L * size;
+      }
+      statistics = new MeasureStatistics[measures.length];
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    map();
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+    throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Cube file is truncated");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    final String s = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return s;
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, int v) {
+    out.write(v);
+    out.write(v >>> 8);
+    out.write(v >>> 16);
+    out.write(v >>> 24);
+  }
+
+  private static void writeString(ByteArrayOutputStream out, String s) {
+    if (s == null) {
+      writeInt(out, -1);
+      return;
+    }
+    final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeInt(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static void flush(ByteBuffer buffer, OutputStream out) throws IOException {
+    out.write(buffer.array(), 0, buffer.position());
+    buffer.clear();
+  }
+
+  private static void next(int[] pos, int[] sizes) {
+    for (int d = 0; d < pos.length; d++) {
+      if (++pos[d] < sizes[d]) {
+        return;
+      }
+      pos[d] = 0;
+    }
+  }
+
+  private static Double box(double v) {
+    if (Double.isNaN(v)) {
+      return null;
+    }
+    return v;
+  }
+}
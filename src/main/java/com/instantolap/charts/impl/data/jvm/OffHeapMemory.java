@@ -0,0 +1,183 @@
+package com.instantolap.charts.impl.data.jvm;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * Budget for the memory that cubes keep outside of the heap. The memory is
+ * allocated as direct buffers of at most 1 GB and counted until it is
+ * released. Released buffers are freed right away where the JVM allows it,
+ * otherwise when they are collected.
+ * <p>
+ * Cubes should be closed to release their memory. Memory of columns that
+ * are garbage collected without having been released, like the ones of a
+ * cube that is never closed, is given back to the budget by the next
+ * allocate or getUsed, and freed when the buffers are collected.
+ * </p>
+ * The class is thread-safe.
+ */
+public class OffHeapMemory {
+
+  static final int CHUNK_BYTES = 1 << 30;
+
+  private static final OffHeapMemory DEFAULT = new OffHeapMemory(Long.MAX_VALUE);
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    try {
+      final Class<?> type = Class.forName("sun.misc.Unsafe");
+      final Field field = type.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (Exception e) {
+      // before Java 9
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+  }
+
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private final Set<Allocation> allocations = new HashSet<>();
+  private long budget;
+  private long used;
+
+  public OffHeapMemory(long budget) {
+    setBudget(budget);
+  }
+
+  /**
+   * Returns the memory used by cubes that are not given one, with an
+   * unlimited budget.
+   */
+  public static OffHeapMemory getDefault() {
+    return DEFAULT;
+  }
+
+  public synchronized void setBudget(long budget) {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Memory budget must not be negative");
+    }
+    this.budget = budget;
+  }
+
+  public synchronized long getBudget() {
+    return budget;
+  }
+
+  public synchronized long getUsed() {
+    releaseCollected();
+    return used;
+  }
+
+  /**
+   * Allocates zeroed buffers with the given total size for the owner, in
+   * native byte order. They are counted until the allocation is released or
+   * the owner has been garbage collected. Throws an IllegalStateException if
+   * the budget would be exceeded.
+   */
+  Allocation allocate(Object owner, long bytes) {
+    final Allocation allocation = new Allocation(owner, collected, bytes);
+    synchronized (this) {
+      releaseCollected();
+      if (bytes > budget - used) {
+        throw new IllegalStateException(
+          "Off-heap budget of " + budget + " bytes exceeded, " + used + " bytes are used");
+      }
+      used += bytes;
+      allocations.add(allocation);
+    }
+
+    final ByteBuffer[] buffers = new ByteBuffer[(int) ((bytes + CHUNK_BYTES - 1) / CHUNK_BYTES)];
+    allocation.buffers = buffers;
+    try {
+      for (int n = 0; n < buffers.length; n++) {
+        final long size = Math.min(CHUNK_BYTES, bytes - (long) n * CHUNK_BYTES);
+        buffers[n] = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+      }
+    } catch (OutOfMemoryError e) {
+      release(allocation);
+      throw e;
+    }
+    return allocation;
+  }
+
+  /**
+   * Frees the buffers of the allocation and gives its memory back to the
+   * budget. Releasing an allocation twice has no effect.
+   */
+  void release(Allocation allocation) {
+    synchronized (this) {
+      if (!allocations.remove(allocation)) {
+        return;
+      }
+      used -= allocation.bytes;
+    }
+    for (ByteBuffer buffer : allocation.buffers) {
+      if (buffer != null) {
+        free(buffer);
+      }
+    }
+    allocation.buffers = null;
+  }
+
+  /**
+   * Gives back the memory of the allocations whose owners have been
+   * collected. Their buffers are not freed explicitly, since views of them
+   * may still be in use, but left to the garbage collector.
+   */
+  private void releaseCollected() {
+    Allocation allocation;
+    while ((allocation = (Allocation) collected.poll()) != null) {
+      if (allocations.remove(allocation)) {
+        used -= allocation.bytes;
+        allocation.buffers = null;
+      }
+    }
+  }
+
+  private static void free(ByteBuffer buffer) {
+    try {
+      if (INVOKE_CLEANER != null) {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+      } else {
+        final Method cleaner = buffer.getClass().getMethod("cleaner");
+        cleaner.setAccessible(true);
+        final Object c = cleaner.invoke(buffer);
+        c.getClass().getMethod("clean").invoke(c);
+      }
+    } catch (Exception e) {
+      // freed by the garbage collector
+    }
+  }
+
+
+  /**
+   * Buffers allocated for an owner, which are counted until they are
+   * released or the owner has been collected.
+   */
+  static class Allocation extends PhantomReference<Object> {
+
+    private final long bytes;
+    private volatile ByteBuffer[] buffers;
+
+    private Allocation(Object owner, ReferenceQueue<Object> queue, long bytes) {
+      super(owner, queue);
+      this.bytes = bytes;
+    }
+
+    ByteBuffer[] getBuffers() {
+      return buffers;
+    }
+  }
+}
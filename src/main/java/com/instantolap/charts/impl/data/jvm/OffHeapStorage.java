@@ -0,0 +1,50 @@
+package com.instantolap.charts.impl.data.jvm;
+
+import com.instantolap.charts.impl.data.MeasureStorage;
+
+
+/**
+ * Keeps the measures of a cube in direct buffers that are counted in an
+ * OffHeapMemory, and string measures as codes into a dictionary:
+ * <pre>
+ * CubeImpl cube = new CubeImpl(new OffHeapStorage(memory));
+ * ...
+ * cube.close();
+ * </pre>
+ * Not available in GWT. A deserialized storage uses the default memory.
+ */
+@SuppressWarnings("serial")
+public class OffHeapStorage implements MeasureStorage {
+
+  private transient OffHeapMemory memory;
+
+  public OffHeapStorage() {
+    this(OffHeapMemory.getDefault());
+  }
+
+  public OffHeapStorage(OffHeapMemory memory) {
+    this.memory = memory;
+  }
+
+  public OffHeapMemory getMemory() {
+    if (memory == null) {
+      memory = OffHeapMemory.getDefault();
+    }
+    return memory;
+  }
+
+  @Override
+  public Values createValues(int size) {
+    return new OffHeapValues(getMemory(), size);
+  }
+
+  @Override
+  public Values createValues(double[] values) {
+    return new OffHeapValues(getMemory(), values);
+  }
+
+  @Override
+  public Strings createStrings(int size) {
+    return new OffHeapStrings(getMemory(), size);
+  }
+}
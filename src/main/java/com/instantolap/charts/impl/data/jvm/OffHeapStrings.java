@@ -0,0 +1,155 @@
+package com.instantolap.charts.impl.data.jvm;
+
+import com.instantolap.charts.impl.data.MeasureStorage;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Values of a string measure by ordinal. Every distinct string is kept once
+ * in a dictionary on the heap, the cells only hold its index in direct
+ * buffers, -1 for null. Strings that are no longer used are dropped from
+ * the dictionary once it has grown to twice the number of cells, and when
+ * the column is reorganized.
+ */
+@SuppressWarnings("serial")
+class OffHeapStrings implements MeasureStorage.Strings {
+
+  private static final int SHIFT = 28;
+  private static final int MASK = (1 << SHIFT) - 1;
+
+  private final int size;
+  private final List<String> dictionary = new ArrayList<>();
+  private final Map<String, Integer> codes = new HashMap<>();
+  private transient OffHeapMemory memory;
+  private transient OffHeapMemory.Allocation allocation;
+  private transient IntBuffer[] chunks;
+
+  OffHeapStrings(OffHeapMemory memory, int size) {
+    this.size = size;
+    allocate(memory);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String get(int ord) {
+    final int code = getCode(ord);
+    return (code < 0) ? null : dictionary.get(code);
+  }
+
+  @Override
+  public void set(int ord, String v) {
+    int code = -1;
+    if (v != null) {
+      final Integer c = codes.get(v);
+      if (c != null) {
+        code = c;
+      } else {
+        if (dictionary.size() >= 2L * size + 16) {
+          compact();
+        }
+        code = dictionary.size();
+        dictionary.add(v);
+        codes.put(v, code);
+      }
+    }
+    chunks[ord >>> SHIFT].put(ord & MASK, code);
+  }
+
+  /**
+   * Copies the strings to new buffers of the given size, with a dictionary
+   * of the strings that are still used, and releases these.
+   */
+  @Override
+  public OffHeapStrings reorganize(int newSize, int interval, int gap) {
+    final OffHeapStrings result = new OffHeapStrings(memory, newSize);
+    for (int n = 0; n < size; n++) {
+      final int code = getCode(n);
+      if (code >= 0) {
+        result.set(n + (n / interval) * gap, dictionary.get(code));
+      }
+    }
+    release();
+    return result;
+  }
+
+  @Override
+  public void release() {
+    if (allocation != null) {
+      chunks = null;
+      memory.release(allocation);
+      allocation = null;
+    }
+  }
+
+  /**
+   * Drops the strings that are no longer used from the dictionary.
+   */
+  private void compact() {
+    final int[] newCodes = new int[dictionary.size()];
+    Arrays.fill(newCodes, -1);
+    final List<String> used = new ArrayList<>();
+    for (int n = 0; n < size; n++) {
+      final int code = getCode(n);
+      if (code >= 0) {
+        if (newCodes[code] < 0) {
+          newCodes[code] = used.size();
+          used.add(dictionary.get(code));
+        }
+        chunks[n >>> SHIFT].put(n & MASK, newCodes[code]);
+      }
+    }
+
+    dictionary.clear();
+    dictionary.addAll(used);
+    codes.clear();
+    for (int code = 0; code < used.size(); code++) {
+      codes.put(used.get(code), code);
+    }
+  }
+
+  private int getCode(int ord) {
+    return chunks[ord >>> SHIFT].get(ord & MASK);
+  }
+
+  private void allocate(OffHeapMemory memory) {
+    this.memory = memory;
+    allocation = memory.allocate(this, 4L * size);
+    final ByteBuffer[] buffers = allocation.getBuffers();
+    chunks = new IntBuffer[buffers.length];
+    for (int n = 0; n < buffers.length; n++) {
+      chunks[n] = buffers[n].asIntBuffer();
+      while (chunks[n].hasRemaining()) {
+        chunks[n].put(-1);
+      }
+    }
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    for (int n = 0; n < size; n++) {
+      out.writeInt(getCode(n));
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    allocate(OffHeapMemory.getDefault());
+    for (int n = 0; n < size; n++) {
+      chunks[n >>> SHIFT].put(n & MASK, in.readInt());
+    }
+  }
+}
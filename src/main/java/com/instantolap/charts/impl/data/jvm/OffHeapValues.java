@@ -0,0 +1,107 @@
+package com.instantolap.charts.impl.data.jvm;
+
+import com.instantolap.charts.impl.data.MeasureStorage;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+
+/**
+ * Values of a measure by ordinal in direct buffers, so that they do not
+ * take up heap. The memory is counted in an OffHeapMemory until release is
+ * called. Serialized values are read back into the default memory.
+ */
+@SuppressWarnings("serial")
+class OffHeapValues implements MeasureStorage.Values {
+
+  private static final int SHIFT = 27;
+  private static final int MASK = (1 << SHIFT) - 1;
+
+  private final int size;
+  private transient OffHeapMemory memory;
+  private transient OffHeapMemory.Allocation allocation;
+  private transient DoubleBuffer[] chunks;
+
+  /**
+   * Allocates the given number of values, all NaN.
+   */
+  OffHeapValues(OffHeapMemory memory, int size) {
+    this.size = size;
+    allocate(memory);
+    for (DoubleBuffer chunk : chunks) {
+      while (chunk.hasRemaining()) {
+        chunk.put(Double.NaN);
+      }
+    }
+  }
+
+  OffHeapValues(OffHeapMemory memory, double[] values) {
+    this.size = values.length;
+    allocate(memory);
+    for (int n = 0; n < chunks.length; n++) {
+      chunks[n].put(values, n << SHIFT, chunks[n].capacity());
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public double get(int ord) {
+    return chunks[ord >>> SHIFT].get(ord & MASK);
+  }
+
+  @Override
+  public void set(int ord, double v) {
+    chunks[ord >>> SHIFT].put(ord & MASK, v);
+  }
+
+  @Override
+  public OffHeapValues reorganize(int newSize, int interval, int gap) {
+    final OffHeapValues result = new OffHeapValues(memory, newSize);
+    for (int n = 0; n < size; n++) {
+      result.set(n + (n / interval) * gap, get(n));
+    }
+    release();
+    return result;
+  }
+
+  @Override
+  public void release() {
+    if (allocation != null) {
+      chunks = null;
+      memory.release(allocation);
+      allocation = null;
+    }
+  }
+
+  private void allocate(OffHeapMemory memory) {
+    this.memory = memory;
+    allocation = memory.allocate(this, 8L * size);
+    final ByteBuffer[] buffers = allocation.getBuffers();
+    chunks = new DoubleBuffer[buffers.length];
+    for (int n = 0; n < buffers.length; n++) {
+      chunks[n] = buffers[n].asDoubleBuffer();
+    }
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    for (int n = 0; n < size; n++) {
+      out.writeDouble(get(n));
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    allocate(OffHeapMemory.getDefault());
+    for (int n = 0; n < size; n++) {
+      set(n, in.readDouble());
+    }
+  }
+}
@@ -4,8 +4,14 @@ import com.instantolap.charts.Cube;
 import com.instantolap.charts.impl.data.CubeImpl;
 
 
+@SuppressWarnings("serial")
 public class AccumulateTransform extends BasicTransform {
 
+  @Override
+  public String[] getInputMeasures() {
+    return new String[]{Cube.MEASURE_VALUE};
+  }
+
   @Override
   public Cube transform(Cube cube) {
     final CubeImpl newCube = new CubeImpl();
@@ -0,0 +1,13 @@
+package com.instantolap.charts.impl.data.transform;
+
+/**
+ * Aggregates the rows of an aggregation job. This one aggregates all rows
+ * at once in the calling thread. Subclasses may split them into parts and
+ * merge the results, e.g. to run the parts in parallel.
+ */
+public class AggregationExecutor {
+
+  public Aggregator.Part execute(Aggregator.Job job) {
+    return job.aggregate(0, job.getRowCount());
+  }
+}
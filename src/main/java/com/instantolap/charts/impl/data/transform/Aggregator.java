@@ -0,0 +1,279 @@
+package com.instantolap.charts.impl.data.transform;
+
+import com.instantolap.charts.CellIterator;
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.impl.data.CubeImpl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+
+/**
+ * Aggregates a measure over the dimensions that are left out of a result.
+ * The cube is read once, in the order of its dense layout, and the values
+ * are collected in primitive arrays. The rows are aggregated by the
+ * executor, which may split them into parts that run in parallel. Of sparse
+ * cubes, only the cells that have a value are read.
+ */
+@SuppressWarnings("serial")
+public class Aggregator implements Serializable {
+
+  public static final int SUM = 0;
+  public static final int MIN = 1;
+  public static final int MAX = 2;
+  public static final int COUNT = 3;
+  public static final int AVG = 4;
+
+  private static final String[] NAMES = {"sum", "min", "max", "count", "avg"};
+
+  private static volatile AggregationExecutor executor = new AggregationExecutor();
+
+  private final int function;
+
+  public Aggregator(int function) {
+    if (function < 0 || function >= NAMES.length) {
+      throw new IllegalArgumentException("Unknown aggregation " + function);
+    }
+    this.function = function;
+  }
+
+  /**
+   * Returns the aggregation with the given name, e.g. "avg", or -1 if there
+   * is none.
+   */
+  public static int getFunction(String name) {
+    for (int n = 0; n < NAMES.length; n++) {
+      if (NAMES[n].equalsIgnoreCase(name)) {
+        return n;
+      }
+    }
+    return -1;
+  }
+
+  public int getFunction() {
+    return function;
+  }
+
+  /**
+   * Sets the executor that aggregates the rows of all aggregators. The
+   * default one aggregates them in the calling thread.
+   */
+  public static void setExecutor(AggregationExecutor executor) {
+    Aggregator.executor = executor;
+  }
+
+  public static AggregationExecutor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Returns the aggregated values of the measure for all combinations of the
+   * samples of the given dimensions. They are laid out as pos0 + size0 *
+   * (pos1 + size1 * ...), in the order of the given dimensions. Missing
+   * values are NaN, except for counts, which are 0.
+   */
+  public double[] aggregate(Cube cube, String measure, int[] dimensions) {
+    final Job job = new Job(cube, measure, dimensions);
+    if (job.rows == 0) {
+      return job.aggregate(0, 0).getResult();
+    } else if (job.isSparse) {
+      return job.cells().getResult();
+    }
+    return executor.execute(job).getResult();
+  }
+
+
+  /**
+   * The layout of a single aggregation. A row is a run of values of
+   * dimension 0, which are next to each other in the dense layout.
+   */
+  public class Job {
+    private final Cube cube;
+    private final int measure;
+    private final double[] values;
+    private final boolean isSparse;
+    private final int[] dimensions;
+    private final int[] sizes;
+    private final int[] strides;
+    private final int rowLength;
+    private final int rows;
+    private final int targetSize;
+
+    private Job(Cube cube, String measure, int[] dimensions) {
+      this.cube = cube;
+      this.measure = cube.getMeasureId(measure);
+      this.values = (cube instanceof CubeImpl) ? ((CubeImpl) cube).getValues(this.measure) : null;
+      this.isSparse = (cube instanceof CubeImpl) && ((CubeImpl) cube).isSparse(this.measure);
+      this.dimensions = dimensions;
+
+      final int dimensionCount = cube.getDimensionCount();
+      sizes = new int[dimensionCount];
+      int size = 1;
+      for (int d = 0; d < dimensionCount; d++) {
+        sizes[d] = cube.getSampleCount(d);
+        size *= sizes[d];
+      }
+
+      // position in the result per sample, 0 for aggregated dimensions
+      strides = new int[dimensionCount];
+      int targetSize = 1;
+      for (int d : dimensions) {
+        strides[d] = targetSize;
+        targetSize *= sizes[d];
+      }
+      this.targetSize = targetSize;
+
+      rowLength = (dimensionCount > 0) ? sizes[0] : 1;
+      rows = (this.measure < 0 || rowLength == 0) ? 0 : size / rowLength;
+    }
+
+    public int getRowCount() {
+      return rows;
+    }
+
+    public int getRowLength() {
+      return rowLength;
+    }
+
+    /**
+     * Returns the number of values of the result. Every part has arrays of
+     * this size.
+     */
+    public int getTargetSize() {
+      return targetSize;
+    }
+
+    private Part cells() {
+      final Part part = new Part(targetSize);
+      final CellIterator cells = cube.getCells(measure);
+      while (cells.next()) {
+        int target = 0;
+        for (int d : dimensions) {
+          target += cells.getPosition(d) * strides[d];
+        }
+        part.add(target, cells.getValue());
+      }
+      return part;
+    }
+
+    /**
+     * Aggregates the rows from firstRow to lastRow, exclusive. Parts of the
+     * same job can be aggregated in parallel and merged with add.
+     */
+    public Part aggregate(int firstRow, int lastRow) {
+      final Part part = new Part(targetSize);
+      if (firstRow >= lastRow) {
+        return part;
+      }
+
+      // position of the first row
+      final int[] pos = new int[sizes.length];
+      int base = 0;
+      int r = firstRow;
+      for (int d = 1; d < sizes.length; d++) {
+        pos[d] = r % sizes[d];
+        r /= sizes[d];
+        base += pos[d] * strides[d];
+      }
+
+      final int stride0 = (strides.length > 0) ? strides[0] : 0;
+      for (int row = firstRow; row < lastRow; row++) {
+        if (values != null) {
+          final int offset = row * rowLength;
+          for (int p0 = 0; p0 < rowLength; p0++) {
+            part.add(base + p0 * stride0, values[offset + p0]);
+          }
+        } else {
+          for (int p0 = 0; p0 < rowLength; p0++) {
+            if (pos.length > 0) {
+              pos[0] = p0;
+            }
+            part.add(base + p0 * stride0, cube.getDouble(measure, pos));
+          }
+        }
+
+        // next row
+        for (int d = 1; d < sizes.length; d++) {
+          base += strides[d];
+          if (++pos[d] < sizes[d]) {
+            break;
+          }
+          base -= strides[d] * sizes[d];
+          pos[d] = 0;
+        }
+      }
+      return part;
+    }
+  }
+
+
+  /**
+   * The aggregated values of some of the rows of a job.
+   */
+  public class Part {
+    private final double[] values;
+    private final int[] counts;
+
+    private Part(int size) {
+      values = new double[size];
+      counts = new int[size];
+      if (function == MIN) {
+        Arrays.fill(values, Double.POSITIVE_INFINITY);
+      } else if (function == MAX) {
+        Arrays.fill(values, Double.NEGATIVE_INFINITY);
+      }
+    }
+
+    private void add(int target, double v) {
+      if (Double.isNaN(v)) {
+        return;
+      }
+      counts[target]++;
+      switch (function) {
+        case MIN:
+          values[target] = Math.min(values[target], v);
+          break;
+        case MAX:
+          values[target] = Math.max(values[target], v);
+          break;
+        default:
+          values[target] += v;
+          break;
+      }
+    }
+
+    public Part add(Part other) {
+      for (int n = 0; n < values.length; n++) {
+        counts[n] += other.counts[n];
+        switch (function) {
+          case MIN:
+            values[n] = Math.min(values[n], other.values[n]);
+            break;
+          case MAX:
+            values[n] = Math.max(values[n], other.values[n]);
+            break;
+          default:
+            values[n] += other.values[n];
+            break;
+        }
+      }
+      return this;
+    }
+
+    private double[] getResult() {
+      final double[] result = new double[values.length];
+      for (int n = 0; n < result.length; n++) {
+        if (function == COUNT) {
+          result[n] = counts[n];
+        } else if (counts[n] == 0) {
+          result[n] = Double.NaN;
+        } else if (function == AVG) {
+          result[n] = values[n] / counts[n];
+        } else {
+          result[n] = values[n];
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -3,18 +3,19 @@ package com.instantolap.charts.impl.data.transform;
 import com.instantolap.charts.Cube;
 import com.instantolap.charts.Transformation;
 import com.instantolap.charts.impl.data.CubeImpl;
+import com.instantolap.charts.impl.data.Dimension;
 import com.instantolap.charts.impl.util.ArrayHelper;
 
+import java.io.Serializable;
 
-public abstract class BasicTransform implements Transformation {
+
+@SuppressWarnings("serial")
+public abstract class BasicTransform implements Transformation, Serializable {
 
   protected static void transferDimensions(Cube cube, CubeImpl newCube) {
-    // transfer dimensions
+    // share the samples
     for (int d = 0; d < cube.getDimensionCount(); d++) {
-      final int count = cube.getSampleCount(d);
-      for (int c0 = 0; c0 < count; c0++) {
-        newCube.addSample(d, cube.getSample(d, c0));
-      }
+      newCube.setDimension(d, Dimension.of(cube, d));
     }
   }
 
@@ -45,27 +46,4 @@ public abstract class BasicTransform implements Transformation {
     }
     return otherDimensions;
   }
-
-  protected static Double aggregate(Cube cube, int[] pos, int[] otherDimensions, int otherSize) {
-    Double result = null;
-    for (int n = 0; n < otherSize; n++) {
-
-      // fill pos with missing samples
-      int p = n;
-      for (final int d : otherDimensions) {
-        final int c = cube.getSampleCount(d);
-        pos[d] = p % c;
-        p /= c;
-      }
-
-      // aggregate value
-      final Double value = cube.get(Cube.MEASURE_VALUE, pos);
-      if (result == null) {
-        result = value;
-      } else if (value != null) {
-        result += value;
-      }
-    }
-    return result;
-  }
 }
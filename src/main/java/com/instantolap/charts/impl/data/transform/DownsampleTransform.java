@@ -0,0 +1,93 @@
+package com.instantolap.charts.impl.data.transform;
+
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.impl.data.ReducedCube;
+import com.instantolap.charts.impl.math.Downsampling;
+
+
+/**
+ * Reduces the samples of the first dimension to about count per series. The
+ * union of the kept samples of all series is kept, so all measures stay
+ * available. The samples are chosen by the measure and time only, but the
+ * result caches statistics of every measure, so it depends on all of them.
+ */
+@SuppressWarnings("serial")
+public class DownsampleTransform extends BasicTransform {
+
+  private final int count;
+  private final String measure;
+  private final boolean minMax;
+
+  public DownsampleTransform(int count, String measure, boolean minMax) {
+    this.count = count;
+    this.measure = measure;
+    this.minMax = minMax;
+  }
+
+  @Override
+  public Cube transform(Cube cube) {
+    final int dimensionCount = cube.getDimensionCount();
+    if (dimensionCount < 1 || dimensionCount > 2) {
+      return cube;
+    }
+
+    final int size0 = cube.getSampleCount(0);
+    if (size0 <= count) {
+      return cube;
+    }
+
+    final int m = cube.getMeasureId(measure);
+    final int time = cube.getMeasureId(Cube.MEASURE_TIME);
+    final int size1 = (dimensionCount > 1) ? cube.getSampleCount(1) : 1;
+
+    final double[] x = new double[size0];
+    final double[] y = new double[size0];
+    final int[] samples = new int[size0];
+    final int[] kept = new int[size0];
+    final boolean[] keep = new boolean[size0];
+
+    for (int c1 = 0; c1 < size1; c1++) {
+
+      // collect the points with values
+      int points = 0;
+      for (int c0 = 0; c0 < size0; c0++) {
+        final double value = cube.getDouble(m, c0, c1);
+        if (Double.isNaN(value)) {
+          continue;
+        }
+        final double t = (time >= 0) ? cube.getDouble(time, c0, c1) : c0;
+        x[points] = Double.isNaN(t) ? c0 : t;
+        y[points] = value;
+        samples[points] = c0;
+        points++;
+      }
+
+      final int keptCount;
+      if (minMax) {
+        final double width = (points > 0) ? (x[points - 1] - x[0]) * 2 / count : 0;
+        keptCount = (width > 0)
+          ? Downsampling.minMax(x, y, 0, points, width, kept, 0)
+          : Downsampling.lttb(x, y, 0, points, count, kept, 0);
+      } else {
+        keptCount = Downsampling.lttb(x, y, 0, points, count, kept, 0);
+      }
+      for (int n = 0; n < keptCount; n++) {
+        keep[samples[kept[n]]] = true;
+      }
+    }
+
+    int rows = 0;
+    final int[] keepSamples = new int[size0];
+    for (int c0 = 0; c0 < size0; c0++) {
+      if (keep[c0]) {
+        keepSamples[rows++] = c0;
+      }
+    }
+
+    final int[] sortedSamples = new int[rows];
+    System.arraycopy(keepSamples, 0, sortedSamples, 0, rows);
+    final ReducedCube newCube = new ReducedCube(cube);
+    newCube.keepSamples(0, sortedSamples);
+    return newCube;
+  }
+}
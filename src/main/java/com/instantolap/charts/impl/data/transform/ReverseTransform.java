@@ -1,9 +1,10 @@
 package com.instantolap.charts.impl.data.transform;
 
 import com.instantolap.charts.Cube;
-import com.instantolap.charts.impl.data.CubeImpl;
+import com.instantolap.charts.impl.data.PermutedCube;
 
 
+@SuppressWarnings("serial")
 public class ReverseTransform extends BasicTransform {
 
   private final int dimension;
@@ -12,41 +13,30 @@ public class ReverseTransform extends BasicTransform {
     this.dimension = dimension;
   }
 
+  @Override
+  public String[] getInputMeasures() {
+    return new String[0];
+  }
+
+  @Override
+  public int[] getInputDimensions() {
+    return new int[]{dimension};
+  }
+
   @Override
   public Cube transform(Cube cube) {
-    final CubeImpl newCube = new CubeImpl();
-
-    // transfer dimensions
-    for (int d = 0; d < cube.getDimensionCount(); d++) {
-      final int count = cube.getSampleCount(d);
-      for (int c0 = 0; c0 < count; c0++) {
-        if (d == dimension) {
-          newCube.addSample(d, cube.getSample(d, count - c0 - 1));
-        } else {
-          newCube.addSample(d, cube.getSample(d, c0));
-        }
-      }
+    if (dimension >= cube.getDimensionCount()) {
+      return cube;
     }
 
-    // transfer values
-    final int size = getSize(cube);
-    final int[] pos = new int[cube.getDimensionCount()];
-    final int[] targetPos = new int[cube.getDimensionCount()];
-    for (int n = 0; n < size; n++) {
-      int p = n;
-      for (int d = 0; d < pos.length; d++) {
-        final int count = cube.getSampleCount(d);
-        pos[d] = p % count;
-        p /= count;
-        if (d == dimension) {
-          targetPos[d] = count - pos[d] - 1;
-        } else {
-          targetPos[d] = pos[d];
-        }
-      }
-      final Double value = cube.get(Cube.MEASURE_VALUE, pos);
-      newCube.set(Cube.MEASURE_VALUE, value, targetPos);
+    final int count = cube.getSampleCount(dimension);
+    final int[] samples = new int[count];
+    for (int n = 0; n < count; n++) {
+      samples[n] = count - n - 1;
     }
+
+    final PermutedCube newCube = new PermutedCube(cube);
+    newCube.setSamples(dimension, samples);
     return newCube;
   }
 }
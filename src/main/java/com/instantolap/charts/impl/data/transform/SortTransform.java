@@ -1,85 +1,57 @@
 package com.instantolap.charts.impl.data.transform;
 
 import com.instantolap.charts.Cube;
-import com.instantolap.charts.impl.data.CubeImpl;
+import com.instantolap.charts.impl.data.PermutedCube;
 
+import java.util.Arrays;
 import java.util.TreeSet;
 
 
+@SuppressWarnings("serial")
 public class SortTransform extends BasicTransform {
 
   private final int dimension;
   private final int descending;
   private int limit = Integer.MAX_VALUE;
+  private final Aggregator aggregator;
 
 
   public SortTransform(int dimension, boolean descending, int limit) {
+    this(dimension, descending, limit, Aggregator.SUM);
+  }
+
+  public SortTransform(int dimension, boolean descending, int limit, int aggregation) {
     this.dimension = dimension;
     this.descending = descending ? -1 : 1;
     this.limit = limit;
+    this.aggregator = new Aggregator(aggregation);
   }
 
   @Override
-  public Cube transform(Cube cube) {
-    final CubeImpl newCube = new CubeImpl();
-
-    // build access key for rest
-    final int dimensionCount = cube.getDimensionCount();
-    final int[] otherDimensions = new int[dimensionCount - 1];
-    for (int n = 0; n < otherDimensions.length; n++) {
-      otherDimensions[n] = n + 1;
+  public String[] getInputMeasures() {
+    // with a limit, the result leaves samples out and caches its own
+    // statistics of every measure, which a change of any measure outdates
+    if (limit < Integer.MAX_VALUE) {
+      return null;
     }
-    final int otherSize = getSize(cube, otherDimensions);
+    return new String[]{Cube.MEASURE_VALUE};
+  }
 
-    final int[] dimensionCounts = new int[dimensionCount];
-    for (int d = 0; d < dimensionCount; d++) {
-      dimensionCounts[d] = cube.getSampleCount(d);
-    }
+  @Override
+  public Cube transform(Cube cube) {
 
     // find order
-    final int[] pos = new int[dimensionCount];
+    final int count = cube.getSampleCount(dimension);
+    final double[] values = aggregator.aggregate(cube, Cube.MEASURE_VALUE, new int[]{dimension});
     final TreeSet<IndexComparator> set = new TreeSet<>();
-    for (int n = 0; n < dimensionCounts[dimension]; n++) {
-      pos[dimension] = n;
-      final Double value = aggregate(cube, pos, otherDimensions, otherSize);
-      set.add(new IndexComparator(n, value));
+    for (int n = 0; n < count; n++) {
+      set.add(new IndexComparator(n, Double.isNaN(values[n]) ? null : values[n]));
     }
-
-    dimensionCounts[dimension] = Math.min(dimensionCounts[dimension],
-      limit
-    );
     final int[] order = buildList(set);
 
-    // transfer dimensions
-    for (int d = 0; d < cube.getDimensionCount(); d++) {
-      final int count = dimensionCounts[d];
-      for (int c0 = 0; c0 < count; c0++) {
-        if (d == dimension) {
-          newCube.addSample(d, cube.getSample(d, order[c0]));
-        } else {
-          newCube.addSample(d, cube.getSample(d, c0));
-        }
-      }
-    }
-
-    // transfer values
-    final int size = getSize(cube);
-    final int[] targetPos = new int[cube.getDimensionCount()];
-    for (int n = 0; n < size; n++) {
-      int p = n;
-      for (int d = 0; d < pos.length; d++) {
-        final int count = cube.getSampleCount(d);
-        targetPos[d] = p % count;
-        p /= count;
-        if (d == dimension) {
-          pos[d] = order[targetPos[d]];
-        } else {
-          pos[d] = targetPos[d];
-        }
-      }
-      final Double value = cube.get(Cube.MEASURE_VALUE, pos);
-      newCube.set(Cube.MEASURE_VALUE, value, targetPos);
-    }
+    // show the samples in this order
+    final PermutedCube newCube = new PermutedCube(cube);
+    newCube.setSamples(dimension, Arrays.copyOf(order, Math.min(count, limit)));
     return newCube;
   }
 
@@ -4,8 +4,14 @@ import com.instantolap.charts.Cube;
 import com.instantolap.charts.impl.data.CubeImpl;
 
 
+@SuppressWarnings("serial")
 public class StackedTransform extends BasicTransform {
 
+  @Override
+  public String[] getInputMeasures() {
+    return new String[]{Cube.MEASURE_VALUE, Cube.MEASURE_LINK};
+  }
+
   @Override
   public Cube transform(Cube cube) {
     if (cube.getDimensionCount() < 2) {
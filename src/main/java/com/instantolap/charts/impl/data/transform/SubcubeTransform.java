@@ -2,56 +2,57 @@ package com.instantolap.charts.impl.data.transform;
 
 import com.instantolap.charts.Cube;
 import com.instantolap.charts.impl.data.CubeImpl;
+import com.instantolap.charts.impl.data.Dimension;
+import com.instantolap.charts.impl.data.ProjectedCube;
 
 
+@SuppressWarnings("serial")
 public class SubcubeTransform extends BasicTransform {
 
   private final int[] dimensions;
+  private final Aggregator aggregator;
 
   public SubcubeTransform(int[] dimensions) {
+    this(dimensions, Aggregator.SUM);
+  }
+
+  public SubcubeTransform(int[] dimensions, int aggregation) {
     this.dimensions = dimensions;
+    this.aggregator = new Aggregator(aggregation);
+  }
+
+  @Override
+  public String[] getInputMeasures() {
+    return new String[]{Cube.MEASURE_VALUE};
   }
 
   @Override
   public Cube transform(Cube cube) {
+
+    // nothing to aggregate?
+    if (aggregator.getFunction() != Aggregator.COUNT && isProjection(cube)) {
+      return new ProjectedCube(cube, dimensions);
+    }
+
     final CubeImpl newCube = new CubeImpl();
 
     // transfer dimensions
     for (int n = 0; n < dimensions.length; n++) {
-      final int d = dimensions[n];
-      final int c = cube.getSampleCount(d);
-      for (int i = 0; i < c; i++) {
-        newCube.addSample(n, cube.getSample(d, i));
-      }
+      newCube.setDimension(n, Dimension.of(cube, dimensions[n]));
     }
 
     // transfer values
-    final int[] otherDimensions = getMissingDimensions(cube, dimensions);
-
-    final int newSize = getSize(cube, dimensions);
-    final int otherSize = getSize(cube, otherDimensions);
-
-    final int[] pos = new int[cube.getDimensionCount()];
-    final int[] targetPos = new int[dimensions.length];
-    for (int n = 0; n < newSize; n++) {
-
-      // build access key
-      int v = n;
-      for (int i = 0; i < dimensions.length; i++) {
-        final int d = dimensions[i];
-        final int c = cube.getSampleCount(d);
-        pos[d] = v % c;
-        targetPos[i] = pos[d];
-        v /= c;
-      }
+    newCube.setValues(Cube.MEASURE_VALUE,
+      aggregator.aggregate(cube, Cube.MEASURE_VALUE, dimensions));
+    return newCube;
+  }
 
-      // get aggregated value
-      final Double value = aggregate(cube, pos, otherDimensions, otherSize);
-      if (value != null) {
-        newCube.set(Cube.MEASURE_VALUE, value, targetPos);
+  private boolean isProjection(Cube cube) {
+    for (int d : getMissingDimensions(cube, dimensions)) {
+      if (cube.getSampleCount(d) != 1) {
+        return false;
       }
     }
-
-    return newCube;
+    return true;
   }
 }
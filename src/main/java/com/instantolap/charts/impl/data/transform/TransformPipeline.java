@@ -0,0 +1,208 @@
+package com.instantolap.charts.impl.data.transform;
+
+import com.instantolap.charts.Cube;
+import com.instantolap.charts.CubeListener;
+import com.instantolap.charts.Transformation;
+import com.instantolap.charts.impl.util.ArrayHelper;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Ordered list of transformations on a source cube. The result of every
+ * stage is kept, and only the stages that are out of date are calculated
+ * again when the result is requested.
+ * <p>
+ * Changes of the source are picked up through its listener: set values,
+ * changed samples and appended or evicted rows. A stage is calculated again
+ * if it reads the changed measure or dimension, and with it all stages
+ * after it. Stages that do not read it pass the change on, since their
+ * result may be a view on their input. Sources that do not fire these
+ * events, like cubes of other implementations, have to report their changes
+ * with invalidateMeasure or invalidateDimension.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class TransformPipeline implements Serializable {
+
+  private final List<Transformation> transformations = new ArrayList<>();
+  private final CubeListener sourceListener = new CubeListener() {
+    @Override
+    public void onRowsAppended(Cube cube, int first, int count) {
+      invalidateDimension(0);
+    }
+
+    @Override
+    public void onRowsEvicted(Cube cube, int count) {
+      invalidateDimension(0);
+    }
+
+    @Override
+    public void onValuesChanged(Cube cube, String measure) {
+      if (measure == null) {
+        invalidate();
+      } else {
+        invalidateMeasure(measure);
+      }
+    }
+
+    @Override
+    public void onSamplesChanged(Cube cube, int dimension) {
+      invalidateDimension(dimension);
+    }
+  };
+  private Cube source;
+  private transient Cube[] results = new Cube[0];
+  private transient boolean[] isValid = new boolean[0];
+  private transient String[][] inputMeasures = new String[0][];
+  private transient int[][] inputDimensions = new int[0][];
+
+  public TransformPipeline(Cube source) {
+    setSource(source);
+  }
+
+  public void setSource(Cube source) {
+    if (this.source != null) {
+      this.source.removeListener(sourceListener);
+    }
+    this.source = source;
+    if (source != null) {
+      source.addListener(sourceListener);
+    }
+    invalidate();
+  }
+
+  public Cube getSource() {
+    return source;
+  }
+
+  public void add(Transformation transformation) {
+    transformations.add(transformation);
+    final int stage = transformations.size() - 1;
+    results = Arrays.copyOf(getResults(), transformations.size());
+    isValid = Arrays.copyOf(isValid, transformations.size());
+    inputMeasures = Arrays.copyOf(inputMeasures, transformations.size());
+    inputMeasures[stage] = transformation.getInputMeasures();
+    inputDimensions = Arrays.copyOf(inputDimensions, transformations.size());
+    inputDimensions[stage] = transformation.getInputDimensions();
+  }
+
+  public void clear() {
+    transformations.clear();
+    results = new Cube[0];
+    isValid = new boolean[0];
+    inputMeasures = new String[0][];
+    inputDimensions = new int[0][];
+  }
+
+  public int size() {
+    return transformations.size();
+  }
+
+  public Transformation get(int stage) {
+    return transformations.get(stage);
+  }
+
+  /**
+   * Returns a pipeline with the same source and transformations, whose
+   * stages can be changed without affecting this one.
+   */
+  public TransformPipeline getCopy() {
+    final TransformPipeline copy = new TransformPipeline(source);
+    for (Transformation transformation : transformations) {
+      copy.add(transformation);
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the result of the last stage, or the source if there are no
+   * transformations.
+   */
+  public Cube getResult() {
+    return getResult(transformations.size() - 1);
+  }
+
+  /**
+   * Returns the result of the given stage, calculating it and the stages
+   * before it if they are out of date.
+   */
+  public Cube getResult(int stage) {
+    final Cube[] results = getResults();
+    Cube cube = source;
+    for (int n = 0; n <= stage; n++) {
+      if (!isValid[n]) {
+        results[n] = transformations.get(n).transform(cube);
+        isValid[n] = true;
+      }
+      cube = results[n];
+    }
+    return cube;
+  }
+
+  /**
+   * Marks all stages as out of date.
+   */
+  public void invalidate() {
+    invalidateFrom(0);
+  }
+
+  /**
+   * Marks the stages as out of date which read the given measure, and all
+   * stages after them. The scan stops at the first stage that is already
+   * out of date, since the ones after it are as well, so setting many cells
+   * between two results costs little.
+   */
+  public void invalidateMeasure(String measure) {
+    getResults();
+    for (int n = 0; n < isValid.length && isValid[n]; n++) {
+      final String[] measures = inputMeasures[n];
+      if (measures == null || ArrayHelper.contains(measures, measure)) {
+        invalidateFrom(n);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Marks the stages as out of date which read the given dimension, and all
+   * stages after them.
+   */
+  public void invalidateDimension(int dimension) {
+    getResults();
+    for (int n = 0; n < isValid.length && isValid[n]; n++) {
+      final int[] dimensions = inputDimensions[n];
+      if (dimensions == null || ArrayHelper.contains(dimensions, dimension)) {
+        invalidateFrom(n);
+        return;
+      }
+    }
+  }
+
+  private void invalidateFrom(int stage) {
+    final Cube[] results = getResults();
+    for (int n = stage; n < results.length; n++) {
+      results[n] = null;
+      isValid[n] = false;
+    }
+  }
+
+  private Cube[] getResults() {
+    // results and inputs are not serialized
+    if (results == null) {
+      final int size = transformations.size();
+      results = new Cube[size];
+      isValid = new boolean[size];
+      inputMeasures = new String[size][];
+      inputDimensions = new int[size][];
+      for (int n = 0; n < size; n++) {
+        inputMeasures[n] = transformations.get(n).getInputMeasures();
+        inputDimensions[n] = transformations.get(n).getInputDimensions();
+      }
+    }
+    return results;
+  }
+}
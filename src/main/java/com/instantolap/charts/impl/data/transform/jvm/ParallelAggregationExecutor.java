@@ -0,0 +1,71 @@
+package com.instantolap.charts.impl.data.transform.jvm;
+
+import com.instantolap.charts.impl.data.transform.AggregationExecutor;
+import com.instantolap.charts.impl.data.transform.Aggregator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Splits large aggregations by rows into parts that are aggregated in
+ * parallel on a fork/join pool, at most four parts per worker. Install it
+ * with Aggregator.setExecutor. Not available in GWT.
+ */
+public class ParallelAggregationExecutor extends AggregationExecutor {
+
+  private static final int PARALLEL_SIZE = 1 << 16;
+
+  private final ForkJoinPool pool;
+
+  public ParallelAggregationExecutor() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public ParallelAggregationExecutor(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public Aggregator.Part execute(Aggregator.Job job) {
+    final int parallelism = pool.getParallelism();
+    final int rows = job.getRowCount();
+    final int rowLength = job.getRowLength();
+    final long size = (long) rows * rowLength;
+    final long partSize = Math.max(PARALLEL_SIZE, size / (parallelism * 4L));
+    final int rowsPerPart = (int) Math.max(1, partSize / Math.max(1, rowLength));
+
+    // every part needs its own target arrays, so they must be small
+    if (parallelism <= 1 || size < 2L * PARALLEL_SIZE || job.getTargetSize() > partSize) {
+      return super.execute(job);
+    }
+    return pool.invoke(new Task(job, 0, rows, rowsPerPart));
+  }
+
+
+  @SuppressWarnings("serial")
+  private static class Task extends RecursiveTask<Aggregator.Part> {
+    private final Aggregator.Job job;
+    private final int firstRow, lastRow, rowsPerPart;
+
+    private Task(Aggregator.Job job, int firstRow, int lastRow, int rowsPerPart) {
+      this.job = job;
+      this.firstRow = firstRow;
+      this.lastRow = lastRow;
+      this.rowsPerPart = rowsPerPart;
+    }
+
+    @Override
+    protected Aggregator.Part compute() {
+      if (lastRow - firstRow <= rowsPerPart) {
+        return job.aggregate(firstRow, lastRow);
+      }
+
+      final int middle = (firstRow + lastRow) >>> 1;
+      final Task left = new Task(job, firstRow, middle, rowsPerPart);
+      left.fork();
+      final Aggregator.Part right = new Task(job, middle, lastRow, rowsPerPart).compute();
+      return left.join().add(right);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.instantolap.charts.impl.math;
+
+
+/**
+ * Level of detail reduction for long series. Both methods work on the point
+ * range [from, to) of parallel x/y arrays, write the kept point indices in
+ * ascending order to the result array and return the new result count. The
+ * first and last point of a range are always kept.
+ */
+public class Downsampling {
+
+  /**
+   * Largest-Triangle-Three-Buckets: keeps about threshold points that
+   * preserve the visual shape of the series.
+   */
+  public static int lttb(double[] x, double[] y, int from, int to, int threshold, int[] result,
+    int count)
+  {
+    final int n = to - from;
+    if (threshold >= n || threshold < 3) {
+      for (int i = from; i < to; i++) {
+        result[count++] = i;
+      }
+      return count;
+    }
+
+    final double every = (double) (n - 2) / (threshold - 2);
+    int a = from;
+    result[count++] = a;
+
+    for (int i = 0; i < threshold - 2; i++) {
+
+      // average of the next bucket
+      final int avgStart = from + (int) Math.floor((i + 1) * every) + 1;
+      final int avgEnd = Math.min(from + (int) Math.floor((i + 2) * every) + 1, to);
+      double avgX = 0, avgY = 0;
+      for (int j = avgStart; j < avgEnd; j++) {
+        avgX += x[j];
+        avgY += y[j];
+      }
+      final int avgCount = avgEnd - avgStart;
+      if (avgCount > 0) {
+        avgX /= avgCount;
+        avgY /= avgCount;
+      } else {
+        avgX = x[to - 1];
+        avgY = y[to - 1];
+      }
+
+      // point of the current bucket with the largest triangle
+      final int rangeStart = from + (int) Math.floor(i * every) + 1;
+      final int rangeEnd = from + (int) Math.floor((i + 1) * every) + 1;
+      double maxArea = -1;
+      int next = rangeStart;
+      for (int j = rangeStart; j < rangeEnd; j++) {
+        final double area = Math.abs(
+          (x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+        if (area > maxArea) {
+          maxArea = area;
+          next = j;
+        }
+      }
+      result[count++] = next;
+      a = next;
+    }
+
+    result[count++] = to - 1;
+    return count;
+  }
+
+  /**
+   * Min/max bucketing: keeps the lowest and highest point of each bucket of
+   * the given width on the x axis, so that no peak gets lost. The x values
+   * must be ascending.
+   */
+  public static int minMax(double[] x, double[] y, int from, int to, double bucketWidth,
+    int[] result, int count)
+  {
+    if (to <= from) {
+      return count;
+    }
+
+    result[count++] = from;
+    int last = from;
+
+    int start = from;
+    while (start < to) {
+      final double bucket = Math.floor(x[start] / bucketWidth);
+      int min = start, max = start;
+      int end = start + 1;
+      while (end < to && Math.floor(x[end] / bucketWidth) == bucket) {
+        if (y[end] < y[min]) {
+          min = end;
+        }
+        if (y[end] > y[max]) {
+          max = end;
+        }
+        end++;
+      }
+
+      final int first = Math.min(min, max);
+      final int second = Math.max(min, max);
+      if (first > last) {
+        result[count++] = last = first;
+      }
+      if (second > last) {
+        result[count++] = last = second;
+      }
+      start = end;
+    }
+
+    if (last != to - 1) {
+      result[count++] = to - 1;
+    }
+    return count;
+  }
+}
@@ -91,4 +91,13 @@ public class ArrayHelper {
     }
     return false;
   }
+
+  public static boolean contains(String[] a, String s) {
+    for (String v : a) {
+      if (v == s || (v != null && v.equals(s))) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,371 @@
+package com.instantolap.charts.json;
+
+import java.util.Arrays;
+
+
+/**
+ * A JSONPullParser reads JSON text as a sequence of events, without building
+ * a tree. Numbers are returned as primitive doubles, so large arrays can be
+ * copied into arrays of their own without boxing. Parts of the text can
+ * still be read as JSONObject or JSONArray with getValue.
+ * <p>
+ * The parser accepts the same text as JSONObject and JSONArray, except that
+ * the parts read with next() must be well-formed JSON. A typical loop is:
+ * </p>
+ * <pre>
+ * parser.next(); // START_OBJECT
+ * while (parser.next() == JSONPullParser.NAME) {
+ *   final String key = parser.getString();
+ *   parser.next();
+ *   final Object value = parser.getValue();
+ * }
+ * </pre>
+ */
+public class JSONPullParser {
+
+  public static final int END = 0;
+  public static final int START_OBJECT = 1;
+  public static final int END_OBJECT = 2;
+  public static final int START_ARRAY = 3;
+  public static final int END_ARRAY = 4;
+  public static final int NAME = 5;
+  public static final int STRING = 6;
+  public static final int NUMBER = 7;
+  public static final int BOOLEAN = 8;
+  public static final int NULL = 9;
+
+  // 10^n can be represented exactly up to n = 22
+  private static final double[] POWERS = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private final JSONTokener tokener;
+  private final StringBuilder literal = new StringBuilder();
+  private boolean[] isObject = new boolean[16];
+  private boolean[] hasValue = new boolean[16];
+  private int depth;
+  private boolean hasName;
+  private boolean isStarted;
+  private int event = -1;
+  private String string;
+  private double number;
+
+  public JSONPullParser(CharSequence source) {
+    this(new JSONTokener(source));
+  }
+
+  /**
+   * Reads the text in blocks from the source. Readers and input streams
+   * are wrapped by jvm.ReaderSource.
+   */
+  public JSONPullParser(JSONSource source) {
+    this(new JSONTokener(source));
+  }
+
+  public JSONPullParser(JSONTokener tokener) {
+    this.tokener = tokener;
+  }
+
+  /**
+   * Reads the next event. After the first value of the text has ended, END
+   * is returned.
+   */
+  public int next() throws JSONException {
+    if (depth == 0 && isStarted) {
+      return event = END;
+    }
+    isStarted = true;
+
+    char c = tokener.nextClean();
+    if (depth > 0 && !hasName) {
+      final boolean inObject = isObject[depth - 1];
+      final char close = inObject ? '}' : ']';
+
+      // separator, also tolerating ';' and a trailing ','
+      if (hasValue[depth - 1] && c != close) {
+        if (c != ',' && c != ';') {
+          throw tokener.syntaxError("Expected a ',' or '" + close + "'");
+        }
+        c = tokener.nextClean();
+      }
+      if (c == close) {
+        depth--;
+        endValue();
+        return event = inObject ? END_OBJECT : END_ARRAY;
+      }
+
+      if (inObject) {
+        readName(c);
+        return event = NAME;
+      } else if (c == ',') {
+        tokener.back();
+        endValue();
+        return event = NULL;
+      }
+    }
+    hasName = false;
+
+    switch (c) {
+      case 0:
+        throw tokener.syntaxError("Unexpected end of text");
+      case '{':
+        push(true);
+        return event = START_OBJECT;
+      case '[':
+        push(false);
+        return event = START_ARRAY;
+      case '"':
+      case '\'':
+        string = tokener.nextString(c);
+        endValue();
+        return event = STRING;
+      default:
+        readLiteral(c);
+        endValue();
+        return event;
+    }
+  }
+
+  /**
+   * Returns the last event returned by next.
+   */
+  public int getEvent() {
+    return event;
+  }
+
+  /**
+   * Returns the number of objects and arrays that have been started but not
+   * ended.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Returns the key of a NAME, the text of a STRING or the literal text of a
+   * NUMBER, BOOLEAN or NULL.
+   */
+  public String getString() {
+    if (event == NUMBER || event == BOOLEAN || event == NULL) {
+      return literal.toString();
+    }
+    return string;
+  }
+
+  /**
+   * Returns the value of a NUMBER.
+   */
+  public double getDouble() throws JSONException {
+    if (event != NUMBER) {
+      throw tokener.syntaxError("Expected a number");
+    }
+    return number;
+  }
+
+  /**
+   * Returns the value of a BOOLEAN.
+   */
+  public boolean getBoolean() throws JSONException {
+    if (event != BOOLEAN) {
+      throw tokener.syntaxError("Expected a boolean");
+    }
+    return "true".equalsIgnoreCase(literal.toString());
+  }
+
+  /**
+   * Reads the value that starts with the last event, like JSONObject would:
+   * a JSONObject, JSONArray, String, Boolean, Number or JSONObject.NULL.
+   */
+  public Object getValue() throws JSONException {
+    switch (event) {
+      case START_OBJECT:
+        final JSONObject object = new JSONObject();
+        while (next() == NAME) {
+          final String key = string;
+          if (object.opt(key) != null) {
+            throw new JSONException("Duplicate key \"" + key + "\"");
+          }
+          next();
+          object.put(key, getValue());
+        }
+        return object;
+      case START_ARRAY:
+        final JSONArray array = new JSONArray();
+        while (next() != END_ARRAY) {
+          array.put(getValue());
+        }
+        return array;
+      case STRING:
+        return string;
+      case NUMBER:
+      case BOOLEAN:
+      case NULL:
+        return JSONObject.stringToValue(literal.toString());
+      default:
+        throw tokener.syntaxError("Expected a value");
+    }
+  }
+
+  /**
+   * Skips the value that starts with the last event.
+   */
+  public void skipValue() throws JSONException {
+    if (event == START_OBJECT || event == START_ARRAY) {
+      final int level = depth - 1;
+      while (depth > level) {
+        if (next() == END) {
+          throw tokener.syntaxError("Unexpected end of text");
+        }
+      }
+    }
+  }
+
+  public JSONException syntaxError(String message) {
+    return tokener.syntaxError(message);
+  }
+
+  private void readName(char c) throws JSONException {
+    if (c == '"' || c == '\'') {
+      string = tokener.nextString(c);
+    } else {
+      readLiteral(c);
+      string = literal.toString();
+    }
+
+    // the key is followed by ':', also tolerating '=' or '=>'
+    c = tokener.nextClean();
+    if (c == '=') {
+      if (tokener.next() != '>') {
+        tokener.back();
+      }
+    } else if (c != ':') {
+      throw tokener.syntaxError("Expected a ':' after a key");
+    }
+    hasName = true;
+  }
+
+  private void readLiteral(char c) throws JSONException {
+    literal.setLength(0);
+    while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+      literal.append(c);
+      c = tokener.next();
+    }
+    tokener.back();
+
+    while (literal.length() > 0 && literal.charAt(literal.length() - 1) == ' ') {
+      literal.setLength(literal.length() - 1);
+    }
+    if (literal.length() == 0) {
+      throw tokener.syntaxError("Missing value");
+    }
+
+    if (parseNumber()) {
+      event = NUMBER;
+      return;
+    }
+
+    // anything else is converted like in JSONObject
+    final Object value = JSONObject.stringToValue(literal.toString());
+    if (value instanceof Number) {
+      number = ((Number) value).doubleValue();
+      event = NUMBER;
+    } else if (value instanceof Boolean) {
+      event = BOOLEAN;
+    } else if (value == JSONObject.NULL) {
+      event = NULL;
+    } else {
+      string = (String) value;
+      event = STRING;
+    }
+  }
+
+  /**
+   * Parses plain decimal numbers with up to 18 digits and small exponents
+   * without creating a string. Their mantissa and power of ten are exact
+   * doubles, so the division or multiplication is correctly rounded.
+   */
+  private boolean parseNumber() {
+    final StringBuilder s = literal;
+    final int length = s.length();
+    int n = 0;
+    final boolean negative = s.charAt(0) == '-';
+    if (negative) {
+      n++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean isFraction = false;
+    for (; n < length; n++) {
+      final char c = s.charAt(n);
+      if (c >= '0' && c <= '9') {
+        mantissa = mantissa * 10 + (c - '0');
+        digits++;
+        if (isFraction) {
+          exponent--;
+        }
+      } else if (c == '.' && !isFraction) {
+        isFraction = true;
+      } else {
+        break;
+      }
+    }
+    if (digits == 0 || digits > 18 || mantissa >= (1L << 53)) {
+      return false;
+    }
+
+    if (n < length) {
+      final char e = s.charAt(n++);
+      if ((e != 'e' && e != 'E') || n == length) {
+        return false;
+      }
+      final boolean negativeExponent = s.charAt(n) == '-';
+      if (negativeExponent || s.charAt(n) == '+') {
+        n++;
+      }
+      int value = 0;
+      final int start = n;
+      for (; n < length; n++) {
+        final char c = s.charAt(n);
+        if (c < '0' || c > '9' || value > 1000) {
+          return false;
+        }
+        value = value * 10 + (c - '0');
+      }
+      if (n == start) {
+        return false;
+      }
+      exponent += negativeExponent ? -value : value;
+    }
+
+    if (exponent < -22 || exponent > 22) {
+      return false;
+    } else if (exponent < 0) {
+      number = mantissa / POWERS[-exponent];
+    } else {
+      number = mantissa * POWERS[exponent];
+    }
+    if (negative) {
+      number = -number;
+    }
+    return true;
+  }
+
+  private void push(boolean object) {
+    if (depth == isObject.length) {
+      isObject = Arrays.copyOf(isObject, depth * 2);
+      hasValue = Arrays.copyOf(hasValue, depth * 2);
+    }
+    isObject[depth] = object;
+    hasValue[depth] = false;
+    depth++;
+  }
+
+  private void endValue() {
+    if (depth > 0) {
+      hasValue[depth - 1] = true;
+    }
+  }
+}
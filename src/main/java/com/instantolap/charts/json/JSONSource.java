@@ -0,0 +1,16 @@
+package com.instantolap.charts.json;
+
+/**
+ * The <code>JSONSource</code> interface supplies JSON text to a JSONTokener
+ * in blocks of characters, so that the text never has to be held as one
+ * string. Sources of files or network streams are found in the jvm
+ * subpackage.
+ */
+public interface JSONSource {
+  /**
+   * Reads the next characters into the buffer.
+   *
+   * @return The number of characters read, or -1 at the end of the text.
+   */
+  int read(char[] buffer) throws JSONException;
+}
@@ -26,16 +26,20 @@ package com.instantolap.charts.json;
 
 
 /**
- * A JSONTokener takes a source string and extracts characters and tokens from
- * it. It is used by the JSONObject and JSONArray constructors to parse JSON
- * source strings.
+ * A JSONTokener takes a source string or JSONSource and extracts characters and
+ * tokens from it. It is used by the JSONObject and JSONArray constructors to
+ * parse JSON source strings, and by the JSONPullParser to parse streams.
  *
  * @author JSON.org
  * @version 2012-02-16
  */
 public class JSONTokener {
 
-  private final String reader;
+  private final CharSequence reader;
+  private final JSONSource stream;
+  private char[] buffer;
+  private int bufferPos;
+  private int bufferLength;
   private long character;
   private boolean eof;
   private int index;
@@ -49,7 +53,35 @@ public class JSONTokener {
    * @param reader A reader.
    */
   public JSONTokener(String reader) {
+    this((CharSequence) reader);
+  }
+
+  /**
+   * Construct a JSONTokener from a sequence of characters.
+   *
+   * @param reader A sequence of characters.
+   */
+  public JSONTokener(CharSequence reader) {
     this.reader = reader;
+    this.stream = null;
+    this.eof = false;
+    this.usePrevious = false;
+    this.previous = 0;
+    this.index = 0;
+    this.character = 1;
+    this.line = 1;
+  }
+
+  /**
+   * Construct a JSONTokener that reads the characters from a source, in
+   * blocks. The end of the source is returned as 0.
+   *
+   * @param stream A source of characters.
+   */
+  public JSONTokener(JSONSource stream) {
+    this.reader = null;
+    this.stream = stream;
+    this.buffer = new char[8192];
     this.eof = false;
     this.usePrevious = false;
     this.previous = 0;
@@ -79,6 +111,18 @@ public class JSONTokener {
     return -1;
   }
 
+  private int read() throws JSONException {
+    if (this.bufferPos == this.bufferLength) {
+      this.bufferLength = this.stream.read(this.buffer);
+      this.bufferPos = 0;
+      if (this.bufferLength <= 0) {
+        this.bufferLength = 0;
+        return -1;
+      }
+    }
+    return this.buffer[this.bufferPos++];
+  }
+
   /**
    * Determine if the source string still contains characters that next() can
    * consume.
@@ -104,6 +148,12 @@ public class JSONTokener {
     if (this.usePrevious) {
       this.usePrevious = false;
       c = this.previous;
+    } else if (this.stream != null) {
+      c = this.read();
+      if (c <= 0) { // End of stream
+        this.eof = true;
+        c = 0;
+      }
     } else {
       try {
         c = this.reader.charAt(index);
@@ -392,7 +442,8 @@ public class JSONTokener {
 
   /**
    * Skip characters until the next character is the requested character. If
-   * the requested character is not found, no characters are skipped.
+   * the requested character is not found, no characters are skipped, except
+   * on a JSONSource, which cannot be read again.
    *
    * @param to A character to skip to.
    *
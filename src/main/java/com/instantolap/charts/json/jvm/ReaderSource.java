@@ -0,0 +1,45 @@
+package com.instantolap.charts.json.jvm;
+
+import com.instantolap.charts.json.JSONException;
+import com.instantolap.charts.json.JSONSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Supplies the text of a reader or input stream to the JSONPullParser, or to
+ * the streaming entry points of JSONDataFactory and JSONChartFactory:
+ * <pre>
+ * Chart chart = JSONChartFactory.create(new ReaderSource(reader));
+ * </pre>
+ * Not available in GWT.
+ */
+public class ReaderSource implements JSONSource {
+
+  private final Reader reader;
+
+  public ReaderSource(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Reads UTF-8 text from the stream.
+   */
+  public ReaderSource(InputStream stream) {
+    this(new InputStreamReader(stream, StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public int read(char[] buffer) throws JSONException {
+    try {
+      return reader.read(buffer);
+    }
+    catch (IOException exception) {
+      throw new JSONException(exception);
+    }
+  }
+}
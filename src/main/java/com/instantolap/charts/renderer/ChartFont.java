@@ -1,10 +1,12 @@
 package com.instantolap.charts.renderer;
 
 import com.instantolap.charts.renderer.util.StringHelper;
+import java.io.Serializable;
 import java.util.Objects;
 
 
-public class ChartFont {
+@SuppressWarnings("serial")
+public class ChartFont implements Serializable {
 
   private String name;
   private int size = 11;
@@ -80,6 +80,8 @@ public interface Renderer {
 
   void addListener(RendererListener l);
 
+  void removeListener(RendererListener l);
+
   Popup addPopup(double x, double y, double w, double h, double rotation, int anchor,
                  String text, ChartFont font, Runnable onMouseOver,
                  Runnable onMouseOut, Runnable onMouseClick);
@@ -0,0 +1,57 @@
+package com.instantolap.charts.renderer.impl;
+
+import com.instantolap.charts.renderer.ChartFont;
+
+
+/**
+ * Text metrics from the Helvetica and Helvetica-Bold AFM character widths,
+ * which Arial shares. Works without fonts or AWT, so the results are the same
+ * on every machine. Other fonts are measured as if they were Helvetica.
+ */
+public class AfmTextMetrics implements TextMetrics {
+
+  private static final double ASCENT = 0.905;
+  private static final int DEFAULT_WIDTH = 556;
+  private static final int WIDE_WIDTH = 1000;
+
+  // widths of the characters 32 to 126 in 1/1000 em
+  private static final int[] PLAIN = {
+    278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389, 584, 278, 333, 278, 278,
+    556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 278, 278, 584, 584, 584, 556,
+    1015, 667, 667, 722, 722, 667, 611, 778, 722, 278, 500, 667, 556, 833, 722, 778,
+    667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 278, 278, 278, 469, 556,
+    333, 556, 556, 500, 556, 556, 278, 556, 556, 222, 222, 500, 222, 833, 556, 556,
+    556, 556, 333, 500, 278, 556, 500, 722, 500, 500, 500, 334, 260, 334, 584
+  };
+
+  private static final int[] BOLD = {
+    278, 333, 474, 556, 556, 889, 722, 238, 333, 333, 389, 584, 278, 333, 278, 278,
+    556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 333, 333, 584, 584, 584, 611,
+    975, 722, 722, 722, 722, 667, 611, 778, 722, 278, 556, 722, 611, 833, 722, 778,
+    667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 333, 278, 333, 584, 556,
+    333, 556, 611, 556, 611, 556, 333, 611, 611, 278, 278, 556, 278, 889, 611, 611,
+    611, 611, 389, 556, 333, 611, 556, 778, 556, 556, 500, 389, 280, 389, 584
+  };
+
+  @Override
+  public double getWidth(ChartFont font, String text) {
+    final int[] widths = font.isBold() ? BOLD : PLAIN;
+    long width = 0;
+    for (int n = 0; n < text.length(); n++) {
+      final char c = text.charAt(n);
+      if (c >= 32 && c <= 126) {
+        width += widths[c - 32];
+      } else if (c >= 0x2E80) {
+        width += WIDE_WIDTH;
+      } else if (c >= 32) {
+        width += DEFAULT_WIDTH;
+      }
+    }
+    return width * font.getSize() / 1000.0;
+  }
+
+  @Override
+  public double getAscent(ChartFont font) {
+    return Math.round(font.getSize() * ASCENT);
+  }
+}
@@ -0,0 +1,139 @@
+package com.instantolap.charts.renderer.impl;
+
+import com.instantolap.charts.renderer.HasAnimation;
+import com.instantolap.charts.renderer.Renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Runs any number of chart animations on one frame clock. Subclasses call
+ * tick on the UI thread for every frame of their toolkit timer. The progress
+ * of an animation depends on the time only, so frames that come late or not
+ * at all are simply skipped. Scheduling never blocks the calling thread.
+ */
+public abstract class AnimationScheduler {
+
+  public static final int DEFAULT_FPS = 60;
+
+  private final List<Animation> animations = new ArrayList<>();
+  private long frameNanos;
+  private long lastFrame;
+  private boolean isRunning;
+
+  protected AnimationScheduler(int fps) {
+    setFps(fps);
+  }
+
+  public synchronized void setFps(int fps) {
+    if (fps <= 0) {
+      throw new IllegalArgumentException("Frame rate must be positive");
+    }
+    this.frameNanos = 1000000000L / fps;
+  }
+
+  public synchronized int getFps() {
+    return (int) (1000000000L / frameNanos);
+  }
+
+  /**
+   * Animates the given chart for the given time in milliseconds. A running
+   * animation of the same chart is replaced. Errors are shown by the
+   * renderer and end the animation.
+   */
+  public synchronized void schedule(Renderer renderer, HasAnimation animated, long duration) {
+    remove(animated);
+    animations.add(new Animation(renderer, animated, duration, System.nanoTime()));
+    if (!isRunning) {
+      isRunning = true;
+      startTimer();
+    }
+  }
+
+  public synchronized boolean isAnimating(HasAnimation animated) {
+    for (Animation a : animations) {
+      if (a.animated == animated) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public synchronized int getAnimationCount() {
+    return animations.size();
+  }
+
+  /**
+   * Renders the next frame of all animations. Must be called on the UI
+   * thread. Calls that come earlier than the frame rate allows are ignored.
+   */
+  protected void tick(long now) {
+    final Animation[] frame;
+    synchronized (this) {
+      if (now - lastFrame < frameNanos - frameNanos / 4) {
+        return;
+      }
+      lastFrame = now;
+      frame = animations.toArray(new Animation[0]);
+    }
+
+    for (Animation a : frame) {
+      final double progress = Math.min(1, (double) (now - a.start) / (a.duration * 1000000.0));
+      boolean done = progress >= 1;
+      try {
+        a.animated.render(Math.max(0, progress));
+      } catch (Exception e) {
+        a.renderer.showError(e);
+        done = true;
+      }
+      if (done) {
+        synchronized (this) {
+          animations.remove(a);
+        }
+      }
+    }
+
+    synchronized (this) {
+      if (animations.isEmpty() && isRunning) {
+        isRunning = false;
+        stopTimer();
+      }
+    }
+  }
+
+  /**
+   * Starts the toolkit timer. May be called from any thread, while the
+   * scheduler is locked.
+   */
+  protected abstract void startTimer();
+
+  /**
+   * Stops the toolkit timer. Called on the UI thread, while the scheduler
+   * is locked.
+   */
+  protected abstract void stopTimer();
+
+  private void remove(HasAnimation animated) {
+    for (int n = animations.size() - 1; n >= 0; n--) {
+      if (animations.get(n).animated == animated) {
+        animations.remove(n);
+      }
+    }
+  }
+
+
+  private static class Animation {
+    private final Renderer renderer;
+    private final HasAnimation animated;
+    private final long duration;
+    private final long start;
+
+    public Animation(Renderer renderer, HasAnimation animated, long duration, long start) {
+      this.renderer = renderer;
+      this.animated = animated;
+      this.duration = duration;
+      this.start = start;
+    }
+  }
+}
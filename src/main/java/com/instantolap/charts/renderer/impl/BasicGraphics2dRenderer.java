@@ -90,6 +90,7 @@ public abstract class BasicGraphics2dRenderer extends BasicRenderer {
     if (font == null) {
       font = new Theme().getDefaultFont();
     }
+    super.setFont(font);
     int style = Font.PLAIN;
     if (font.isBold()) {
       style += Font.BOLD;
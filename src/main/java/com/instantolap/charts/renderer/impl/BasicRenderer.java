@@ -15,12 +15,16 @@ public abstract class BasicRenderer implements Renderer {
   protected final static int TEXTLINE_SPACING = 4;
 
   private final List<RendererListener> listeners = new ArrayList<>();
-  private final List<Popup> popups = new ArrayList<>();
+  private final SpatialIndex<Popup> popups = new SpatialIndex<>();
   protected final MouseListeners mouseListeners = new MouseListeners();
   private boolean enableHandlers = true;
   private Popup currentPopup, nextPopup;
+  private int textPopupCount;
+  private boolean hasBackground, isBackgroundNeeded;
   private ChartColor color;
   private final List<TextInfo> textInfos = new ArrayList<>();
+  private final TextMetricsCache textMetricsCache = new TextMetricsCache();
+  private String textFont;
 
   protected abstract double getTextLineWidth(String text);
 
@@ -88,8 +92,24 @@ public abstract class BasicRenderer implements Renderer {
     return i;
   }
 
+  /**
+   * Returns the topmost popup at the given point, i.e. the one added last.
+   */
+  private Popup findPopup(int x, int y) {
+    final int[] candidates = popups.find(x, y);
+    for (int n = candidates.length - 1; n >= 0; n--) {
+      final Popup p = popups.get(candidates[n]);
+      if (p.isInside(this, x, y)) {
+        return p;
+      }
+    }
+    return null;
+  }
+
   protected void fireMouseClick(int x, int y) {
-    for (Popup p : popups) {
+    final int[] candidates = popups.find(x, y);
+    for (int n = candidates.length - 1; n >= 0; n--) {
+      final Popup p = popups.get(candidates[n]);
       if (p.isInside(this, x, y)) {
         if (p.onMouseClick != null) {
           p.onMouseClick.run();
@@ -100,40 +120,38 @@ public abstract class BasicRenderer implements Renderer {
   }
 
   protected void fireMouseMove(int x, int y) throws ChartException {
-    for (Popup p : popups) {
-      if (p.isInside(this, x, y)) {
+    final Popup p = findPopup(x, y);
+    if (p != null) {
 
-        // hide current visible popup?
-        if ((currentPopup != null) && (currentPopup != p)) {
+      // hide current visible popup?
+      if ((currentPopup != null) && (currentPopup != p)) {
 
-          // change pointer?
-          if (currentPopup.onMouseClick != null) {
-            showNormalPointer();
-          }
-          if (currentPopup.onMouseOut != null) {
-            currentPopup.onMouseOut.run();
-          }
+        // change pointer?
+        if (currentPopup.onMouseClick != null) {
+          showNormalPointer();
         }
-
-        currentPopup = p;
-
-        // clickable? show cursor?
-        if (p.onMouseClick != null) {
-          showClickPointer();
+        if (currentPopup.onMouseOut != null) {
+          currentPopup.onMouseOut.run();
         }
+      }
 
-        // repaint if text exists
-        if (p.text != null) {
-          nextPopup = p;
-          fireRepaint(false);
-        }
+      currentPopup = p;
 
-        if (p.onMouseOver != null) {
-          p.onMouseOver.run();
-        }
+      // clickable? show cursor?
+      if (p.onMouseClick != null) {
+        showClickPointer();
+      }
+
+      // repaint if text exists
+      if (p.text != null) {
+        repaintPopup(p);
+      }
 
-        return;
+      if (p.onMouseOver != null) {
+        p.onMouseOver.run();
       }
+
+      return;
     }
 
     // if mouse is over no popup now, fire mouse out to an existing one
@@ -142,7 +160,7 @@ public abstract class BasicRenderer implements Renderer {
         currentPopup.onMouseOut.run();
       }
 
-      fireRepaint(false);
+      repaintPopup(null);
       currentPopup = null;
     }
   }
@@ -154,10 +172,50 @@ public abstract class BasicRenderer implements Renderer {
       }
 
       currentPopup = null;
+      repaintPopup(null);
+    }
+  }
+
+  /**
+   * Shows the given popup, or none. If the chart without popup was saved by
+   * saveBackground, only the popup is drawn on top of it, otherwise the
+   * whole chart is rendered again and saved for the next popups.
+   */
+  private void repaintPopup(Popup popup) throws ChartException {
+    if (hasBackground && restoreBackground()) {
+      if (popup != null) {
+        popup.display(this);
+      }
+      flushOverlay();
+    } else {
+      nextPopup = popup;
+      isBackgroundNeeded = true;
       fireRepaint(false);
     }
   }
 
+  /**
+   * Saves the rendered chart, so that popups can be drawn on top of it later.
+   * Returns false if the renderer cannot do that.
+   */
+  protected boolean saveBackground() {
+    return false;
+  }
+
+  /**
+   * Restores the chart saved by saveBackground. Returns false if there is
+   * nothing to restore.
+   */
+  protected boolean restoreBackground() {
+    return false;
+  }
+
+  /**
+   * Makes the popup drawn on the restored background visible.
+   */
+  protected void flushOverlay() {
+  }
+
   public ChartColor getColor() {
     return color;
   }
@@ -169,6 +227,8 @@ public abstract class BasicRenderer implements Renderer {
 
   @Override
   public void init() {
+    hasBackground = false;
+    textPopupCount = 0;
     popups.clear();
     mouseListeners.clear();
     textInfos.clear();
@@ -181,23 +241,67 @@ public abstract class BasicRenderer implements Renderer {
 
   @Override
   public void finish() {
+    popups.build();
+    mouseListeners.build();
+    // saved only once a popup needs it, not on every frame of an animation
+    if (textPopupCount > 0 && isBackgroundNeeded) {
+      hasBackground = saveBackground();
+      isBackgroundNeeded = false;
+    }
     if (currentPopup != null) {
       currentPopup.display(this);
     }
   }
 
+  /**
+   * Remembers the font for the text metrics cache. Subclasses that do not
+   * call this are measured without the cache.
+   */
+  @Override
+  public void setFont(ChartFont font) {
+    textFont = (font != null) ? font.toString() : null;
+  }
+
+  public TextMetricsCache getTextMetricsCache() {
+    return textMetricsCache;
+  }
+
+  private double getCachedTextLineWidth(String text) {
+    if (textFont == null) {
+      return getTextLineWidth(text);
+    }
+    double width = textMetricsCache.getWidth(textFont, text);
+    if (Double.isNaN(width)) {
+      width = getTextLineWidth(text);
+      textMetricsCache.setWidth(textFont, text, width);
+    }
+    return width;
+  }
+
+  private double getCachedTextLineHeight(String text) {
+    if (textFont == null) {
+      return getTextLineHeight(text);
+    }
+    double height = textMetricsCache.getHeight(textFont, text);
+    if (Double.isNaN(height)) {
+      height = getTextLineHeight(text);
+      textMetricsCache.setHeight(textFont, text, height);
+    }
+    return height;
+  }
+
   @Override
   public double getTextWidth(String text) {
     if (text == null) {
       return 0;
     } else if (!text.contains("\n")) {
-      return getTextLineWidth(text);
+      return getCachedTextLineWidth(text);
     }
 
     double width = 0;
     final String[] lines = StringHelper.splitString(text, "\n");
     for (String line : lines) {
-      width = Math.max(getTextLineWidth(line), width);
+      width = Math.max(getCachedTextLineWidth(line), width);
     }
     return width;
   }
@@ -207,11 +311,11 @@ public abstract class BasicRenderer implements Renderer {
     if (text == null) {
       return 0;
     } else if (!text.contains("\n")) {
-      return getTextLineHeight(text);
+      return getCachedTextLineHeight(text);
     }
 
     if (!text.contains("\n")) {
-      return getTextLineHeight(text);
+      return getCachedTextLineHeight(text);
     }
 
     int height = 0;
@@ -220,7 +324,7 @@ public abstract class BasicRenderer implements Renderer {
       if (height > 0) {
         height += TEXTLINE_SPACING;
       }
-      height += getTextLineHeight(line);
+      height += getCachedTextLineHeight(line);
     }
     return height;
   }
@@ -242,6 +346,11 @@ public abstract class BasicRenderer implements Renderer {
     listeners.add(l);
   }
 
+  @Override
+  public void removeListener(RendererListener l) {
+    listeners.remove(l);
+  }
+
   @Override
   public Popup addPopup(double x, double y, double width, double height, double rotation,
                         int anchor, String text, ChartFont font, Runnable onMouseOver,
@@ -271,7 +380,10 @@ public abstract class BasicRenderer implements Renderer {
     p.onMouseOut = onMouseOut;
     p.onMouseClick = onMouseClick;
 
-    popups.add(0, p);
+    popups.add(p, x, y, x + width, y + height);
+    if (hasText) {
+      textPopupCount++;
+    }
     return p;
   }
 
@@ -305,7 +417,11 @@ public abstract class BasicRenderer implements Renderer {
     p.onMouseOut = onMouseOut;
     p.onMouseClick = onMouseClick;
 
-    popups.add(0, p);
+    final double r = Math.max(r1, r2);
+    popups.add(p, x - r, y - r, x + r, y + r);
+    if (hasText) {
+      textPopupCount++;
+    }
   }
 
   @Override
@@ -36,27 +36,7 @@ public class ChartPanel extends JPanel {
         return;
       }
 
-      try {
-        final long start = System.currentTimeMillis();
-        while (true) {
-
-          final long d = System.currentTimeMillis() - start;
-          final double progress = Math.min(1, (double) d / duration);
-          SwingUtilities.invokeAndWait(() -> {
-            try {
-              animated.render(progress);
-            } catch (Exception e) {
-              showError(e);
-            }
-          });
-
-          if (progress >= 1) {
-            break;
-          }
-        }
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
+      SwingAnimationScheduler.getDefault().schedule(this, animated, duration);
     }
 
     @Override
@@ -76,6 +56,11 @@ public class ChartPanel extends JPanel {
       super.finish();
       ChartPanel.this.updateUI();
     }
+
+    @Override
+    protected void flushOverlay() {
+      ChartPanel.this.repaint();
+    }
   };
 
   public ChartPanel() {
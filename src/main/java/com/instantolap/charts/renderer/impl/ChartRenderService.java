@@ -0,0 +1,197 @@
+package com.instantolap.charts.renderer.impl;
+
+import com.instantolap.charts.Chart;
+import com.instantolap.charts.factories.JSONChartFactory;
+import com.instantolap.charts.impl.data.Theme;
+import com.instantolap.charts.json.JSONException;
+import com.instantolap.charts.json.JSONObject;
+import com.instantolap.charts.renderer.ChartException;
+import com.instantolap.charts.renderer.RendererListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+
+
+/**
+ * Renders JSON chart specs to PNG or SVG on a bounded pool of workers.
+ * <p>
+ * The service is thread-safe. Every render parses its own data, uses its own
+ * copy of the theme and runs on a renderer that no other render uses at the
+ * same time, so the output is the same as a single-threaded render of the
+ * same spec. Renderers are reused by the next render and images come from a
+ * shared {@link ImagePool}. On JVMs with virtual threads, renders run on
+ * virtual threads, limited to the same parallelism.
+ * </p>
+ */
+public class ChartRenderService implements Closeable {
+
+  public enum Format {
+    PNG, SVG
+  }
+
+  private static final long DEFAULT_POOL_BYTES = 64 * 1024 * 1024;
+
+  private final Theme theme;
+  private final ImagePool imagePool;
+  private final ExecutorService executor;
+  private final Semaphore permits;
+  private final BlockingQueue<Worker> workers;
+
+  public ChartRenderService() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public ChartRenderService(int parallelism) {
+    this(parallelism, Theme.DEFAULT_THEME);
+  }
+
+  public ChartRenderService(int parallelism, Theme theme) {
+    this(parallelism, theme, DEFAULT_POOL_BYTES);
+  }
+
+  public ChartRenderService(int parallelism, Theme theme, long poolBytes) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+
+    this.theme = new Theme(theme);
+    this.imagePool = new ImagePool(poolBytes);
+    this.permits = new Semaphore(parallelism);
+    this.workers = new ArrayBlockingQueue<>(parallelism);
+
+    final ExecutorService virtualExecutor = createVirtualThreadExecutor();
+    if (virtualExecutor != null) {
+      executor = virtualExecutor;
+    } else {
+      executor = Executors.newFixedThreadPool(parallelism, r -> {
+        final Thread thread = new Thread(r, "chart-render");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  public Future<byte[]> submit(String spec, Format format) {
+    return executor.submit(() -> renderNow(new JSONObject(spec), format));
+  }
+
+  /**
+   * Renders the given spec asynchronously. The spec must not be changed
+   * until the render has finished.
+   */
+  public Future<byte[]> submit(JSONObject spec, Format format) {
+    return executor.submit(() -> renderNow(spec, format));
+  }
+
+  public byte[] render(String spec, Format format) throws ChartException {
+    return get(submit(spec, format));
+  }
+
+  public byte[] render(JSONObject spec, Format format) throws ChartException {
+    return get(submit(spec, format));
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private byte[] renderNow(JSONObject spec, Format format)
+    throws InterruptedException, JSONException, ChartException, IOException
+  {
+    permits.acquire();
+    try {
+      Worker worker = workers.poll();
+      if (worker == null) {
+        worker = new Worker();
+      }
+      try {
+        return worker.render(spec, format, new Theme(theme));
+      } finally {
+        workers.offer(worker);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  private static byte[] get(Future<byte[]> future) throws ChartException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ChartException("Rendering was interrupted");
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ChartException) {
+        throw (ChartException) cause;
+      }
+      final ChartException exception = new ChartException("Rendering failed: " + cause);
+      exception.initCause(cause);
+      throw exception;
+    }
+  }
+
+  private static ExecutorService createVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+        .getMethod("newVirtualThreadPerTaskExecutor")
+        .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+
+  private class Worker {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private HeadlessRenderer headlessRenderer;
+    private StreamingSvgRenderer svgRenderer;
+
+    public byte[] render(JSONObject spec, Format format, Theme theme)
+      throws JSONException, ChartException, IOException
+    {
+      out.reset();
+      final BasicRenderer renderer;
+      if (format == Format.SVG) {
+        if (svgRenderer == null) {
+          svgRenderer = new StreamingSvgRenderer();
+        }
+        svgRenderer.setOutput(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        renderer = svgRenderer;
+      } else {
+        if (headlessRenderer == null) {
+          headlessRenderer = new HeadlessRenderer(imagePool);
+        }
+        renderer = headlessRenderer;
+      }
+
+      final Chart chart = JSONChartFactory.create(spec, null, theme);
+      renderer.setSize(spec.getInt("width"), spec.getInt("height"));
+      renderer.enableHandlers(false);
+      chart.setRenderer(renderer);
+      try {
+        chart.renderUnanimated();
+      } finally {
+        if (chart instanceof RendererListener) {
+          renderer.removeListener((RendererListener) chart);
+        }
+      }
+
+      if (format == Format.SVG) {
+        return out.toByteArray();
+      }
+
+      try {
+        headlessRenderer.encodeTo(out, "png");
+      } finally {
+        headlessRenderer.release();
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package com.instantolap.charts.renderer.impl;
+
+import com.instantolap.charts.renderer.ChartColor;
+import com.instantolap.charts.renderer.ChartFont;
+import com.instantolap.charts.renderer.ChartStroke;
+import com.instantolap.charts.renderer.Renderer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Drawing calls recorded by a {@link RecordingRenderer}. The calls are kept
+ * in primitive arrays: one opcode per call, its numeric arguments, and the
+ * bounding box of everything it draws. Colors, strokes, fonts and texts are
+ * kept in a separate object list.
+ * <p>
+ * A display list can be replayed onto any renderer as often as needed, and
+ * it can be serialized. Popups and mouse listeners are not recorded, so the
+ * replayed chart is not interactive.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class DisplayList implements Serializable {
+
+  static final byte SET_COLOR = 1;
+  static final byte SET_STROKE = 2;
+  static final byte RESET_STROKE = 3;
+  static final byte SET_FONT = 4;
+  static final byte CLIP_ROUNDED_RECT = 5;
+  static final byte RESET_CLIP = 6;
+  static final byte DRAW_LINE = 10;
+  static final byte FILL_RECT = 11;
+  static final byte FILL_ROUNDED_RECT = 12;
+  static final byte DRAW_RECT = 13;
+  static final byte DRAW_ROUNDED_RECT = 14;
+  static final byte DRAW_POLYLINE = 15;
+  static final byte DRAW_POLYGON = 16;
+  static final byte FILL_POLYGON = 17;
+  static final byte FILL_DONUT = 18;
+  static final byte DRAW_DONUT = 19;
+  static final byte DRAW_CIRCLE = 20;
+  static final byte FILL_CIRCLE = 21;
+  static final byte DRAW_BUBBLE = 22;
+  static final byte FILL_BUBBLE = 23;
+  static final byte DRAW_TEXT = 24;
+
+  private final double width, height;
+  private byte[] ops = new byte[256];
+  private float[] bounds = new float[256 * 4];
+  private double[] args = new double[1024];
+  private final List<Object> objects = new ArrayList<>();
+  private int size, argCount;
+
+  DisplayList(double width, double height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  public double getWidth() {
+    return width;
+  }
+
+  public double getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns the number of recorded calls.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Replays all calls, from init to finish. The size of the target has to be
+   * set before.
+   */
+  public void replay(Renderer r) {
+    replayArea(r, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+      Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Replays the calls that draw inside the given area. Calls that change
+   * the color, stroke, font or clip are always replayed.
+   */
+  public void replay(Renderer r, double x, double y, double width, double height) {
+    replayArea(r, x, y, x + width, y + height);
+  }
+
+  private void replayArea(Renderer r, double x1, double y1, double x2, double y2) {
+    final double[] a = args;
+
+    r.init();
+    int i = 0;
+    for (int n = 0; n < size; n++) {
+      final boolean visible = isVisible(n, x1, y1, x2, y2);
+      switch (ops[n]) {
+        case SET_COLOR:
+          r.setColor((ChartColor) objects.get((int) a[i]));
+          i += 1;
+          break;
+        case SET_STROKE:
+          r.setStroke((ChartStroke) objects.get((int) a[i]));
+          i += 1;
+          break;
+        case RESET_STROKE:
+          r.resetStroke();
+          break;
+        case SET_FONT:
+          r.setFont((ChartFont) objects.get((int) a[i]));
+          i += 1;
+          break;
+        case CLIP_ROUNDED_RECT:
+          r.clipRoundedRect(a[i], a[i + 1], a[i + 2], a[i + 3], a[i + 4]);
+          i += 5;
+          break;
+        case RESET_CLIP:
+          r.resetClip();
+          break;
+        case DRAW_LINE:
+          if (visible) {
+            r.drawLine(a[i], a[i + 1], a[i + 2], a[i + 3]);
+          }
+          i += 4;
+          break;
+        case FILL_RECT:
+          if (visible) {
+            r.fillRect(a[i], a[i + 1], a[i + 2], a[i + 3]);
+          }
+          i += 4;
+          break;
+        case FILL_ROUNDED_RECT:
+          if (visible) {
+            r.fillRoundedRect(a[i], a[i + 1], a[i + 2], a[i + 3], a[i + 4]);
+          }
+          i += 5;
+          break;
+        case DRAW_RECT:
+          if (visible) {
+            r.drawRect(a[i], a[i + 1], a[i + 2], a[i + 3]);
+          }
+          i += 4;
+          break;
+        case DRAW_ROUNDED_RECT:
+          if (visible) {
+            r.drawRoundedRect(a[i], a[i + 1], a[i + 2], a[i + 3], a[i + 4]);
+          }
+          i += 5;
+          break;
+        case DRAW_POLYLINE:
+        case DRAW_POLYGON:
+        case FILL_POLYGON: {
+          final int points = (int) a[i];
+          if (visible) {
+            final double[] px = Arrays.copyOfRange(a, i + 1, i + 1 + points);
+            final double[] py = Arrays.copyOfRange(a, i + 1 + points, i + 1 + 2 * points);
+            if (ops[n] == DRAW_POLYLINE) {
+              r.drawPolyLine(px, py);
+            } else if (ops[n] == DRAW_POLYGON) {
+              r.drawPolygon(px, py);
+            } else {
+              r.fillPolygon(px, py);
+            }
+          }
+          i += 1 + 2 * points;
+          break;
+        }
+        case FILL_DONUT:
+          if (visible) {
+            r.fillDonut(a[i], a[i + 1], a[i + 2], a[i + 3], a[i + 4], a[i + 5], a[i + 6] != 0);
+          }
+          i += 7;
+          break;
+        case DRAW_DONUT:
+          if (visible) {
+            r.drawDonut(a[i], a[i + 1], a[i + 2], a[i + 3], a[i + 4], a[i + 5], a[i + 6] != 0);
+          }
+          i += 7;
+          break;
+        case DRAW_CIRCLE:
+          if (visible) {
+            r.drawCircle(a[i], a[i + 1], a[i + 2]);
+          }
+          i += 3;
+          break;
+        case FILL_CIRCLE:
+          if (visible) {
+            r.fillCircle(a[i], a[i + 1], a[i + 2]);
+          }
+          i += 3;
+          break;
+        case DRAW_BUBBLE:
+          if (visible) {
+            r.drawBubble(a[i], a[i + 1], a[i + 2], a[i + 3], a[i + 4], a[i + 5], a[i + 6]);
+          }
+          i += 7;
+          break;
+        case FILL_BUBBLE:
+          if (visible) {
+            r.fillBubble(a[i], a[i + 1], a[i + 2], a[i + 3], a[i + 4], a[i + 5], a[i + 6]);
+          }
+          i += 7;
+          break;
+        case DRAW_TEXT:
+          // the text is centered on its recorded center, so that it stays
+          // in place if the target measures it differently
+          if (visible) {
+            final String text = (String) objects.get((int) a[i + 3]);
+            r.drawText(a[i], a[i + 1], text, a[i + 2], Renderer.CENTER, false);
+          }
+          i += 4;
+          break;
+        default:
+          throw new IllegalStateException("Unknown display list operation " + ops[n]);
+      }
+    }
+    r.finish();
+  }
+
+  private boolean isVisible(int n, double x1, double y1, double x2, double y2) {
+    final int b = n * 4;
+    if (Float.isNaN(bounds[b])) {
+      return true;
+    }
+    return bounds[b] <= x2 && bounds[b + 1] <= y2 && bounds[b + 2] >= x1 && bounds[b + 3] >= y1;
+  }
+
+  void add(byte op) {
+    if (ops.length == size) {
+      final int capacity = Math.max(256, size * 2);
+      ops = Arrays.copyOf(ops, capacity);
+      bounds = Arrays.copyOf(bounds, capacity * 4);
+    }
+    ops[size] = op;
+    Arrays.fill(bounds, size * 4, size * 4 + 4, Float.NaN);
+    size++;
+  }
+
+  void add(byte op, double x1, double y1, double x2, double y2) {
+    add(op);
+    final int b = (size - 1) * 4;
+    bounds[b] = (float) Math.floor(Math.min(x1, x2));
+    bounds[b + 1] = (float) Math.floor(Math.min(y1, y2));
+    bounds[b + 2] = (float) Math.ceil(Math.max(x1, x2));
+    bounds[b + 3] = (float) Math.ceil(Math.max(y1, y2));
+  }
+
+  void arg(double v) {
+    if (args.length == argCount) {
+      args = Arrays.copyOf(args, Math.max(1024, argCount * 2));
+    }
+    args[argCount++] = v;
+  }
+
+  void arg(double[] v) {
+    for (double d : v) {
+      arg(d);
+    }
+  }
+
+  void object(Object o) {
+    arg(objects.size());
+    objects.add(o);
+  }
+
+  /**
+   * Drops the unused capacity after the recording.
+   */
+  void trim() {
+    ops = Arrays.copyOf(ops, size);
+    bounds = Arrays.copyOf(bounds, size * 4);
+    args = Arrays.copyOf(args, argCount);
+  }
+}
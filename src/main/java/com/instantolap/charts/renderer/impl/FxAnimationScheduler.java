@@ -0,0 +1,43 @@
+package com.instantolap.charts.renderer.impl;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+
+/**
+ * Animation scheduler on the JavaFX pulse, which follows the display
+ * refresh. Pulses above the frame rate are skipped.
+ */
+public class FxAnimationScheduler extends AnimationScheduler {
+
+  private static final FxAnimationScheduler DEFAULT = new FxAnimationScheduler(DEFAULT_FPS);
+
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      tick(now);
+    }
+  };
+
+  public static FxAnimationScheduler getDefault() {
+    return DEFAULT;
+  }
+
+  public FxAnimationScheduler(int fps) {
+    super(fps);
+  }
+
+  @Override
+  protected void startTimer() {
+    if (Platform.isFxApplicationThread()) {
+      timer.start();
+    } else {
+      Platform.runLater(timer::start);
+    }
+  }
+
+  @Override
+  protected void stopTimer() {
+    timer.stop();
+  }
+}
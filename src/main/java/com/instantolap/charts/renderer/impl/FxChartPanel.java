@@ -5,10 +5,8 @@ import com.instantolap.charts.renderer.ChartException;
 import com.instantolap.charts.renderer.HasAnimation;
 import javafx.scene.canvas.Canvas;
 
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -34,7 +32,6 @@ public class FxChartPanel extends Canvas {
 
   private final FxRenderer renderer;
   private Chart chart;
-  private boolean isAnimating;
   private boolean isRendered;
 
   public FxChartPanel(boolean interactive) {
@@ -42,32 +39,12 @@ public class FxChartPanel extends Canvas {
       @Override
       public void animate(final HasAnimation animated, final long duration) {
         if (duration <= 0) {
-          render(1, null);
+          render(1);
           return;
         }
 
-        DEBOUNCE_EXECUTOR.submit(() -> {
-          try {
-            isAnimating = true;
-            final long start = System.currentTimeMillis();
-
-            while (true) {
-              final double diff = System.currentTimeMillis() - start;
-              final double progress = Math.min(1, diff / duration);
-
-              final CountDownLatch latch = new CountDownLatch(1);
-              render(progress, latch);
-              latch.await(10, TimeUnit.SECONDS);
-
-              if (progress >= 1) break;
-            }
-
-          } catch (Exception e) {
-            e.printStackTrace();
-          } finally {
-            isAnimating = false;
-          }
-        });
+        FxAnimationScheduler.getDefault().schedule(this, animated, duration);
+        isRendered = true;
       }
     };
 
@@ -169,28 +146,24 @@ public class FxChartPanel extends Canvas {
   public void resize(double width, double height) {
     setWidth(width);
     setHeight(height);
-    if (!isAnimating && isRendered) {
+    if (!FxAnimationScheduler.getDefault().isAnimating(chart) && isRendered) {
       if (chart.isAnimationEnabled()) {
-        render(1, null);
+        render(1);
       } else {
         // Debounce rendering until resizing stops
         if (debounce != null) debounce.cancel(true);
-        debounce = DEBOUNCE_EXECUTOR.schedule(() -> render(1, null), debounceTime, MILLISECONDS);
+        debounce = DEBOUNCE_EXECUTOR.schedule(() -> render(1), debounceTime, MILLISECONDS);
       }
     }
   }
 
-  private void render(double progress, CountDownLatch latch) {
+  private void render(double progress) {
     if (chart != null) {
       runLater(() -> {
         try {
           chart.render(progress);
         } catch (ChartException e) {
           e.printStackTrace();
-        } finally {
-          if (latch != null) {
-            latch.countDown();
-          }
         }
         isRendered = true;
       });
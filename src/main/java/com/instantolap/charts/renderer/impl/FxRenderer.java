@@ -11,8 +11,10 @@ import java.util.Map;
 import java.util.TimeZone;
 import javafx.geometry.Bounds;
 import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.LinearGradient;
 import javafx.scene.shape.*;
@@ -37,6 +39,7 @@ public class FxRenderer extends BasicRenderer {
   private ChartFont font;
   private ChartStroke stroke;
   private Rectangle clip;
+  private WritableImage background;
 
   public FxRenderer(Canvas image) {
     this.image = image;
@@ -53,6 +56,34 @@ public class FxRenderer extends BasicRenderer {
     return image.getWidth();
   }
 
+  @Override
+  protected boolean saveBackground() {
+    if (image.getWidth() < 1 || image.getHeight() < 1) {
+      return false;
+    }
+    final SnapshotParameters parameters = new SnapshotParameters();
+    parameters.setFill(Color.TRANSPARENT);
+    background = image.snapshot(parameters, background);
+    return true;
+  }
+
+  @Override
+  protected boolean restoreBackground() {
+    if (background == null
+      || background.getWidth() != Math.ceil(image.getWidth())
+      || background.getHeight() != Math.ceil(image.getHeight()))
+    {
+      return false;
+    }
+    graphics.save();
+    graphics.setTransform(new Affine());
+    graphics.setGlobalAlpha(1);
+    graphics.clearRect(0, 0, image.getWidth(), image.getHeight());
+    graphics.drawImage(background, 0, 0);
+    graphics.restore();
+    return true;
+  }
+
   @Override
   public double getHeight() {
     return image.getHeight();
@@ -131,6 +162,7 @@ public class FxRenderer extends BasicRenderer {
     if (font == null) {
       font = new Theme().getDefaultFont();
     }
+    super.setFont(font);
     if (!font.equals(this.font)) {
       this.font = font;
 
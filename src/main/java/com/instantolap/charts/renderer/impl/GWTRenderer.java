@@ -3,6 +3,7 @@ package com.instantolap.charts.renderer.impl;
 import com.google.gwt.canvas.client.Canvas;
 import com.google.gwt.canvas.dom.client.CanvasGradient;
 import com.google.gwt.canvas.dom.client.Context2d;
+import com.google.gwt.canvas.dom.client.ImageData;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.dom.client.Style.Cursor;
 import com.google.gwt.i18n.client.DateTimeFormat;
@@ -27,6 +28,7 @@ public class GWTRenderer extends BasicRenderer {
   private final Context2d context;
   private final Map<String, NumberFormat> formats = new HashMap<>();
   private IECanvas ieCanvas;
+  private ImageData background;
   private ChartFont font = new Theme().getDefaultFont();
   private double dashLen1 = 1, dashLen2 = 0;
   private double shift = 0.0;
@@ -140,6 +142,33 @@ public class GWTRenderer extends BasicRenderer {
     }
   }
 
+  @Override
+  protected boolean saveBackground() {
+    // the IE fallback cannot read pixels
+    if (canvas == null) {
+      return false;
+    }
+    final int width = canvas.getCoordinateSpaceWidth();
+    final int height = canvas.getCoordinateSpaceHeight();
+    if (width <= 0 || height <= 0) {
+      return false;
+    }
+    background = context.getImageData(0, 0, width, height);
+    return true;
+  }
+
+  @Override
+  protected boolean restoreBackground() {
+    if (background == null
+      || background.getWidth() != canvas.getCoordinateSpaceWidth()
+      || background.getHeight() != canvas.getCoordinateSpaceHeight())
+    {
+      return false;
+    }
+    context.putImageData(background, 0, 0);
+    return true;
+  }
+
   @Override
   protected void setGradient(double x, double y, double width, double height) {
     if (getColor().isGradient()) {
@@ -182,9 +211,15 @@ public class GWTRenderer extends BasicRenderer {
   @Override
   public void drawPolyLine(double[] x, double[] y) {
     context.beginPath();
-    context.moveTo(x[0] + shift, y[0] + shift);
-    for (int n = 1; n < x.length; n++) {
-      context.lineTo(x[n] + shift, y[n] + shift);
+    if ((dashLen1 == 0) || (dashLen2 == 0)) {
+      context.moveTo(x[0] + shift, y[0] + shift);
+      for (int n = 1; n < x.length; n++) {
+        context.lineTo(x[n] + shift, y[n] + shift);
+      }
+    } else {
+      for (int n = 1; n < x.length; n++) {
+        addDashLine(x[n - 1], y[n - 1], x[n], y[n]);
+      }
     }
     context.stroke();
   }
@@ -362,6 +397,7 @@ public class GWTRenderer extends BasicRenderer {
     if (font == null) {
       font = new Theme().getDefaultFont();
     }
+    super.setFont(font);
     this.font = font;
     context.setFont(font.toString());
   }
@@ -4,26 +4,127 @@ import com.instantolap.charts.impl.data.Theme;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.OutputStream;
 
 
 public class HeadlessRenderer extends BasicGraphics2dRenderer {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HeadlessRenderer.class);
 
+  private final ImagePool pool;
   private BufferedImage image;
+  private BufferedImage background;
+  private Graphics2D graphics;
+
+  public HeadlessRenderer() {
+    this(null);
+  }
+
+  /**
+   * Creates a renderer that takes its images from the given pool and returns
+   * them on the next setSize or release.
+   */
+  public HeadlessRenderer(ImagePool pool) {
+    this.pool = pool;
+  }
 
   @Override
   public void setSize(double width, double height) {
-    image = new BufferedImage((int) width, (int) height, BufferedImage.TYPE_INT_ARGB);
+    release();
+
+    final int type = BufferedImage.TYPE_INT_ARGB;
+    image = (pool != null) ? pool.acquire((int) width, (int) height, type) : null;
+    if (image != null) {
+      graphics = image.createGraphics();
+      graphics.setComposite(AlphaComposite.Clear);
+      graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+      graphics.setComposite(AlphaComposite.SrcOver);
+    } else {
+      image = new BufferedImage((int) width, (int) height, type);
+      graphics = image.createGraphics();
+    }
 
-    final Graphics2D graphics = (Graphics2D) image.getGraphics();
     graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
     setGraphics(graphics);
     setFont(new Theme().getDefaultFont());
   }
 
+  /**
+   * Returns the current image to the pool. The renderer needs a new setSize
+   * before it can be used again.
+   */
+  public void release() {
+    background = null;
+    if (graphics != null) {
+      graphics.dispose();
+      graphics = null;
+    }
+    if (image != null && pool != null) {
+      pool.release(image);
+      image = null;
+    }
+  }
+
+  /**
+   * Writes the current image in the given ImageIO format, e.g. "png".
+   */
+  public void encodeTo(OutputStream out, String format) throws IOException {
+    if (image == null) {
+      throw new IllegalStateException("Nothing rendered");
+    }
+    try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+      if (!ImageIO.write(image, format, stream)) {
+        throw new IOException("Unsupported image format '" + format + "'");
+      }
+    }
+  }
+
+  @Override
+  protected boolean saveBackground() {
+    if (image == null) {
+      return false;
+    }
+    if (background == null
+      || background.getWidth() != image.getWidth()
+      || background.getHeight() != image.getHeight())
+    {
+      background = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+    }
+    copy(image, background);
+    return true;
+  }
+
+  @Override
+  protected boolean restoreBackground() {
+    if (image == null || background == null
+      || background.getWidth() != image.getWidth()
+      || background.getHeight() != image.getHeight())
+    {
+      return false;
+    }
+    copy(background, image);
+    return true;
+  }
+
+  private static void copy(BufferedImage from, BufferedImage to) {
+    final DataBuffer source = from.getRaster().getDataBuffer();
+    final DataBuffer target = to.getRaster().getDataBuffer();
+    if (source instanceof DataBufferInt && target instanceof DataBufferInt) {
+      final int[] data = ((DataBufferInt) source).getData();
+      System.arraycopy(data, 0, ((DataBufferInt) target).getData(), 0, data.length);
+    } else {
+      to.setData(from.getRaster());
+    }
+  }
+
   @Override
   public double getWidth() {
     return image.getWidth();
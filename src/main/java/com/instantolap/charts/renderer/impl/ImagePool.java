@@ -0,0 +1,122 @@
+package com.instantolap.charts.renderer.impl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Keeps released images for reuse, keyed by width, height and type. The
+ * pool holds at most maxBytes of image data and drops the least recently
+ * used sizes first. The pool is thread-safe.
+ */
+public class ImagePool {
+
+  private final long maxBytes;
+  private final LinkedHashMap<Key, ArrayDeque<BufferedImage>> images =
+    new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  public ImagePool(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Memory cap must not be negative");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns a pooled image of the given size and type, or null if there is
+   * none. The content of the image is undefined.
+   */
+  public synchronized BufferedImage acquire(int width, int height, int type) {
+    final ArrayDeque<BufferedImage> list = images.get(new Key(width, height, type));
+    if (list == null) {
+      return null;
+    }
+
+    final BufferedImage image = list.pollLast();
+    if (list.isEmpty()) {
+      images.remove(new Key(width, height, type));
+    }
+    if (image != null) {
+      bytes -= getBytes(image);
+    }
+    return image;
+  }
+
+  public synchronized void release(BufferedImage image) {
+    final long size = getBytes(image);
+    if (size > maxBytes) {
+      return;
+    }
+
+    final Key key = new Key(image.getWidth(), image.getHeight(), image.getType());
+    ArrayDeque<BufferedImage> list = images.get(key);
+    if (list == null) {
+      list = new ArrayDeque<>();
+      images.put(key, list);
+    }
+    list.addLast(image);
+    bytes += size;
+
+    // evict least recently used sizes
+    final Iterator<Map.Entry<Key, ArrayDeque<BufferedImage>>> i = images.entrySet().iterator();
+    while (bytes > maxBytes && i.hasNext()) {
+      final ArrayDeque<BufferedImage> eldest = i.next().getValue();
+      while (bytes > maxBytes && !eldest.isEmpty()) {
+        bytes -= getBytes(eldest.pollFirst());
+      }
+      if (eldest.isEmpty()) {
+        i.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    images.clear();
+    bytes = 0;
+  }
+
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  private static long getBytes(BufferedImage image) {
+    final DataBuffer buffer = image.getRaster().getDataBuffer();
+    return (long) buffer.getSize() * buffer.getNumBanks()
+      * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+  }
+
+
+  private static class Key {
+    private final int width;
+    private final int height;
+    private final int type;
+
+    public Key(int width, int height, int type) {
+      this.width = width;
+      this.height = height;
+      this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final Key key = (Key) o;
+      return width == key.width && height == key.height && type == key.type;
+    }
+
+    @Override
+    public int hashCode() {
+      return (width * 31 + height) * 31 + type;
+    }
+  }
+}
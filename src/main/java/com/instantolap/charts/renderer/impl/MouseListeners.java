@@ -4,26 +4,28 @@ import com.instantolap.charts.renderer.*;
 import com.instantolap.charts.renderer.popup.AreaListener;
 import com.instantolap.charts.renderer.popup.RectAreaListener;
 
-import java.util.ArrayList;
-import java.util.List;
-
 
 public class MouseListeners {
 
-  private final List<AreaListener> areas = new ArrayList<>();
+  private final SpatialIndex<AreaListener> areas = new SpatialIndex<>();
   private boolean isDragging;
   private int startX, startY;
 
   public void addMouseListener(double x,double y, double width, double height, ChartMouseListener listener) {
-    areas.add(new RectAreaListener(x, y, width, height, listener));
+    areas.add(new RectAreaListener(x, y, width, height, listener), x, y, x + width, y + height);
   }
 
   public void clear() {
     areas.clear();
   }
 
+  public void build() {
+    areas.build();
+  }
+
   public boolean fireMouseWheel(int x, int y, int delta) {
-    for (AreaListener a : areas) {
+    for (int n : areas.find(x, y)) {
+      final AreaListener a = areas.get(n);
       if (a.isInside(x, y)) {
         final ChartMouseListener l = a.getListener();
         if (l instanceof ChartMouseWheelListener) {
@@ -42,7 +44,8 @@ public class MouseListeners {
     startX = x;
     startY = y;
 
-    for (AreaListener a : areas) {
+    for (int n : areas.find(x, y)) {
+      final AreaListener a = areas.get(n);
       if (a.isInside(x, y)) {
         final ChartMouseListener l = a.getListener();
         if (l instanceof ChartMouseDownListener) {
@@ -57,7 +60,8 @@ public class MouseListeners {
   public void fireMouseUp(int x, int y) {
     isDragging = false;
 
-    for (AreaListener a : areas) {
+    for (int n : areas.find(x, y)) {
+      final AreaListener a = areas.get(n);
       if (a.isInside(x, y)) {
         final ChartMouseListener l = a.getListener();
         if (l instanceof ChartMouseUpListener) {
@@ -74,7 +78,8 @@ public class MouseListeners {
       final int dX = startX - x;
       final int dY = startY - y;
 
-      for (AreaListener a : areas) {
+      for (int n : areas.find(x, y)) {
+        final AreaListener a = areas.get(n);
         if (a.isInside(x, y)) {
           final ChartMouseListener l = a.getListener();
           if (l instanceof ChartMouseDragListener) {
@@ -89,7 +94,8 @@ public class MouseListeners {
       startY = y;
     }
 
-    for (AreaListener a : areas) {
+    for (int n : areas.find(x, y)) {
+      final AreaListener a = areas.get(n);
       if (a.isInside(x, y)) {
         final ChartMouseListener l = a.getListener();
         if (l instanceof ChartMouseMoveListener) {
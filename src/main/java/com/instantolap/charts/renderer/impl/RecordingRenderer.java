@@ -0,0 +1,346 @@
+package com.instantolap.charts.renderer.impl;
+
+import com.instantolap.charts.impl.data.Theme;
+import com.instantolap.charts.renderer.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.geom.Path2D;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+
+/**
+ * Records the drawing calls of a render into a {@link DisplayList}, which
+ * can then be replayed onto other renderers, e.g. once as PNG and once as
+ * SVG, without running the layout of the chart again. Every render, from
+ * init to finish, starts a new display list.
+ * <p>
+ * The layout depends on the size of texts, which is measured by a
+ * {@link TextMetrics}, by default from the Helvetica font metrics. Texts are
+ * replayed centered on the same point, so they stay in place if the target
+ * measures them slightly differently.
+ * </p>
+ */
+public class RecordingRenderer extends BasicRenderer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecordingRenderer.class);
+
+  private final TextMetrics metrics;
+  private final Map<String, SimpleDateFormat> dateFormats = new HashMap<>();
+  private DisplayList list = new DisplayList(0, 0);
+  private double width, height;
+  private ChartStroke stroke;
+  private ChartFont font = new Theme().getDefaultFont();
+
+  public RecordingRenderer() {
+    this(new AfmTextMetrics());
+  }
+
+  public RecordingRenderer(TextMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the calls of the last render.
+   */
+  public DisplayList getDisplayList() {
+    return list;
+  }
+
+  @Override
+  public void setSize(double width, double height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  @Override
+  public double getWidth() {
+    return width;
+  }
+
+  @Override
+  public double getHeight() {
+    return height;
+  }
+
+  @Override
+  public void init() {
+    super.init();
+    list = new DisplayList(width, height);
+  }
+
+  @Override
+  public void finish() {
+    super.finish();
+    list.trim();
+  }
+
+  @Override
+  public void setColor(ChartColor color) {
+    super.setColor(color);
+    list.add(DisplayList.SET_COLOR);
+    list.object(color);
+  }
+
+  @Override
+  public void setStroke(ChartStroke stroke) {
+    this.stroke = stroke;
+    list.add(DisplayList.SET_STROKE);
+    list.object(stroke);
+  }
+
+  @Override
+  public void resetStroke() {
+    this.stroke = null;
+    list.add(DisplayList.RESET_STROKE);
+  }
+
+  @Override
+  public void setFont(ChartFont font) {
+    if (font == null) {
+      font = new Theme().getDefaultFont();
+    }
+    super.setFont(font);
+    this.font = font;
+    list.add(DisplayList.SET_FONT);
+    list.object(font);
+  }
+
+  @Override
+  public void clipRoundedRect(double x, double y, double width, double height, double arc) {
+    list.add(DisplayList.CLIP_ROUNDED_RECT);
+    args(x, y, width, height, arc);
+  }
+
+  @Override
+  public void resetClip() {
+    list.add(DisplayList.RESET_CLIP);
+  }
+
+  @Override
+  public void drawLine(double x1, double y1, double x2, double y2) {
+    add(DisplayList.DRAW_LINE, x1, y1, x2, y2);
+    args(x1, y1, x2, y2);
+  }
+
+  @Override
+  public void fillRect(double x, double y, double width, double height) {
+    add(DisplayList.FILL_RECT, x, y, x + width, y + height);
+    args(x, y, width, height);
+  }
+
+  @Override
+  public void fillRoundedRect(double x, double y, double width, double height, double arc) {
+    add(DisplayList.FILL_ROUNDED_RECT, x, y, x + width, y + height);
+    args(x, y, width, height, arc);
+  }
+
+  @Override
+  public void drawRect(double x, double y, double width, double height) {
+    add(DisplayList.DRAW_RECT, x, y, x + width, y + height);
+    args(x, y, width, height);
+  }
+
+  @Override
+  public void drawRoundedRect(double x, double y, double width, double height, double arc) {
+    add(DisplayList.DRAW_ROUNDED_RECT, x, y, x + width, y + height);
+    args(x, y, width, height, arc);
+  }
+
+  @Override
+  public void drawPolyLine(double[] x, double[] y) {
+    path(DisplayList.DRAW_POLYLINE, x, y);
+  }
+
+  @Override
+  public void drawPolygon(double[] x, double[] y) {
+    path(DisplayList.DRAW_POLYGON, x, y);
+  }
+
+  @Override
+  public void fillPolygon(double[] x, double[] y) {
+    path(DisplayList.FILL_POLYGON, x, y);
+  }
+
+  @Override
+  public void fillDonut(double x, double y, double r1, double r2, double a1, double a2,
+                        boolean round) {
+    donut(DisplayList.FILL_DONUT, x, y, r1, r2, a1, a2, round);
+  }
+
+  @Override
+  public void drawDonut(double x, double y, double r1, double r2, double a1, double a2,
+                        boolean round) {
+    donut(DisplayList.DRAW_DONUT, x, y, r1, r2, a1, a2, round);
+  }
+
+  @Override
+  public void drawCircle(double x, double y, double size) {
+    add(DisplayList.DRAW_CIRCLE, x, y, x + size, y + size);
+    args(x, y, size);
+  }
+
+  @Override
+  public void fillCircle(double x, double y, double size) {
+    add(DisplayList.FILL_CIRCLE, x, y, x + size, y + size);
+    args(x, y, size);
+  }
+
+  @Override
+  public void drawBubble(double bx, double by, double bw, double bh, double x, double y, double arc) {
+    bubble(DisplayList.DRAW_BUBBLE, bx, by, bw, bh, x, y, arc);
+  }
+
+  @Override
+  public void fillBubble(double bx, double by, double bw, double bh, double x, double y, double arc) {
+    bubble(DisplayList.FILL_BUBBLE, bx, by, bw, bh, x, y, arc);
+  }
+
+  @Override
+  protected void drawText(TextInfo i, String text) {
+    add(DisplayList.DRAW_TEXT, i.x, i.y, i.x + i.w, i.y + i.h);
+    args(i.rx, i.ry, Math.toDegrees(i.rad));
+    list.object(text);
+  }
+
+  @Override
+  protected double getTextLineWidth(String text) {
+    return metrics.getWidth(font, text) - 1;
+  }
+
+  @Override
+  protected double getTextLineHeight(String text) {
+    return metrics.getAscent(font) - 2;
+  }
+
+  @Override
+  protected void setGradient(double x, double y, double width, double height) {
+    // gradients are set up by the target renderer
+  }
+
+  @Override
+  public String format(String format, double v) {
+    if (format == null) {
+      return null;
+    }
+    return new DecimalFormat(format).format(v);
+  }
+
+  @Override
+  public String format(String format, Date v) {
+    SimpleDateFormat dateFormat = dateFormats.get(format);
+    if (dateFormat == null) {
+      dateFormat = new SimpleDateFormat(format);
+      dateFormats.put(format, dateFormat);
+      dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+    return dateFormat.format(v);
+  }
+
+  @Override
+  public void animate(HasAnimation animated, long duration) throws ChartException {
+    animated.render(1);
+  }
+
+  @Override
+  public boolean inPath(double x, double y, double[] path) {
+    final Path2D p = new Path2D.Double();
+    p.moveTo(path[0], path[1]);
+    for (int n = 2; n < path.length; n += 2) {
+      p.lineTo(path[n], path[n + 1]);
+    }
+    p.closePath();
+    return p.contains(x, y);
+  }
+
+  @Override
+  public boolean isInDonut(double xx, double yy, double x, double y, double r1, double r2,
+                           double a1, double a2, boolean round) {
+    final double dx = xx - x, dy = yy - y;
+    final double r = Math.sqrt(dx * dx + dy * dy);
+    if (r < r1 || r > r2) {
+      return false;
+    }
+
+    final double from = Math.min(a1, a2), to = Math.max(a1, a2);
+    double a = Math.atan2(dx, -dy);
+    while (a < from) {
+      a += 2 * Math.PI;
+    }
+    while (a - 2 * Math.PI >= from) {
+      a -= 2 * Math.PI;
+    }
+    return a <= to;
+  }
+
+  @Override
+  public void showClickPointer() {
+    // not needed in headless mode
+  }
+
+  @Override
+  public void showNormalPointer() {
+    // not needed in headless mode
+  }
+
+  @Override
+  public void openPopup(RendererContent chart) {
+    // not needed in headless mode
+  }
+
+  @Override
+  public void showError(Exception e) {
+    LOGGER.error("Chart error", e);
+  }
+
+  /**
+   * Adds a drawing call with its bounds, widened by the stroke.
+   */
+  private void add(byte op, double x1, double y1, double x2, double y2) {
+    final double pad = (stroke != null) ? Math.max(1, stroke.getWidth()) : 1;
+    list.add(op, Math.min(x1, x2) - pad, Math.min(y1, y2) - pad,
+      Math.max(x1, x2) + pad, Math.max(y1, y2) + pad);
+  }
+
+  private void args(double... values) {
+    list.arg(values);
+  }
+
+  private void path(byte op, double[] x, double[] y) {
+    final int points = Math.min(x.length, y.length);
+    double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY;
+    double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY;
+    for (int n = 0; n < points; n++) {
+      x1 = Math.min(x1, x[n]);
+      y1 = Math.min(y1, y[n]);
+      x2 = Math.max(x2, x[n]);
+      y2 = Math.max(y2, y[n]);
+    }
+    add(op, x1, y1, x2, y2);
+    list.arg(points);
+    for (int n = 0; n < points; n++) {
+      list.arg(x[n]);
+    }
+    for (int n = 0; n < points; n++) {
+      list.arg(y[n]);
+    }
+  }
+
+  private void donut(byte op, double x, double y, double r1, double r2, double a1, double a2,
+                     boolean round) {
+    final double r = Math.max(r1, r2);
+    add(op, x - r, y - r, x + r, y + r);
+    args(x, y, r1, r2, a1, a2, round ? 1 : 0);
+  }
+
+  private void bubble(byte op, double bx, double by, double bw, double bh, double x, double y,
+                      double arc) {
+    add(op, Math.min(bx, x), Math.min(by, y), Math.max(bx + bw, x), Math.max(by + bh, y));
+    args(bx, by, bw, bh, x, y, arc);
+  }
+}
@@ -0,0 +1,162 @@
+package com.instantolap.charts.renderer.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Uniform grid over the bounding boxes of hit areas. Items are added during
+ * a render, the grid is built in bulk afterwards, and a lookup only checks
+ * the items whose boxes are in the cell of the point. Items keep the order
+ * in which they were added, so that callers can decide which one is on top.
+ */
+public class SpatialIndex<T> {
+
+  private static final int MAX_CELLS = 256;
+
+  private final List<T> items = new ArrayList<>();
+  private double[] bounds = new double[64];
+  private boolean isBuilt;
+  private int columns, rows;
+  private double minX, minY, maxX, maxY, cellWidth, cellHeight;
+  private int[] cellStarts;
+  private int[] cellItems;
+
+  public void add(T item, double x1, double y1, double x2, double y2) {
+    final int n = items.size();
+    if (bounds.length < (n + 1) * 4) {
+      bounds = Arrays.copyOf(bounds, bounds.length * 2);
+    }
+    bounds[n * 4] = Math.min(x1, x2);
+    bounds[n * 4 + 1] = Math.min(y1, y2);
+    bounds[n * 4 + 2] = Math.max(x1, x2);
+    bounds[n * 4 + 3] = Math.max(y1, y2);
+    items.add(item);
+    isBuilt = false;
+  }
+
+  public void clear() {
+    items.clear();
+    isBuilt = false;
+    cellStarts = null;
+    cellItems = null;
+  }
+
+  public int size() {
+    return items.size();
+  }
+
+  public T get(int n) {
+    return items.get(n);
+  }
+
+  /**
+   * Returns the indices of all items whose bounding box contains the point,
+   * in the order in which the items were added.
+   */
+  public int[] find(double x, double y) {
+    if (!isBuilt) {
+      build();
+    }
+    if (cellStarts == null || x < minX || y < minY || x > maxX || y > maxY) {
+      return new int[0];
+    }
+
+    final int column = Math.min(columns - 1, (int) ((x - minX) / cellWidth));
+    final int row = Math.min(rows - 1, (int) ((y - minY) / cellHeight));
+
+    final int cell = row * columns + column;
+    final int start = cellStarts[cell];
+    final int end = cellStarts[cell + 1];
+    final int[] result = new int[end - start];
+    int count = 0;
+    for (int i = start; i < end; i++) {
+      final int n = cellItems[i];
+      if (x >= bounds[n * 4] && y >= bounds[n * 4 + 1]
+        && x <= bounds[n * 4 + 2] && y <= bounds[n * 4 + 3]) {
+        result[count++] = n;
+      }
+    }
+    return (count == result.length) ? result : Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Distributes the items to the grid cells. Called automatically by the
+   * first lookup after an item was added.
+   */
+  public void build() {
+    isBuilt = true;
+    cellStarts = null;
+    cellItems = null;
+
+    final int size = items.size();
+    minX = minY = Double.POSITIVE_INFINITY;
+    maxX = maxY = Double.NEGATIVE_INFINITY;
+    for (int n = 0; n < size; n++) {
+      if (isValid(n)) {
+        minX = Math.min(minX, bounds[n * 4]);
+        minY = Math.min(minY, bounds[n * 4 + 1]);
+        maxX = Math.max(maxX, bounds[n * 4 + 2]);
+        maxY = Math.max(maxY, bounds[n * 4 + 3]);
+      }
+    }
+    if (minX > maxX) {
+      return;
+    }
+
+    // about one item per cell
+    final int cells = (int) Math.ceil(Math.sqrt(size));
+    columns = Math.max(1, Math.min(MAX_CELLS, cells));
+    rows = columns;
+    cellWidth = Math.max((maxX - minX) / columns, Double.MIN_VALUE);
+    cellHeight = Math.max((maxY - minY) / rows, Double.MIN_VALUE);
+
+    // count the items per cell, then fill them in order
+    final int[] starts = new int[columns * rows + 1];
+    for (int n = 0; n < size; n++) {
+      if (isValid(n)) {
+        for (int row = getRow(n * 4 + 1); row <= getRow(n * 4 + 3); row++) {
+          for (int column = getColumn(n * 4); column <= getColumn(n * 4 + 2); column++) {
+            starts[row * columns + column + 1]++;
+          }
+        }
+      }
+    }
+    for (int cell = 0; cell < columns * rows; cell++) {
+      starts[cell + 1] += starts[cell];
+    }
+
+    final int[] positions = Arrays.copyOf(starts, starts.length - 1);
+    final int[] cellContent = new int[starts[starts.length - 1]];
+    for (int n = 0; n < size; n++) {
+      if (isValid(n)) {
+        for (int row = getRow(n * 4 + 1); row <= getRow(n * 4 + 3); row++) {
+          for (int column = getColumn(n * 4); column <= getColumn(n * 4 + 2); column++) {
+            cellContent[positions[row * columns + column]++] = n;
+          }
+        }
+      }
+    }
+
+    cellStarts = starts;
+    cellItems = cellContent;
+  }
+
+  private boolean isValid(int n) {
+    for (int i = n * 4; i < n * 4 + 4; i++) {
+      if (Double.isNaN(bounds[i]) || Double.isInfinite(bounds[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int getColumn(int i) {
+    return Math.min(columns - 1, (int) ((bounds[i] - minX) / cellWidth));
+  }
+
+  private int getRow(int i) {
+    return Math.min(rows - 1, (int) ((bounds[i] - minY) / cellHeight));
+  }
+}
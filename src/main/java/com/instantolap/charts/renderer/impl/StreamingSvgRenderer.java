@@ -0,0 +1,706 @@
+package com.instantolap.charts.renderer.impl;
+
+import com.instantolap.charts.impl.data.Theme;
+import com.instantolap.charts.renderer.*;
+import com.instantolap.charts.renderer.util.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.geom.Path2D;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+
+/**
+ * Writes SVG elements straight to a Writer while the chart is rendered,
+ * without building a DOM. Every render writes one complete document, from
+ * init to finish, so the output has to be set before each render.
+ * <p>
+ * Text is measured by a {@link TextMetrics}, by default from the Helvetica
+ * font metrics. With style deduplication, each distinct combination of fill,
+ * stroke and font is written once as a CSS class, which makes charts with
+ * many similar shapes much smaller.
+ * </p>
+ */
+public class StreamingSvgRenderer extends BasicRenderer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingSvgRenderer.class);
+  private static final int FLUSH_SIZE = 8192;
+
+  private final TextMetrics metrics;
+  private final boolean deduplicateStyles;
+  private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 1024);
+  private final Map<String, String> styleClasses = new HashMap<>();
+  private final Map<String, SimpleDateFormat> dateFormats = new HashMap<>();
+  private Writer out;
+  private double width, height;
+  private ChartColor color = ChartColor.BLACK;
+  private ChartStroke stroke;
+  private ChartFont font = new Theme().getDefaultFont();
+  private String fillStyle, strokeStyle, textStyle;
+  private String gradient;
+  private int gradientCount, clipCount, openClips;
+
+  public StreamingSvgRenderer() {
+    this(new AfmTextMetrics(), true);
+  }
+
+  public StreamingSvgRenderer(TextMetrics metrics, boolean deduplicateStyles) {
+    this.metrics = metrics;
+    this.deduplicateStyles = deduplicateStyles;
+  }
+
+  public StreamingSvgRenderer(Writer out) {
+    this();
+    setOutput(out);
+  }
+
+  public StreamingSvgRenderer(OutputStream out) {
+    this();
+    setOutput(out);
+  }
+
+  /**
+   * Sets the target of the next render. The writer is flushed, but not
+   * closed, at the end of the render.
+   */
+  public void setOutput(Writer out) {
+    this.out = out;
+  }
+
+  public void setOutput(OutputStream out) {
+    setOutput(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+  }
+
+  @Override
+  public void setSize(double width, double height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  @Override
+  public double getWidth() {
+    return width;
+  }
+
+  @Override
+  public double getHeight() {
+    return height;
+  }
+
+  @Override
+  public void init() {
+    super.init();
+    if (out == null) {
+      throw new IllegalStateException("No output set");
+    }
+
+    buffer.setLength(0);
+    styleClasses.clear();
+    gradient = null;
+    gradientCount = clipCount = openClips = 0;
+
+    buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    buffer.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+    number(width).append("\" height=\"");
+    number(height).append("\" viewBox=\"0 0 ");
+    number(width).append(' ');
+    number(height).append("\" stroke-linecap=\"round\" stroke-linejoin=\"round\">\n");
+  }
+
+  @Override
+  public void finish() {
+    super.finish();
+    resetClip();
+    buffer.append("</svg>\n");
+    flush(true);
+  }
+
+  @Override
+  public void setColor(ChartColor color) {
+    if (color == null) {
+      color = ChartColor.BLACK;
+    }
+    super.setColor(color);
+    this.color = color;
+    fillStyle = strokeStyle = textStyle = null;
+  }
+
+  @Override
+  public void setStroke(ChartStroke stroke) {
+    this.stroke = stroke;
+    strokeStyle = null;
+  }
+
+  @Override
+  public void resetStroke() {
+    setStroke(null);
+  }
+
+  @Override
+  public void setFont(ChartFont font) {
+    if (font == null) {
+      font = new Theme().getDefaultFont();
+    }
+    super.setFont(font);
+    this.font = font;
+    textStyle = null;
+  }
+
+  @Override
+  public void drawLine(double x1, double y1, double x2, double y2) {
+    begin("line", getStrokeStyle());
+    attribute("x1", x1).attribute("y1", y1).attribute("x2", x2).attribute("y2", y2);
+    end();
+  }
+
+  @Override
+  public void fillRect(double x, double y, double width, double height) {
+    prepareFillRect(x, y, width, height);
+    rect(getFillStyle(), x, y, width, height, 0);
+  }
+
+  @Override
+  public void fillRoundedRect(double x, double y, double width, double height, double arc) {
+    prepareFillRect(x, y, width, height);
+    rect(getFillStyle(), x, y, width, height, arc);
+  }
+
+  @Override
+  public void drawRect(double x, double y, double width, double height) {
+    rect(getStrokeStyle(), x, y, width, height, 0);
+  }
+
+  @Override
+  public void drawRoundedRect(double x, double y, double width, double height, double arc) {
+    rect(getStrokeStyle(), x, y, width, height, arc);
+  }
+
+  @Override
+  public void clipRoundedRect(double x, double y, double width, double height, double arc) {
+    final String id = "c" + clipCount++;
+    buffer.append("<clipPath id=\"").append(id).append("\">");
+    rect(null, x, y, width, height, arc);
+    buffer.append("</clipPath>\n<g clip-path=\"url(#").append(id).append(")\">\n");
+    openClips++;
+  }
+
+  @Override
+  public void resetClip() {
+    for (; openClips > 0; openClips--) {
+      buffer.append("</g>\n");
+    }
+  }
+
+  @Override
+  public void drawPolyLine(double[] x, double[] y) {
+    points("polyline", getStrokeStyle(), x, y);
+  }
+
+  @Override
+  public void drawPolygon(double[] x, double[] y) {
+    points("polygon", getStrokeStyle(), x, y);
+  }
+
+  @Override
+  public void fillPolygon(double[] x, double[] y) {
+    prepareFillPolygon(x, y);
+    points("polygon", getFillStyle(), x, y);
+  }
+
+  @Override
+  public void fillDonut(double x, double y, double r1, double r2, double a1, double a2,
+                        boolean round) {
+    prepareFillDonut(x, y, r2, a1, a2);
+    begin("path", getFillStyle());
+    donutPath(x, y, r1, r2, a1, a2, round);
+    end();
+  }
+
+  @Override
+  public void drawDonut(double x, double y, double r1, double r2, double a1, double a2,
+                        boolean round) {
+    begin("path", getStrokeStyle());
+    donutPath(x, y, r1, r2, a1, a2, round);
+    end();
+  }
+
+  @Override
+  public void drawCircle(double x, double y, double size) {
+    circle(getStrokeStyle(), x, y, size);
+  }
+
+  @Override
+  public void fillCircle(double x, double y, double size) {
+    prepareFillRect(x, y, size, size);
+    circle(getFillStyle(), x, y, size);
+  }
+
+  @Override
+  public void drawBubble(double bx, double by, double bw, double bh, double x, double y, double arc) {
+    begin("path", getStrokeStyle());
+    bubblePath(bx, by, bw, bh, x, y, arc);
+    end();
+  }
+
+  @Override
+  public void fillBubble(double bx, double by, double bw, double bh, double x, double y, double arc) {
+    begin("path", getFillStyle());
+    bubblePath(bx, by, bw, bh, x, y, arc);
+    end();
+  }
+
+  @Override
+  protected void drawText(TextInfo i, String text) {
+    final String[] lines = StringHelper.splitString(text, "\n");
+    double y = (int) i.ty;
+    for (int n = lines.length - 1; n >= 0; n--) {
+      final String line = lines[n];
+      begin("text", getTextStyle());
+      attribute("x", (int) i.tx).attribute("y", y);
+      if (i.rad != 0) {
+        buffer.append(" transform=\"rotate(");
+        number(Math.toDegrees(i.rad)).append(' ');
+        number(i.rx).append(' ');
+        number(i.ry).append(")\"");
+      }
+      buffer.append('>');
+      escape(line);
+      buffer.append("</text>\n");
+      flush(false);
+
+      y -= getTextHeight(line);
+      y -= TEXTLINE_SPACING;
+    }
+  }
+
+  @Override
+  protected double getTextLineWidth(String text) {
+    return metrics.getWidth(font, text) - 1;
+  }
+
+  @Override
+  protected double getTextLineHeight(String text) {
+    return metrics.getAscent(font) - 2;
+  }
+
+  @Override
+  protected void setGradient(double x, double y, double width, double height) {
+    if (!color.isGradient()) {
+      return;
+    }
+
+    gradient = "g" + gradientCount++;
+    buffer.append("<defs><linearGradient id=\"").append(gradient)
+      .append("\" gradientUnits=\"userSpaceOnUse\"");
+    attribute("x1", (int) x).attribute("y1", (int) y);
+    attribute("x2", (int) (x + 2 * width)).attribute("y2", (int) (y + 2 * height));
+    buffer.append("><stop offset=\"0\" stop-color=\"");
+    color(color).append('"');
+    if (color.getA() < 255) {
+      attribute("stop-opacity", color.getA() / 255.0);
+    }
+    buffer.append("/><stop offset=\"1\" stop-color=\"#ffffff\"/></linearGradient></defs>\n");
+  }
+
+  @Override
+  public String format(String format, double v) {
+    if (format == null) {
+      return null;
+    }
+    return new DecimalFormat(format).format(v);
+  }
+
+  @Override
+  public String format(String format, Date v) {
+    SimpleDateFormat dateFormat = dateFormats.get(format);
+    if (dateFormat == null) {
+      dateFormat = new SimpleDateFormat(format);
+      dateFormats.put(format, dateFormat);
+      dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+    return dateFormat.format(v);
+  }
+
+  @Override
+  public void animate(HasAnimation animated, long duration) throws ChartException {
+    animated.render(1);
+  }
+
+  @Override
+  public boolean inPath(double x, double y, double[] path) {
+    final Path2D p = new Path2D.Double();
+    p.moveTo(path[0], path[1]);
+    for (int n = 2; n < path.length; n += 2) {
+      p.lineTo(path[n], path[n + 1]);
+    }
+    p.closePath();
+    return p.contains(x, y);
+  }
+
+  @Override
+  public boolean isInDonut(double xx, double yy, double x, double y, double r1, double r2,
+                           double a1, double a2, boolean round) {
+    final double dx = xx - x, dy = yy - y;
+    final double r = Math.sqrt(dx * dx + dy * dy);
+    if (r < r1 || r > r2) {
+      return false;
+    }
+
+    final double from = Math.min(a1, a2), to = Math.max(a1, a2);
+    double a = Math.atan2(dx, -dy);
+    while (a < from) {
+      a += 2 * Math.PI;
+    }
+    while (a - 2 * Math.PI >= from) {
+      a -= 2 * Math.PI;
+    }
+    return a <= to;
+  }
+
+  @Override
+  public void showClickPointer() {
+    // not needed in headless mode
+  }
+
+  @Override
+  public void showNormalPointer() {
+    // not needed in headless mode
+  }
+
+  @Override
+  public void openPopup(RendererContent chart) {
+    // not needed in headless mode
+  }
+
+  @Override
+  public void showError(Exception e) {
+    LOGGER.error("Chart error", e);
+  }
+
+  private void rect(String style, double x, double y, double width, double height, double arc) {
+    begin("rect", style);
+    attribute("x", x).attribute("y", y).attribute("width", width).attribute("height", height);
+    if (arc > 0) {
+      attribute("rx", arc / 2).attribute("ry", arc / 2);
+    }
+    end();
+  }
+
+  private void circle(String style, double x, double y, double size) {
+    begin("circle", style);
+    attribute("cx", x + size / 2).attribute("cy", y + size / 2).attribute("r", size / 2);
+    end();
+  }
+
+  private void points(String tag, String style, double[] x, double[] y) {
+    begin(tag, style);
+    buffer.append(" points=\"");
+    final int count = Math.min(x.length, y.length);
+    for (int n = 0; n < count; n++) {
+      if (n > 0) {
+        buffer.append(' ');
+      }
+      number(x[n]).append(',');
+      number(y[n]);
+    }
+    buffer.append('"');
+    end();
+  }
+
+  private void donutPath(double x, double y, double r1, double r2, double a1, double a2,
+                         boolean round) {
+    buffer.append(" d=\"");
+    if (!round) {
+      move(x, y, r2, a1).line(x, y, r2, a2).line(x, y, r1, a2).line(x, y, r1, a1);
+    } else if (Math.abs(a2 - a1) >= 2 * Math.PI) {
+      move(x, y, r2, a1).arc(x, y, r2, a1, a1 + Math.PI).arc(x, y, r2, a1 + Math.PI, a1);
+      if (r1 > 0) {
+        buffer.append('Z');
+        move(x, y, r1, a1).arc(x, y, r1, a1, a1 - Math.PI).arc(x, y, r1, a1 - Math.PI, a1);
+      }
+    } else {
+      move(x, y, r2, a1).arc(x, y, r2, a1, a2);
+      if (r1 > 0) {
+        line(x, y, r1, a2).arc(x, y, r1, a2, a1);
+      } else {
+        buffer.append('L');
+        number(x).append(' ');
+        number(y);
+      }
+    }
+    buffer.append("Z\"");
+  }
+
+  private StreamingSvgRenderer move(double x, double y, double r, double a) {
+    buffer.append('M');
+    return point(x, y, r, a);
+  }
+
+  private StreamingSvgRenderer line(double x, double y, double r, double a) {
+    buffer.append('L');
+    return point(x, y, r, a);
+  }
+
+  private StreamingSvgRenderer arc(double x, double y, double r, double from, double to) {
+    buffer.append('A');
+    number(r).append(' ');
+    number(r).append(" 0 ");
+    buffer.append(Math.abs(to - from) > Math.PI ? '1' : '0').append(' ');
+    buffer.append(to > from ? '1' : '0').append(' ');
+    return point(x, y, r, to);
+  }
+
+  private StreamingSvgRenderer point(double x, double y, double r, double a) {
+    number(x + r * Math.sin(a)).append(' ');
+    number(y - r * Math.cos(a));
+    return this;
+  }
+
+  private void bubblePath(double x, double y, double w, double h, double ax, double ay,
+                          double rr) {
+    final double r = rr / 2.0;
+    final double aw = 10;
+
+    final int anchor = findAnchor(x, y, w, h, ax, ay);
+
+    buffer.append(" d=\"");
+
+    // upper
+    pathTo('M', x + r, y);
+    if (anchor == NORTH) {
+      pathTo('L', x + (w - aw) / 2, y);
+      pathTo('L', ax, ay);
+      pathTo('L', x + (w + aw) / 2, y);
+    }
+    pathTo('L', x + w - r, y);
+
+    // upper right
+    if (r > 0) {
+      pathTo('Q', x + w, y);
+      pathTo(' ', x + w, y + r);
+    }
+
+    // right
+    if (anchor == EAST) {
+      pathTo('L', x + w, y + (h - aw) / 2);
+      pathTo('L', ax, ay);
+      pathTo('L', x + w, y + (h + aw) / 2);
+    }
+    pathTo('L', x + w, y + h - r);
+
+    // lower right
+    if (r > 0) {
+      pathTo('Q', x + w, y + h);
+      pathTo(' ', x + w - r, y + h);
+    }
+
+    // lower
+    if (anchor == SOUTH) {
+      pathTo('L', x + (w + aw) / 2, y + h);
+      pathTo('L', ax, ay);
+      pathTo('L', x + (w - aw) / 2, y + h);
+    }
+    pathTo('L', x + r, y + h);
+
+    // lower left
+    if (r > 0) {
+      pathTo('Q', x, y + h);
+      pathTo(' ', x, y + h - r);
+    }
+
+    // left
+    if (anchor == WEST) {
+      pathTo('L', x, y + (h + aw) / 2);
+      pathTo('L', ax, ay);
+      pathTo('L', x, y + (h - aw) / 2);
+    }
+    pathTo('L', x, y + r);
+
+    // upper left
+    if (r > 0) {
+      pathTo('Q', x, y);
+      pathTo(' ', x + r, y);
+    }
+
+    buffer.append("Z\"");
+  }
+
+  private void pathTo(char command, double x, double y) {
+    buffer.append(command);
+    number(x).append(' ');
+    number(y);
+  }
+
+  private String getFillStyle() {
+    if (gradient != null) {
+      final String style = "fill:url(#" + gradient + ")";
+      gradient = null;
+      return style;
+    }
+    if (fillStyle == null) {
+      final StringBuilder style = new StringBuilder("fill:");
+      appendColor(style, "fill", color);
+      fillStyle = style.toString();
+    }
+    return fillStyle;
+  }
+
+  private String getStrokeStyle() {
+    if (strokeStyle == null) {
+      final StringBuilder style = new StringBuilder("fill:none;stroke:");
+      appendColor(style, "stroke", color);
+      if (stroke != null) {
+        // like Java2D, zero width means the thinnest line
+        style.append(";stroke-width:").append(Math.max(1, (int) stroke.getWidth()));
+        if (stroke.getLen1() != 0 && stroke.getLen2() != 0) {
+          style.append(";stroke-dasharray:")
+            .append(stroke.getLen1()).append(',').append(stroke.getLen2());
+        }
+      }
+      strokeStyle = style.toString();
+    }
+    return strokeStyle;
+  }
+
+  private String getTextStyle() {
+    if (textStyle == null) {
+      final StringBuilder style = new StringBuilder("font-family:");
+      final String name = font.getName();
+      if (name != null) {
+        style.append('\'').append(name.replace("'", "")).append("',");
+      }
+      style.append("sans-serif;font-size:").append(font.getSize()).append("px");
+      if (font.isBold()) {
+        style.append(";font-weight:bold");
+      }
+      if (font.isItalic()) {
+        style.append(";font-style:italic");
+      }
+      style.append(";fill:");
+      appendColor(style, "fill", color);
+      textStyle = style.toString();
+    }
+    return textStyle;
+  }
+
+  private static void appendColor(StringBuilder style, String property, ChartColor color) {
+    style.append('#');
+    hex(style, color.getR());
+    hex(style, color.getG());
+    hex(style, color.getB());
+    if (color.getA() < 255) {
+      style.append(';').append(property).append("-opacity:")
+        .append(Math.round(color.getA() / 2.55) / 100.0);
+    }
+  }
+
+  private static void hex(StringBuilder s, int v) {
+    s.append(Character.forDigit((v >> 4) & 15, 16)).append(Character.forDigit(v & 15, 16));
+  }
+
+  private void begin(String tag, String style) {
+    String styleClass = null;
+    if (deduplicateStyles && style != null) {
+      styleClass = styleClasses.get(style);
+      if (styleClass == null) {
+        styleClass = "s" + styleClasses.size();
+        styleClasses.put(style, styleClass);
+        buffer.append("<style>.").append(styleClass).append('{').append(style)
+          .append("}</style>\n");
+      }
+    }
+
+    buffer.append('<').append(tag);
+    if (styleClass != null) {
+      buffer.append(" class=\"").append(styleClass).append('"');
+    } else if (style != null) {
+      buffer.append(" style=\"").append(style).append('"');
+    }
+  }
+
+  private void end() {
+    buffer.append("/>\n");
+    flush(false);
+  }
+
+  private StreamingSvgRenderer attribute(String name, double value) {
+    buffer.append(' ').append(name).append("=\"");
+    number(value).append('"');
+    return this;
+  }
+
+  private StringBuilder color(ChartColor color) {
+    buffer.append('#');
+    hex(buffer, color.getR());
+    hex(buffer, color.getG());
+    hex(buffer, color.getB());
+    return buffer;
+  }
+
+  /**
+   * Appends the value with at most two decimals.
+   */
+  private StringBuilder number(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return buffer.append('0');
+    }
+
+    long v = Math.round(value * 100);
+    if (v < 0) {
+      buffer.append('-');
+      v = -v;
+    }
+    buffer.append(v / 100);
+    final int fraction = (int) (v % 100);
+    if (fraction != 0) {
+      buffer.append('.').append((char) ('0' + fraction / 10));
+      if (fraction % 10 != 0) {
+        buffer.append((char) ('0' + fraction % 10));
+      }
+    }
+    return buffer;
+  }
+
+  private void escape(String text) {
+    for (int n = 0; n < text.length(); n++) {
+      final char c = text.charAt(n);
+      switch (c) {
+        case '&':
+          buffer.append("&amp;");
+          break;
+        case '<':
+          buffer.append("&lt;");
+          break;
+        case '>':
+          buffer.append("&gt;");
+          break;
+        default:
+          if (c >= 32 || c == '\t') {
+            buffer.append(c);
+          }
+      }
+    }
+  }
+
+  private void flush(boolean force) {
+    if (!force && buffer.length() < FLUSH_SIZE) {
+      return;
+    }
+    try {
+      out.append(buffer);
+      if (force) {
+        out.flush();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    buffer.setLength(0);
+  }
+}
@@ -0,0 +1,44 @@
+package com.instantolap.charts.renderer.impl;
+
+import javax.swing.*;
+
+
+/**
+ * Animation scheduler on a Swing timer. The timer coalesces its events, so
+ * frames are dropped while the event dispatch thread is busy.
+ */
+public class SwingAnimationScheduler extends AnimationScheduler {
+
+  private static final SwingAnimationScheduler DEFAULT = new SwingAnimationScheduler(DEFAULT_FPS);
+
+  private final Timer timer;
+
+  public static SwingAnimationScheduler getDefault() {
+    return DEFAULT;
+  }
+
+  public SwingAnimationScheduler(int fps) {
+    super(fps);
+    timer = new Timer(1000 / fps, e -> tick(System.nanoTime()));
+    timer.setCoalesce(true);
+    timer.setInitialDelay(0);
+  }
+
+  @Override
+  public synchronized void setFps(int fps) {
+    super.setFps(fps);
+    if (timer != null) {
+      timer.setDelay(1000 / fps);
+    }
+  }
+
+  @Override
+  protected void startTimer() {
+    timer.start();
+  }
+
+  @Override
+  protected void stopTimer() {
+    timer.stop();
+  }
+}
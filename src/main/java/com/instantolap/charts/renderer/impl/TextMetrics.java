@@ -0,0 +1,20 @@
+package com.instantolap.charts.renderer.impl;
+
+import com.instantolap.charts.renderer.ChartFont;
+
+
+/**
+ * Measures text for renderers that have no graphics context to ask.
+ */
+public interface TextMetrics {
+
+  /**
+   * Returns the advance width of a single line of text.
+   */
+  double getWidth(ChartFont font, String text);
+
+  /**
+   * Returns the height from the baseline to the top of the font.
+   */
+  double getAscent(ChartFont font);
+}
@@ -0,0 +1,113 @@
+package com.instantolap.charts.renderer.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Least recently used cache of measured text line sizes, keyed by font and
+ * text. Counts hits and misses, so that the effect can be checked.
+ */
+public class TextMetricsCache {
+
+  public static final int DEFAULT_SIZE = 4096;
+
+  private final Map<Key, double[]> entries;
+  private long hits, misses;
+
+  public TextMetricsCache() {
+    this(DEFAULT_SIZE);
+  }
+
+  public TextMetricsCache(final int maxSize) {
+    entries = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached width, or NaN if it is not known yet.
+   */
+  public double getWidth(String font, String text) {
+    return get(font, text, 0);
+  }
+
+  public void setWidth(String font, String text, double width) {
+    set(font, text, 0, width);
+  }
+
+  /**
+   * Returns the cached height, or NaN if it is not known yet.
+   */
+  public double getHeight(String font, String text) {
+    return get(font, text, 1);
+  }
+
+  public void setHeight(String font, String text, double height) {
+    set(font, text, 1, height);
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  private double get(String font, String text, int index) {
+    final double[] entry = entries.get(new Key(font, text));
+    final double value = (entry != null) ? entry[index] : Double.NaN;
+    if (Double.isNaN(value)) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return value;
+  }
+
+  private void set(String font, String text, int index, double value) {
+    final Key key = new Key(font, text);
+    double[] entry = entries.get(key);
+    if (entry == null) {
+      entry = new double[]{Double.NaN, Double.NaN};
+      entries.put(key, entry);
+    }
+    entry[index] = value;
+  }
+
+
+  private static class Key {
+    private final String font;
+    private final String text;
+
+    public Key(String font, String text) {
+      this.font = font;
+      this.text = text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final Key key = (Key) o;
+      return font.equals(key.font) && text.equals(key.text);
+    }
+
+    @Override
+    public int hashCode() {
+      return font.hashCode() * 31 + text.hashCode();
+    }
+  }
+}